@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Representative record values for the sink benchmarks.
+ */
+public enum SinkPayload {
+  /**
+   * Struct with the reserved metadata and a short message, the shape produced by most log shippers.
+   */
+  SMALL_STRUCT {
+    final Schema schema = SchemaBuilder.struct()
+        .field("host", Schema.STRING_SCHEMA)
+        .field("time", Timestamp.SCHEMA)
+        .field("sourcetype", Schema.STRING_SCHEMA)
+        .field("index", Schema.STRING_SCHEMA)
+        .field("message", Schema.STRING_SCHEMA)
+        .build();
+
+    @Override
+    Schema schema() {
+      return this.schema;
+    }
+
+    @Override
+    Object value(int i) {
+      return new Struct(this.schema)
+          .put("host", "host" + (i % 16) + ".example.com")
+          .put("time", new Date(1472256858924L + i))
+          .put("sourcetype", "access_combined")
+          .put("index", "main")
+          .put("message", "GET /index.html HTTP/1.1 200 " + i);
+    }
+  },
+  /**
+   * Struct with the reserved metadata and fifty fields of mixed types, a nested struct and an array.
+   */
+  LARGE_STRUCT {
+    final Schema nested = SchemaBuilder.struct()
+        .field("name", Schema.STRING_SCHEMA)
+        .field("count", Schema.INT32_SCHEMA)
+        .field("ratio", Schema.FLOAT64_SCHEMA)
+        .build();
+    final Schema schema;
+
+    {
+      SchemaBuilder builder = SchemaBuilder.struct()
+          .field("host", Schema.STRING_SCHEMA)
+          .field("time", Timestamp.SCHEMA)
+          .field("source", Schema.STRING_SCHEMA)
+          .field("sourcetype", Schema.STRING_SCHEMA)
+          .field("index", Schema.STRING_SCHEMA);
+      for (int f = 0; f < 12; f++) {
+        builder.field("string" + f, Schema.STRING_SCHEMA);
+        builder.field("long" + f, Schema.INT64_SCHEMA);
+        builder.field("double" + f, Schema.FLOAT64_SCHEMA);
+        builder.field("boolean" + f, Schema.BOOLEAN_SCHEMA);
+      }
+      builder.field("nested", this.nested);
+      builder.field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build());
+      this.schema = builder.build();
+    }
+
+    @Override
+    Schema schema() {
+      return this.schema;
+    }
+
+    @Override
+    Object value(int i) {
+      Struct struct = new Struct(this.schema)
+          .put("host", "host" + (i % 16) + ".example.com")
+          .put("time", new Date(1472256858924L + i))
+          .put("source", "/var/log/app.log")
+          .put("sourcetype", "app")
+          .put("index", "main");
+      for (int f = 0; f < 12; f++) {
+        struct.put("string" + f, "value " + f + " of record " + i);
+        struct.put("long" + f, (long) i * f);
+        struct.put("double" + f, i / (f + 1.0D));
+        struct.put("boolean" + f, (i + f) % 2 == 0);
+      }
+      struct.put("nested", new Struct(this.nested).put("name", "nested" + i).put("count", i).put("ratio", 0.25D));
+      struct.put("tags", ImmutableList.of("production", "web", "us-east-1"));
+      return struct;
+    }
+  },
+  /**
+   * Schemaless map with metadata and three levels of nested maps and lists, as written by the JsonConverter.
+   */
+  NESTED_MAP {
+    @Override
+    Object value(int i) {
+      Map<String, Object> request = new LinkedHashMap<>();
+      request.put("method", "POST");
+      request.put("path", "/api/v1/orders/" + i);
+      request.put("headers", ImmutableMap.of("content-type", "application/json", "user-agent", "curl/7.47.0"));
+      request.put("latency", 12.5D + i % 100);
+
+      Map<String, Object> order = new LinkedHashMap<>();
+      order.put("id", (long) i);
+      order.put("items", ImmutableList.of(
+          ImmutableMap.of("sku", "A-1", "quantity", 1, "price", 9.99D),
+          ImmutableMap.of("sku", "B-2", "quantity", 3, "price", 1.25D)
+      ));
+      order.put("customer", ImmutableMap.of("id", i % 1000, "tier", "gold"));
+
+      Map<String, Object> value = new LinkedHashMap<>();
+      value.put("host", "host" + (i % 16) + ".example.com");
+      value.put("time", new Date(1472256858924L + i));
+      value.put("sourcetype", "_json");
+      value.put("request", request);
+      value.put("order", order);
+      return value;
+    }
+  },
+  /**
+   * Plain string value as written by the StringConverter.
+   */
+  STRING {
+    @Override
+    Object value(int i) {
+      return "127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\" 200 2326 " +
+          "\"http://www.example.com/start.html\" \"Mozilla/4.08 [en] (Win98; I ;Nav)\" " + i;
+    }
+  };
+
+  Schema schema() {
+    return null;
+  }
+
+  abstract Object value(int i);
+
+  List<SinkRecord> records(int count) {
+    List<SinkRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(new SinkRecord("topic", 0, null, null, schema(), value(i), i));
+    }
+    return records;
+  }
+}
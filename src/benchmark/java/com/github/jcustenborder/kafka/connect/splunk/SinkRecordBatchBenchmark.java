@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the request bodies for a put() the way the sink task does: {@link SinkRecordBatcher} serializes
+ * the records into pooled arrays and {@link SinkRecordBatchCompressor} gzips each body in place. Throughput is
+ * reported in records per second. The {@code bytes} counter is the request body size per second so dividing it by
+ * the throughput gives the bytes sent per record. Run with {@code -prof gc} to see the allocation rate,
+ * {@code gc.alloc.rate.norm} is the bytes allocated per record.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SinkRecordBatchBenchmark {
+  static final int RECORDS = 100;
+
+  @Param({"SMALL_STRUCT", "LARGE_STRUCT", "NESTED_MAP", "STRING"})
+  public SinkPayload payload;
+
+  @Param({"false", "true"})
+  public boolean gzip;
+
+  List<SinkRecord> records;
+  SinkRecordBatcher batcher;
+  SplunkSinkMetrics metrics;
+  SinkRecordBatchCompressor compressor;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Written {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.bytes = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    this.records = this.payload.records(RECORDS);
+    SplunkHttpSinkConnectorConfig config = new SplunkHttpSinkConnectorConfig(
+        ImmutableMap.of(
+            SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1",
+            SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0",
+            SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF, Integer.toString(Integer.MAX_VALUE),
+            SplunkHttpSinkConnectorConfig.COMPRESSION_ENABLED_CONF, Boolean.toString(this.gzip),
+            SplunkHttpSinkConnectorConfig.COMPRESSION_MIN_BYTES_CONF, "0"
+        )
+    );
+    this.batcher = new SinkRecordBatcher(config, null, new BufferPool(64L * 1024L * 1024L));
+    this.metrics = new SplunkSinkMetrics(new Metrics(), "benchmark", "0");
+    this.compressor = new SinkRecordBatchCompressor(config, this.metrics);
+  }
+
+  @TearDown
+  public void teardown() {
+    this.compressor.close();
+    this.metrics.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public int batch(Written written) throws IOException {
+    int bytes = 0;
+    for (SinkRecordBatch batch : this.batcher.batch(this.records)) {
+      this.compressor.compress(batch);
+      bytes += batch.length;
+      batch.release();
+    }
+    written.bytes += bytes;
+    return bytes;
+  }
+}
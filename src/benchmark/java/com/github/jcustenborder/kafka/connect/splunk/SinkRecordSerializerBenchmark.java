@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ObjectMapperFactory.SinkRecordSerializer} one record at a time and the
+ * {@link SinkRecordBatcher} that drives it from put(). Throughput is reported in records per second. Run with
+ * {@code -prof gc} to see the allocation rate, {@code gc.alloc.rate.norm} is the bytes allocated per record.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SinkRecordSerializerBenchmark {
+  static final int RECORDS = 100;
+
+  @Param({"SMALL_STRUCT", "LARGE_STRUCT", "NESTED_MAP", "STRING"})
+  public SinkPayload payload;
+
+  List<SinkRecord> records;
+  ByteArrayOutputStream outputStream;
+  SinkRecordBatcher batcher;
+
+  @Setup
+  public void setup() {
+    this.records = this.payload.records(RECORDS);
+    this.outputStream = new ByteArrayOutputStream(64 * 1024);
+    SplunkHttpSinkConnectorConfig config = new SplunkHttpSinkConnectorConfig(
+        ImmutableMap.of(
+            SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1",
+            SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0",
+            SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF, Integer.toString(Integer.MAX_VALUE)
+        )
+    );
+    this.batcher = new SinkRecordBatcher(config, null, new BufferPool(64L * 1024L * 1024L));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public int serialize() throws IOException {
+    int bytes = 0;
+    for (SinkRecord record : this.records) {
+      this.outputStream.reset();
+      ObjectMapperFactory.INSTANCE.writeValue(this.outputStream, record);
+      bytes += this.outputStream.size();
+    }
+    return bytes;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void batch(Blackhole blackhole) throws IOException {
+    for (SinkRecordBatch batch : this.batcher.batch(this.records)) {
+      blackhole.consume(batch.length);
+      batch.release();
+    }
+  }
+}
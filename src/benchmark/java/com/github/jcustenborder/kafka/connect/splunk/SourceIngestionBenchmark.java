@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per event work of the source. Parsing request bodies into {@link Struct} with
+ * {@link EventIterator} and converting them with {@link EventConverter} are measured separately and together.
+ * Every invocation handles {@link SourcePayload#EVENTS} events so throughput is reported in events per second. Run
+ * with {@code -prof gc} to see the allocation rate, {@code gc.alloc.rate.norm} is the bytes allocated per event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SourceIngestionBenchmark {
+  @Param({"SINGLE", "BATCH", "NESTED", "STRING"})
+  public SourcePayload payload;
+
+  final JsonFactory jsonFactory = new JsonFactory();
+  byte[][] bodies;
+  List<Struct> events;
+  EventConverter converter;
+
+  @Setup
+  public void setup() throws Exception {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, "splunk");
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PER_INDEX_CONF, Boolean.FALSE.toString());
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/keystore.jks");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    this.converter = new EventConverter(new SplunkHttpSourceConnectorConfig(settings));
+
+    this.bodies = this.payload.bodies();
+    this.events = new ArrayList<>(SourcePayload.EVENTS);
+    for (byte[] body : this.bodies) {
+      try (EventIterator iterator = EventIterator.create(this.jsonFactory, new ByteArrayInputStream(body))) {
+        while (iterator.hasNext()) {
+          this.events.add(iterator.next());
+        }
+      }
+    }
+    if (SourcePayload.EVENTS != this.events.size()) {
+      throw new IllegalStateException(
+          String.format("Expected %s events but parsed %s.", SourcePayload.EVENTS, this.events.size())
+      );
+    }
+  }
+
+  /**
+   * Parses the bodies the way {@link EventServlet} does, through the reader of the request.
+   */
+  @Benchmark
+  @OperationsPerInvocation(SourcePayload.EVENTS)
+  public void parse(Blackhole blackhole) throws Exception {
+    for (byte[] body : this.bodies) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+      try (EventIterator iterator = EventIterator.create(this.jsonFactory, reader)) {
+        while (iterator.hasNext()) {
+          blackhole.consume(iterator.next());
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses the bodies straight from the bytes, leaving out the reader.
+   */
+  @Benchmark
+  @OperationsPerInvocation(SourcePayload.EVENTS)
+  public void parseBytes(Blackhole blackhole) throws Exception {
+    for (byte[] body : this.bodies) {
+      try (EventIterator iterator = EventIterator.create(this.jsonFactory, new ByteArrayInputStream(body))) {
+        while (iterator.hasNext()) {
+          blackhole.consume(iterator.next());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SourcePayload.EVENTS)
+  public void convert(Blackhole blackhole) {
+    for (Struct event : this.events) {
+      blackhole.consume(this.converter.convert(event, "127.0.0.1"));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SourcePayload.EVENTS)
+  public void parseAndConvert(Blackhole blackhole) throws Exception {
+    for (byte[] body : this.bodies) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+      try (EventIterator iterator = EventIterator.create(this.jsonFactory, reader)) {
+        while (iterator.hasNext()) {
+          SourceRecord record = this.converter.convert(iterator.next(), "127.0.0.1");
+          blackhole.consume(record);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Representative Http Event Collector request bodies for the source benchmarks. Every payload holds
+ * {@link #EVENTS} events in total, either in one body or spread across one body per event, so results are
+ * comparable per event.
+ */
+public enum SourcePayload {
+  /**
+   * One small event per request.
+   */
+  SINGLE {
+    @Override
+    byte[][] bodies() {
+      byte[][] bodies = new byte[EVENTS][];
+      for (int i = 0; i < EVENTS; i++) {
+        bodies[i] = smallEvent(i).getBytes(StandardCharsets.UTF_8);
+      }
+      return bodies;
+    }
+  },
+  /**
+   * Small events concatenated into a single request, the way forwarders batch.
+   */
+  BATCH {
+    @Override
+    byte[][] bodies() {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < EVENTS; i++) {
+        builder.append(smallEvent(i));
+      }
+      return new byte[][]{builder.toString().getBytes(StandardCharsets.UTF_8)};
+    }
+  },
+  /**
+   * Events whose event field is a nested object.
+   */
+  NESTED {
+    @Override
+    byte[][] bodies() {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < EVENTS; i++) {
+        builder.append("{\"time\":1472256858.")
+            .append(100 + i % 900)
+            .append(",\"host\":\"host")
+            .append(i % 16)
+            .append(".example.com\",\"sourcetype\":\"_json\",\"index\":\"main\",\"event\":{\"request\":{\"method\":\"POST\",")
+            .append("\"path\":\"/api/v1/orders/")
+            .append(i)
+            .append("\",\"headers\":{\"content-type\":\"application/json\",\"user-agent\":\"curl/7.47.0\"},\"latency\":12.5},")
+            .append("\"order\":{\"id\":")
+            .append(i)
+            .append(",\"items\":[{\"sku\":\"A-1\",\"quantity\":1,\"price\":9.99},{\"sku\":\"B-2\",\"quantity\":3,")
+            .append("\"price\":1.25}],\"customer\":{\"id\":")
+            .append(i % 1000)
+            .append(",\"tier\":\"gold\"}}}}\n");
+      }
+      return new byte[][]{builder.toString().getBytes(StandardCharsets.UTF_8)};
+    }
+  },
+  /**
+   * Events whose event field is a plain string, such as an access log line.
+   */
+  STRING {
+    @Override
+    byte[][] bodies() {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < EVENTS; i++) {
+        builder.append("{\"time\":1472256858.")
+            .append(100 + i % 900)
+            .append(",\"host\":\"host")
+            .append(i % 16)
+            .append(".example.com\",\"sourcetype\":\"access_combined\",\"event\":\"127.0.0.1 - frank ")
+            .append("[10/Oct/2000:13:55:36 -0700] \\\"GET /apache_pb.gif HTTP/1.0\\\" 200 2326 ")
+            .append(i)
+            .append("\"}");
+      }
+      return new byte[][]{builder.toString().getBytes(StandardCharsets.UTF_8)};
+    }
+  };
+
+  static final int EVENTS = 1000;
+
+  static String smallEvent(int i) {
+    return "{\"time\":1472256858." + (100 + i % 900) + ",\"host\":\"host" + (i % 16) +
+        ".example.com\",\"source\":\"testapp\",\"sourcetype\":\"txt\",\"index\":\"main\",\"event\":{\"message\":\"" +
+        "Something happened " + i + "\"}}";
+  }
+
+  abstract byte[][] bodies();
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the target size of a batch in bytes and records using additive increase, multiplicative decrease. The
+ * target grows by a fixed step after every request that completes within
+ * {@link SplunkHttpSinkConnectorConfig#adaptiveLatency} and is cut in half when Splunk is busy or a request times out.
+ * A request that is too large lowers the target below its own size. When adaptive sizing is disabled the target is
+ * always the configured maximum.
+ */
+class AdaptiveBatchSize {
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchSize.class);
+  static final int STEPS = 20;
+  static final double DECREASE_FACTOR = 0.5D;
+
+  final boolean enabled;
+  final int minBytes;
+  final int maxBytes;
+  final int maxRecords;
+  final long healthyLatencyMs;
+  final int bytesStep;
+  final int recordsStep;
+  int targetBytes;
+  int targetRecords;
+
+  AdaptiveBatchSize(SplunkHttpSinkConnectorConfig config) {
+    this.enabled = config.adaptiveBatchEnabled;
+    this.maxBytes = config.batchMaxBytes;
+    this.maxRecords = config.batchMaxRecords;
+    this.minBytes = Math.min(config.adaptiveBatchMinBytes, this.maxBytes);
+    this.healthyLatencyMs = config.adaptiveLatency;
+    this.bytesStep = Math.max(1024, (this.maxBytes - this.minBytes) / STEPS);
+    this.recordsStep = Math.max(1, this.maxRecords / STEPS);
+    this.targetBytes = this.enabled ? this.minBytes : this.maxBytes;
+    this.targetRecords = this.enabled ? Math.max(1, this.maxRecords / STEPS) : this.maxRecords;
+  }
+
+  synchronized int targetBytes() {
+    return this.targetBytes;
+  }
+
+  synchronized int targetRecords() {
+    return this.targetRecords;
+  }
+
+  /**
+   * Method is called when Splunk accepted a request.
+   *
+   * @param latencyMs time the request took.
+   */
+  synchronized void success(long latencyMs) {
+    if (!this.enabled) {
+      return;
+    }
+    if (latencyMs > this.healthyLatencyMs) {
+      log.trace("Request took {} ms which is over {} ms. Holding batch size at {} bytes.", latencyMs, this.healthyLatencyMs, this.targetBytes);
+      return;
+    }
+    this.targetBytes = Math.min(this.maxBytes, this.targetBytes + this.bytesStep);
+    this.targetRecords = Math.min(this.maxRecords, this.targetRecords + this.recordsStep);
+  }
+
+  /**
+   * Method is called when Splunk is overloaded or a request timed out.
+   *
+   * @param reason reason for the decrease. Used for logging.
+   */
+  synchronized void overloaded(String reason) {
+    if (!this.enabled) {
+      return;
+    }
+    this.targetBytes = Math.max(this.minBytes, (int) (this.targetBytes * DECREASE_FACTOR));
+    this.targetRecords = Math.max(1, (int) (this.targetRecords * DECREASE_FACTOR));
+    log.debug("{}. Decreasing batch size to {} bytes and {} record(s).", reason, this.targetBytes, this.targetRecords);
+  }
+
+  /**
+   * Method is called when Splunk rejected a request as too large. The target is lowered to half the size of the
+   * request, so the pieces of a batch that is being split only lower it again when they are rejected as well.
+   *
+   * @param length length of the rejected body.
+   */
+  synchronized void tooLarge(int length) {
+    if (!this.enabled) {
+      return;
+    }
+    final int targetBytes = Math.max(this.minBytes, (int) (length * DECREASE_FACTOR));
+    if (targetBytes >= this.targetBytes) {
+      log.trace("Request of {} bytes was too large. Batch size is already {} bytes.", length, this.targetBytes);
+      return;
+    }
+    this.targetBytes = targetBytes;
+    log.debug("Request of {} bytes was too large. Decreasing batch size to {} bytes.", length, this.targetBytes);
+  }
+}
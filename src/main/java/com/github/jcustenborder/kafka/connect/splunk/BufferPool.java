@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of byte arrays used to hold request bodies so large batches do not allocate a new array for every request.
+ * Arrays that are smaller than requested or that would push the pool over its limit are left to the garbage
+ * collector.
+ */
+class BufferPool {
+  final long maxPooledBytes;
+  final Deque<byte[]> buffers = new ArrayDeque<>();
+  long pooledBytes;
+
+  BufferPool(long maxPooledBytes) {
+    this.maxPooledBytes = maxPooledBytes;
+  }
+
+  /**
+   * Method is used to get an array that can hold at least the requested number of bytes.
+   *
+   * @param size minimum size of the array.
+   * @return pooled array if one is large enough, otherwise a new array.
+   */
+  synchronized byte[] acquire(int size) {
+    byte[] buffer = this.buffers.pollFirst();
+    if (null != buffer) {
+      this.pooledBytes -= buffer.length;
+      if (buffer.length >= size) {
+        return buffer;
+      }
+    }
+    return new byte[size];
+  }
+
+  /**
+   * Method is used to return an array to the pool. The caller must not use the array afterwards.
+   *
+   * @param buffer array to return.
+   */
+  synchronized void release(byte[] buffer) {
+    if (null == buffer || this.pooledBytes + buffer.length > this.maxPooledBytes) {
+      return;
+    }
+    this.pooledBytes += buffer.length;
+    this.buffers.addFirst(buffer);
+  }
+}
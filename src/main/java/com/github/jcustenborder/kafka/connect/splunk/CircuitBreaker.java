@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops requests to Splunk after {@link SplunkHttpSinkConnectorConfig#circuitBreakerFailureThreshold} consecutive
+ * failures. While the breaker is open nothing is sent. Once the backoff has passed the breaker is half open and a
+ * single request is let through as a probe. If the probe succeeds the breaker closes and traffic resumes, otherwise it
+ * opens again for twice as long. A Retry-After returned by Splunk is used when it is longer than the backoff.
+ */
+class CircuitBreaker {
+  private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  final int failureThreshold;
+  final ExponentialBackoff backoff;
+  final Time time;
+  State state = State.CLOSED;
+  int failures;
+  int openings;
+  long openUntilMs;
+
+  CircuitBreaker(SplunkHttpSinkConnectorConfig config, Time time) {
+    this.failureThreshold = config.circuitBreakerFailureThreshold;
+    this.backoff = new ExponentialBackoff(config);
+    this.time = time;
+  }
+
+  synchronized State state() {
+    return this.state;
+  }
+
+  /**
+   * Method is called before a request is sent.
+   *
+   * @return 0 if the request can be sent, otherwise the time in milliseconds to wait before asking again.
+   */
+  synchronized long acquire() {
+    switch (this.state) {
+      case CLOSED:
+        return 0L;
+      case OPEN:
+        final long remaining = this.openUntilMs - this.time.milliseconds();
+        if (remaining > 0) {
+          return remaining;
+        }
+        log.info("Sending a probe request to Splunk.");
+        this.state = State.HALF_OPEN;
+        return 0L;
+      default:
+        return Math.max(1L, this.backoff.initialMs);
+    }
+  }
+
+  /**
+   * Method returns the time until the breaker lets a probe through.
+   *
+   * @return time in milliseconds or 0 if the breaker is not open.
+   */
+  synchronized long openMs() {
+    if (State.OPEN != this.state) {
+      return 0L;
+    }
+    return Math.max(0L, this.openUntilMs - this.time.milliseconds());
+  }
+
+  /**
+   * Method is called when Splunk responded to a request.
+   */
+  synchronized void success() {
+    if (State.CLOSED != this.state) {
+      log.info("Splunk is accepting requests again. Closing circuit breaker.");
+    }
+    this.state = State.CLOSED;
+    this.failures = 0;
+    this.openings = 0;
+  }
+
+  /**
+   * Method is called when a request failed because Splunk could not be reached or returned a server error.
+   *
+   * @param retryAfterMs time Splunk asked to wait before the next request. Can be null.
+   */
+  synchronized void failure(Long retryAfterMs) {
+    if (this.failureThreshold <= 0) {
+      return;
+    }
+    this.failures++;
+    if (State.HALF_OPEN == this.state || (State.CLOSED == this.state && this.failures >= this.failureThreshold)) {
+      open(retryAfterMs);
+    } else if (State.OPEN == this.state && null != retryAfterMs) {
+      this.openUntilMs = Math.max(this.openUntilMs, this.time.milliseconds() + retryAfterMs);
+    }
+  }
+
+  private void open(Long retryAfterMs) {
+    this.openings++;
+    long delay = this.backoff.backoffMs(this.openings);
+    if (null != retryAfterMs) {
+      delay = Math.max(delay, retryAfterMs);
+    }
+    log.warn(
+        "{} consecutive request(s) to Splunk failed. Opening circuit breaker for {} ms.",
+        this.failures,
+        delay
+    );
+    this.state = State.OPEN;
+    this.openUntilMs = this.time.milliseconds() + delay;
+  }
+}
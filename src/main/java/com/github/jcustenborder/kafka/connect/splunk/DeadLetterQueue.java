@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.Closeable;
+
+/**
+ * Destination for records that Splunk will never accept. A record is written with the error Splunk returned for it
+ * and is then treated as delivered, so it does not hold up the rest of its partition.
+ */
+interface DeadLetterQueue extends Closeable {
+  /**
+   * Method is used to write a record that Splunk rejected. Called from the sender threads.
+   *
+   * @param record record that was rejected.
+   * @param error  error returned by Splunk.
+   */
+  void write(SinkRecord record, String error);
+
+  /**
+   * Method is used to wait for the records written so far to be stored. Called before offsets are committed.
+   *
+   * @throws ConnectException if a record could not be stored.
+   */
+  void flush();
+
+  @Override
+  void close();
+
+  /**
+   * Method is used to create the dead letter queue for a task.
+   *
+   * @param config config for the task.
+   * @return the dead letter queue for the task or null if rejected records are only logged.
+   */
+  static DeadLetterQueue create(SplunkHttpSinkConnectorConfig config) {
+    if (!Strings.isNullOrEmpty(config.deadLetterTopic)) {
+      return new KafkaDeadLetterQueue(config);
+    }
+    if (!Strings.isNullOrEmpty(config.deadLetterPath)) {
+      return new FileDeadLetterQueue(config);
+    }
+    return null;
+  }
+
+  /**
+   * Method is used to serialize the key or value of a record. Strings are written as UTF-8, byte arrays as is, and
+   * everything else as json.
+   *
+   * @param value value to serialize.
+   * @return the serialized value or null if the value is null.
+   */
+  static byte[] serialize(Object value) {
+    if (null == value) {
+      return null;
+    } else if (value instanceof byte[]) {
+      return (byte[]) value;
+    } else if (value instanceof String) {
+      return ((String) value).getBytes(Charsets.UTF_8);
+    }
+    try {
+      return ObjectMapperFactory.INSTANCE.writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new ConnectException("Exception thrown while serializing rejected record.", e);
+    }
+  }
+}
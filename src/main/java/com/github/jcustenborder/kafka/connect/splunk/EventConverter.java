@@ -15,7 +15,6 @@
  */
 package com.github.jcustenborder.kafka.connect.splunk;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import org.apache.kafka.common.utils.SystemTime;
@@ -26,6 +25,7 @@ import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Timestamp;
 import org.apache.kafka.connect.source.SourceRecord;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -77,39 +77,35 @@ class EventConverter {
     this.defaultIndex = this.config.defaultIndex;
   }
 
-  static <T> void setFieldValue(JsonNode messageNode, Struct struct, String fieldName, Class<T> cls) {
-    T structValue = null;
-
-    if (messageNode.has(fieldName)) {
-      JsonNode valueNode = messageNode.get(fieldName);
+  /**
+   * Method is used to convert an event that has already been parsed into a tree.
+   */
+  public SourceRecord convert(JsonNode messageNode, String remoteHost) {
+    Preconditions.checkNotNull(messageNode, "messageNode cannot be null.");
+    Preconditions.checkState(messageNode.isObject(), "messageNode must be an object.");
 
-      if (String.class.equals(cls) && valueNode.isObject()) {
-        try {
-          structValue = (T) ObjectMapperFactory.INSTANCE.writeValueAsString(valueNode);
-        } catch (JsonProcessingException e) {
-          throw new IllegalStateException(e);
-        }
-      } else if (!valueNode.isNull()) {
-        structValue = ObjectMapperFactory.INSTANCE.convertValue(valueNode, cls);
-      }
+    try {
+      EventIterator iterator = EventIterator.create(
+          ObjectMapperFactory.INSTANCE.getFactory(),
+          messageNode.traverse(ObjectMapperFactory.INSTANCE)
+      );
+      return convert(iterator.next(), remoteHost);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
     }
-
-    struct.put(fieldName, structValue);
   }
 
-  public SourceRecord convert(JsonNode messageNode, String remoteHost) {
-    Preconditions.checkNotNull(messageNode, "messageNode cannot be null.");
-    Preconditions.checkState(messageNode.isObject(), "messageNode must be an object.");
+  /**
+   * Method is used to fill in the defaults of an event read by {@link EventIterator} and build the record for it.
+   *
+   * @param valueStruct event read from the request.
+   * @param remoteHost host the request came from.
+   * @return record for the event.
+   */
+  public SourceRecord convert(Struct valueStruct, String remoteHost) {
+    Preconditions.checkNotNull(valueStruct, "valueStruct cannot be null.");
 
     Struct keyStruct = new Struct(KEY_SCHEMA);
-    Struct valueStruct = new Struct(VALUE_SCHEMA);
-
-    setFieldValue(messageNode, valueStruct, "time", Date.class);
-    setFieldValue(messageNode, valueStruct, "host", String.class);
-    setFieldValue(messageNode, valueStruct, "source", String.class);
-    setFieldValue(messageNode, valueStruct, "sourcetype", String.class);
-    setFieldValue(messageNode, valueStruct, "index", String.class);
-    setFieldValue(messageNode, valueStruct, "event", String.class);
 
     if (null == valueStruct.get("time")) {
       valueStruct.put("time", new Date(this.time.milliseconds()));
@@ -5,7 +5,7 @@
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
  *
- *     http://www.apache.org/licenses/LICENSE-2.0
+ * http://www.apache.org/licenses/LICENSE-2.0
  *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
@@ -16,23 +16,38 @@
 package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.connect.data.Struct;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-class EventIterator implements Iterator<JsonNode>, AutoCloseable {
+/**
+ * Reads the events of a request body one token at a time. The envelope fields are read straight into a
+ * {@link EventConverter#VALUE_SCHEMA} struct and an object event is copied token by token to its serialized form, so
+ * no tree of nodes is built for an event. Unknown fields are skipped.
+ */
+class EventIterator implements Iterator<Struct>, AutoCloseable {
   final JsonFactory jsonFactory;
   final JsonParser jsonParser;
-  final Iterator<JsonNode> iterator;
+  /**
+   * Buffer the objects found in string fields are written to. Reused for every event of the request.
+   */
+  final StringWriter objectWriter = new StringWriter(256);
+  JsonGenerator objectGenerator;
+  JsonToken nextToken;
 
-  EventIterator(JsonFactory jsonFactory, JsonParser jsonParser, Iterator<JsonNode> iterator) {
+  EventIterator(JsonFactory jsonFactory, JsonParser jsonParser) {
     this.jsonFactory = jsonFactory;
     this.jsonParser = jsonParser;
-    this.iterator = iterator;
   }
 
   public static EventIterator create(JsonFactory jsonFactory, BufferedReader bufferedReader) throws IOException {
@@ -46,18 +61,121 @@ class EventIterator implements Iterator<JsonNode>, AutoCloseable {
   }
 
   public static EventIterator create(JsonFactory jsonFactory, JsonParser jsonParser) throws IOException {
-    Iterator<JsonNode> iterator = ObjectMapperFactory.INSTANCE.readValues(jsonParser, JsonNode.class);
-    return new EventIterator(jsonFactory, jsonParser, iterator);
+    return new EventIterator(jsonFactory, jsonParser);
   }
 
   @Override
   public boolean hasNext() {
-    return this.iterator.hasNext();
+    if (null == this.nextToken) {
+      try {
+        this.nextToken = this.jsonParser.nextToken();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return null != this.nextToken;
   }
 
   @Override
-  public JsonNode next() {
-    return this.iterator.next();
+  public Struct next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final JsonToken token = this.nextToken;
+    this.nextToken = null;
+    if (JsonToken.START_OBJECT != token) {
+      throw new IllegalStateException(
+          String.format("Event must be an object but found %s.", token)
+      );
+    }
+
+    try {
+      return readEvent();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  Struct readEvent() throws IOException {
+    Struct struct = new Struct(EventConverter.VALUE_SCHEMA);
+    while (JsonToken.FIELD_NAME == this.jsonParser.nextToken()) {
+      final String fieldName = this.jsonParser.getCurrentName();
+      final JsonToken token = this.jsonParser.nextToken();
+      switch (fieldName) {
+        case "time":
+          struct.put(fieldName, readTime(token));
+          break;
+        case "host":
+        case "source":
+        case "sourcetype":
+        case "index":
+        case "event":
+          struct.put(fieldName, readString(token));
+          break;
+        default:
+          this.jsonParser.skipChildren();
+          break;
+      }
+    }
+    return struct;
+  }
+
+  /**
+   * Method is used to read the time of an event. Matches {@link ObjectMapperFactory.DateDeserializer}, the time is
+   * in seconds with up to 3 decimal places and anything that is not a number is ignored.
+   */
+  Date readTime(JsonToken token) throws IOException {
+    final BigDecimal decimal;
+    switch (token) {
+      case VALUE_NUMBER_INT:
+        decimal = this.jsonParser.getDecimalValue();
+        break;
+      case VALUE_NUMBER_FLOAT:
+        decimal = BigDecimal.valueOf(this.jsonParser.getDoubleValue());
+        break;
+      default:
+        this.jsonParser.skipChildren();
+        return null;
+    }
+    return new Date(decimal.setScale(3).unscaledValue().longValue());
+  }
+
+  /**
+   * Method is used to read a string field. Objects are copied to their serialized json form and other scalars are
+   * converted to text.
+   */
+  String readString(JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return this.jsonParser.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return this.jsonParser.getNumberValue().toString();
+      case VALUE_EMBEDDED_OBJECT:
+        Object value = this.jsonParser.getEmbeddedObject();
+        return null == value ? null : value.toString();
+      case START_OBJECT:
+        return copyObject();
+      default:
+        throw new IllegalArgumentException(
+            String.format("Field '%s' cannot be converted to a string from %s.", this.jsonParser.getCurrentName(), token)
+        );
+    }
+  }
+
+  String copyObject() throws IOException {
+    if (null == this.objectGenerator) {
+      this.objectGenerator = ObjectMapperFactory.INSTANCE.getFactory().createGenerator(this.objectWriter);
+      this.objectGenerator.setRootValueSeparator(null);
+    }
+    this.objectWriter.getBuffer().setLength(0);
+    this.objectGenerator.copyCurrentStructure(this.jsonParser);
+    this.objectGenerator.flush();
+    return this.objectWriter.toString();
   }
 
   @Override
@@ -67,6 +185,9 @@ class EventIterator implements Iterator<JsonNode>, AutoCloseable {
 
   @Override
   public void close() throws Exception {
+    if (null != this.objectGenerator) {
+      this.objectGenerator.close();
+    }
     this.jsonParser.close();
   }
 }
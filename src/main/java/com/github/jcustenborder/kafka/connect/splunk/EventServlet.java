@@ -16,38 +16,57 @@
 package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.github.jcustenborder.kafka.connect.utils.data.SourceRecordConcurrentLinkedDeque;
 import com.google.api.client.json.Json;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class EventServlet extends HttpServlet {
   private static final Logger log = LoggerFactory.getLogger(EventServlet.class);
+  static final String SERVER_BUSY = "{\"text\":\"Server is busy\",\"code\":9}";
+  static final String TOO_MANY_EVENTS = "{\"text\":\"Request has more events than the server can queue\"}";
+  static final String BODY_TOO_LARGE = "{\"text\":\"Request body is larger than the server accepts\"}";
+  /**
+   * Size of the read buffer and the most that is allocated for a body before any of it has arrived.
+   */
+  static final int READ_BUFFER_SIZE = 8192;
   ServletConfig servletConfig;
   JsonFactory jsonFactory;
   EventConverter converter;
-  SourceRecordConcurrentLinkedDeque recordQueue;
+  SourceRecordQueue recordQueue;
+  SplunkSourceMetrics metrics;
 
   SplunkHttpSourceConnectorConfig config;
   Set<String> allowedIndexes;
 
 
-  public void configure(SplunkHttpSourceConnectorConfig config, JsonFactory jsonFactory, SourceRecordConcurrentLinkedDeque recordQueue) {
+  public void configure(SplunkHttpSourceConnectorConfig config, JsonFactory jsonFactory, SourceRecordQueue recordQueue, SplunkSourceMetrics metrics) {
     this.config = config;
     this.jsonFactory = jsonFactory;
     this.converter = new EventConverter(this.config);
     this.recordQueue = recordQueue;
+    this.metrics = metrics;
     this.allowedIndexes = this.config.allowedIndexes;
   }
 
@@ -76,46 +95,305 @@ public class EventServlet extends HttpServlet {
 
   @Override
   protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+    headers(response);
+
+    if (this.recordQueue.isFull()) {
+      busy(response);
+      return;
+    }
+
+    final long contentLength = request.getContentLengthLong();
+    if (contentLength > this.config.maxBodyBytes) {
+      tooLarge(response, contentLength);
+      return;
+    }
+
+    if (this.config.asyncEnabled && request.isAsyncSupported()) {
+      log.trace("Reading message body asynchronously.");
+      final AsyncContext asyncContext = request.startAsync();
+      asyncContext.setTimeout(this.config.asyncTimeoutMs);
+      final ServletInputStream inputStream = request.getInputStream();
+      final BodyReadListener listener = new BodyReadListener(asyncContext, inputStream, host(request));
+      asyncContext.addListener(listener);
+      inputStream.setReadListener(listener);
+      return;
+    }
+
     log.trace("Reading message body.");
 
+    String remoteHost = host(request);
+
+    try {
+
+      try (LimitedInputStream inputStream = new LimitedInputStream(request.getInputStream(), this.config.maxBodyBytes)) {
+        try (EventIterator iterator = EventIterator.create(this.jsonFactory, inputStream)) {
+          respond(response, process(iterator, remoteHost));
+        } catch (Exception ex) {
+          if (!inputStream.exceeded()) {
+            throw ex;
+          }
+          tooLarge(response, inputStream.received);
+        }
+      }
+
+    } catch (Exception ex) {
+      log.error("Exception thrown", ex);
+      response.setStatus(500);
+    }
+  }
+
+  void headers(HttpServletResponse response) {
     response.setHeader("X-Content-Type-Options", "nosniff");
     response.setHeader("X-Frame-Options", "SAMEORIGIN");
     response.setCharacterEncoding("UTF-8");
     response.setContentType(Json.MEDIA_TYPE);
+  }
 
-    String remoteHost = host(request);
+  /**
+   * Method is used to respond the way the Http Event Collector does when it cannot keep up so that clients back off
+   * and retry the request.
+   */
+  void busy(HttpServletResponse response) throws IOException {
+    log.debug("Rejecting request because the queue is full. size = {} bytes = {}", this.recordQueue.size(), this.recordQueue.bytes());
+    if (null != this.metrics) {
+      this.metrics.recordRejected();
+    }
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader("Retry-After", Integer.toString(this.config.queueRetryAfter));
+    response.getWriter().write(SERVER_BUSY);
+  }
 
-    try {
+  void tooLarge(HttpServletResponse response, long length) throws IOException {
+    log.warn("Rejecting request with a body of at least {} bytes. The maximum is {} bytes.", length, this.config.maxBodyBytes);
+    response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    response.getWriter().write(BODY_TOO_LARGE);
+  }
 
-      try (BufferedReader bodyReader = request.getReader()) {
-        try (EventIterator iterator = EventIterator.create(this.jsonFactory, bodyReader)) {
+  void respond(HttpServletResponse response, int status) throws IOException {
+    switch (status) {
+      case HttpServletResponse.SC_SERVICE_UNAVAILABLE:
+        busy(response);
+        break;
+      case HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE:
+        log.warn("Rejecting request with more than {} events.", this.recordQueue.maxRecords);
+        response.setStatus(status);
+        response.getWriter().write(TOO_MANY_EVENTS);
+        break;
+      default:
+        response.setStatus(status);
+        break;
+    }
+  }
 
-          while (iterator.hasNext()) {
-            JsonNode jsonNode = iterator.next();
+  /**
+   * Method is used to convert the events of a request and add them to the queue. Events are no longer converted once
+   * the request has more of them than the queue can hold.
+   *
+   * @return the status to respond with.
+   */
+  int process(EventIterator iterator, String remoteHost) {
+    List<SourceRecord> records = new ArrayList<>();
+    while (iterator.hasNext()) {
+      if (records.size() >= this.recordQueue.maxRecords) {
+        return HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+      }
+      Struct event = iterator.next();
 
-            if (log.isDebugEnabled()) {
-              log.debug("Message received {}", jsonNode);
-            }
+      if (log.isDebugEnabled()) {
+        log.debug("Message received {}", event);
+      }
 
-            if (!this.allowedIndexes.isEmpty() && jsonNode.has("index")) {
-              JsonNode indexNode = jsonNode.get("index");
-              String index = indexNode.asText();
+      if (!this.allowedIndexes.isEmpty() && null != event.get("index")) {
+        String index = event.getString("index");
 
-              if (!allowedIndexes.contains(index)) {
+        if (!allowedIndexes.contains(index)) {
 
-              }
-            }
+        }
+      }
 
-            SourceRecord sourceRecord = this.converter.convert(jsonNode, remoteHost);
-            this.recordQueue.push(sourceRecord);
+      SourceRecord sourceRecord = this.converter.convert(event, remoteHost);
+      records.add(sourceRecord);
+    }
+    if (records.isEmpty()) {
+      return HttpServletResponse.SC_OK;
+    } else if (this.recordQueue.offer(records)) {
+      return HttpServletResponse.SC_OK;
+    } else {
+      return HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+    }
+  }
+
+  /**
+   * Counts the bytes of a blocking request and fails the read once more than
+   * {@link SplunkHttpSourceConnectorConfig#maxBodyBytes} have been received. A chunked request does not send a
+   * Content-Length so this is the only limit on it.
+   */
+  static class LimitedInputStream extends FilterInputStream {
+    final long maxBytes;
+    long received;
+
+    LimitedInputStream(InputStream inputStream, long maxBytes) {
+      super(inputStream);
+      this.maxBytes = maxBytes;
+    }
+
+    boolean exceeded() {
+      return this.received > this.maxBytes;
+    }
+
+    private void received(long count) throws IOException {
+      this.received += count;
+      if (exceeded()) {
+        throw new IOException(
+            String.format("Request body is larger than %s bytes.", this.maxBytes)
+        );
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int result = super.read();
+      if (-1 != result) {
+        received(1);
+      }
+      return result;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      final int result = super.read(buffer, offset, length);
+      if (result > 0) {
+        received(result);
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+      final long result = super.skip(count);
+      received(result);
+      return result;
+    }
+  }
+
+  /**
+   * Body of an asynchronous request. The bytes are read into the array as they arrive.
+   */
+  static class Body extends ByteArrayOutputStream {
+    Body(int size) {
+      super(size);
+    }
+
+    InputStream inputStream() {
+      return new ByteArrayInputStream(this.buf, 0, this.count);
+    }
+  }
+
+  /**
+   * Reads the body of an asynchronous request whenever the container has data for it. No thread is held while the
+   * client is sending. Once all of the data has arrived the events are parsed and the request is completed. A body
+   * that grows past {@link SplunkHttpSourceConnectorConfig#maxBodyBytes} is rejected with a 413 and a request that
+   * times out is failed with a 408. Only the first of these outcomes responds and completes the request.
+   */
+  class BodyReadListener implements ReadListener, AsyncListener {
+    final AsyncContext asyncContext;
+    final ServletInputStream inputStream;
+    final String remoteHost;
+    final Body body;
+    final byte[] buffer = new byte[READ_BUFFER_SIZE];
+    final AtomicBoolean finished = new AtomicBoolean();
+
+    BodyReadListener(AsyncContext asyncContext, ServletInputStream inputStream, String remoteHost) {
+      this.asyncContext = asyncContext;
+      this.inputStream = inputStream;
+      this.remoteHost = remoteHost;
+      final long contentLength = asyncContext.getRequest().getContentLengthLong();
+      this.body = new Body(contentLength > 0 ? (int) Math.min(contentLength, READ_BUFFER_SIZE) : READ_BUFFER_SIZE);
+    }
+
+    /**
+     * @return true if the caller is the one that responds and completes the request.
+     */
+    boolean finish() {
+      return this.finished.compareAndSet(false, true);
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+      int read;
+      while (!this.finished.get() && this.inputStream.isReady() && (read = this.inputStream.read(this.buffer)) != -1) {
+        final long received = (long) this.body.size() + read;
+        if (received > config.maxBodyBytes) {
+          if (finish()) {
+            try {
+              tooLarge((HttpServletResponse) this.asyncContext.getResponse(), received);
+            } finally {
+              this.asyncContext.complete();
+            }
           }
+          return;
         }
+        this.body.write(this.buffer, 0, read);
       }
-      response.setStatus(200);
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+      if (!finish()) {
+        return;
+      }
+      final HttpServletResponse response = (HttpServletResponse) this.asyncContext.getResponse();
+      try {
+        try (EventIterator iterator = EventIterator.create(jsonFactory, this.body.inputStream())) {
+          respond(response, process(iterator, this.remoteHost));
+        }
+      } catch (Exception ex) {
+        log.error("Exception thrown", ex);
+        response.setStatus(500);
+      } finally {
+        this.asyncContext.complete();
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      if (!finish()) {
+        return;
+      }
+      log.error("Exception thrown while reading request body from {}", this.remoteHost, throwable);
+      final HttpServletResponse response = (HttpServletResponse) this.asyncContext.getResponse();
+      if (!response.isCommitted()) {
+        response.setStatus(500);
+      }
+      this.asyncContext.complete();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      if (!finish()) {
+        return;
+      }
+      log.warn("Request from {} did not send its body within {} ms.", this.remoteHost, config.asyncTimeoutMs);
+      final HttpServletResponse response = (HttpServletResponse) this.asyncContext.getResponse();
+      if (!response.isCommitted()) {
+        response.setStatus(HttpServletResponse.SC_REQUEST_TIMEOUT);
+      }
+      this.asyncContext.complete();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      onError(event.getThrowable());
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
 
-    } catch (Exception ex) {
-      log.error("Exception thrown", ex);
-      response.setStatus(500);
     }
   }
 
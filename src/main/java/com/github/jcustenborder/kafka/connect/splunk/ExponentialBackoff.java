@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Calculates how long to wait before the next attempt. The wait doubles with each attempt up to a maximum and a random
+ * part of it is taken off so tasks that failed at the same time do not all come back at the same time.
+ */
+class ExponentialBackoff {
+  final long initialMs;
+  final long maxMs;
+  final double jitter;
+
+  ExponentialBackoff(long initialMs, long maxMs, double jitter) {
+    this.initialMs = initialMs;
+    this.maxMs = Math.max(initialMs, maxMs);
+    this.jitter = jitter;
+  }
+
+  ExponentialBackoff(SplunkHttpSinkConnectorConfig config) {
+    this(config.retryBackoff, config.retryBackoffMax, config.retryBackoffJitter);
+  }
+
+  /**
+   * Method returns the time to wait before an attempt.
+   *
+   * @param attempt number of attempts that have failed. Starts at 1.
+   * @return time to wait in milliseconds.
+   */
+  long backoffMs(int attempt) {
+    if (attempt <= 0 || this.initialMs <= 0) {
+      return 0L;
+    }
+    final int exponent = Math.min(attempt - 1, 30);
+    final long delay = Math.min(this.maxMs, this.initialMs << exponent);
+    if (this.jitter <= 0D) {
+      return delay;
+    }
+    return delay - (long) (delay * this.jitter * ThreadLocalRandom.current().nextDouble());
+  }
+}
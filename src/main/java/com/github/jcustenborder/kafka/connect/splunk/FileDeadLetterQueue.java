@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rejected records to local files with one json document per line. A new file is started once the current
+ * file reaches {@link SplunkHttpSinkConnectorConfig#deadLetterFileMaxBytes} and the oldest file written by the task
+ * is deleted once there are more than {@link SplunkHttpSinkConnectorConfig#deadLetterMaxFiles}. Each task writes to
+ * its own files, named after the connector and the task id, so a restarted task continues the files of the task it
+ * replaces and the limit covers them as well.
+ */
+class FileDeadLetterQueue implements DeadLetterQueue {
+  private static final Logger log = LoggerFactory.getLogger(FileDeadLetterQueue.class);
+  static final byte[] NEWLINE = new byte[]{'\n'};
+
+  final File directory;
+  final String prefix;
+  final long maxBytes;
+  final int maxFiles;
+  FileOutputStream fileOutputStream;
+  BufferedOutputStream outputStream;
+  long bytesWritten;
+  int sequence;
+
+  FileDeadLetterQueue(SplunkHttpSinkConnectorConfig config) {
+    this(
+        new File(config.deadLetterPath),
+        prefix(config.connectorName, config.taskId),
+        config.deadLetterFileMaxBytes,
+        config.deadLetterMaxFiles
+    );
+  }
+
+  FileDeadLetterQueue(File directory, String prefix, long maxBytes, int maxFiles) {
+    this.directory = directory;
+    this.prefix = prefix;
+    this.maxBytes = maxBytes;
+    this.maxFiles = maxFiles;
+    if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+      throw new ConnectException(
+          String.format("Could not create dead letter directory %s.", this.directory.getAbsolutePath())
+      );
+    }
+    final List<Integer> sequences = sequences();
+    this.sequence = sequences.isEmpty() ? 0 : sequences.get(sequences.size() - 1) + 1;
+  }
+
+  static String prefix(String connectorName, String taskId) {
+    final String name = connectorName.replaceAll("[^A-Za-z0-9._-]", "_");
+    return name.isEmpty() ?
+        String.format("splunk-dead-letter-%s", taskId) :
+        String.format("splunk-dead-letter-%s-%s", name, taskId);
+  }
+
+  File file(int sequence) {
+    return new File(this.directory, String.format("%s.%d.json", this.prefix, sequence));
+  }
+
+  /**
+   * @return sequence numbers of the files in the directory written with this prefix, oldest first.
+   */
+  List<Integer> sequences() {
+    final List<Integer> result = new ArrayList<>();
+    final String[] names = this.directory.list();
+    if (null == names) {
+      return result;
+    }
+    final String start = this.prefix + ".";
+    final String end = ".json";
+    for (String name : names) {
+      if (!name.startsWith(start) || !name.endsWith(end) || name.length() <= start.length() + end.length()) {
+        continue;
+      }
+      try {
+        result.add(Integer.parseInt(name.substring(start.length(), name.length() - end.length())));
+      } catch (NumberFormatException e) {
+        log.trace("Ignoring {}.", name);
+      }
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  @Override
+  public synchronized void write(SinkRecord record, String error) {
+    Map<String, Object> document = new LinkedHashMap<>();
+    document.put("topic", record.topic());
+    document.put("partition", record.kafkaPartition());
+    document.put("offset", record.kafkaOffset());
+    document.put("timestamp", record.timestamp());
+    document.put("error", error);
+    document.put("key", record.key());
+    document.put("value", record.value());
+
+    try {
+      final byte[] buffer = ObjectMapperFactory.INSTANCE.writeValueAsBytes(document);
+      if (null == this.outputStream || this.bytesWritten >= this.maxBytes) {
+        roll();
+      }
+      this.outputStream.write(buffer);
+      this.outputStream.write(NEWLINE);
+      this.bytesWritten += buffer.length + NEWLINE.length;
+    } catch (IOException e) {
+      throw new ConnectException(
+          String.format("Exception thrown while writing %s-%s:%s to the dead letter file.",
+              record.topic(), record.kafkaPartition(), record.kafkaOffset()),
+          e
+      );
+    }
+  }
+
+  private void roll() throws IOException {
+    closeFile();
+    final File file = file(this.sequence++);
+    log.info("Writing rejected records to {}.", file.getAbsolutePath());
+    this.fileOutputStream = new FileOutputStream(file);
+    this.outputStream = new BufferedOutputStream(this.fileOutputStream);
+    this.bytesWritten = 0;
+
+    final List<Integer> sequences = sequences();
+    for (int i = 0; i < sequences.size() - this.maxFiles; i++) {
+      final File oldest = file(sequences.get(i));
+      log.info("Deleting {}.", oldest.getAbsolutePath());
+      if (!oldest.delete()) {
+        log.warn("Could not delete {}.", oldest.getAbsolutePath());
+      }
+    }
+  }
+
+  private void closeFile() throws IOException {
+    if (null != this.outputStream) {
+      this.outputStream.flush();
+      this.fileOutputStream.getFD().sync();
+      this.outputStream.close();
+      this.outputStream = null;
+      this.fileOutputStream = null;
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    if (null == this.outputStream) {
+      return;
+    }
+    try {
+      this.outputStream.flush();
+      this.fileOutputStream.getFD().sync();
+    } catch (IOException e) {
+      throw new ConnectException("Exception thrown while flushing the dead letter file.", e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      closeFile();
+    } catch (IOException e) {
+      log.warn("Exception thrown while closing the dead letter file.", e);
+    }
+  }
+}
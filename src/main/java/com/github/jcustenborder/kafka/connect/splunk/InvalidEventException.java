@@ -0,0 +1,31 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.errors.ConnectException;
+
+/**
+ * Thrown when Splunk rejects a batch because of the data in it. Splunk indexes the events before the invalid one so
+ * only the invalid event and the events after it need to be sent again.
+ */
+class InvalidEventException extends ConnectException {
+  final Integer invalidEventNumber;
+
+  InvalidEventException(String message, Integer invalidEventNumber) {
+    super(message);
+    this.invalidEventNumber = invalidEventNumber;
+  }
+}
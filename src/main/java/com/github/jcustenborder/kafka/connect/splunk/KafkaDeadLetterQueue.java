@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.base.Charsets;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes rejected records to a Kafka topic. The key and value are serialized with
+ * {@link DeadLetterQueue#serialize(Object)} and the error along with where the record came from are added as headers.
+ */
+class KafkaDeadLetterQueue implements DeadLetterQueue {
+  private static final Logger log = LoggerFactory.getLogger(KafkaDeadLetterQueue.class);
+  static final String ERROR_HEADER = "splunk.error";
+  static final String TOPIC_HEADER = "splunk.topic";
+  static final String PARTITION_HEADER = "splunk.partition";
+  static final String OFFSET_HEADER = "splunk.offset";
+
+  final String topic;
+  final Producer<byte[], byte[]> producer;
+  volatile Exception error;
+
+  KafkaDeadLetterQueue(SplunkHttpSinkConnectorConfig config) {
+    this(
+        config.deadLetterTopic,
+        new KafkaProducer<>(config.deadLetterProducerSettings(), new ByteArraySerializer(), new ByteArraySerializer())
+    );
+  }
+
+  KafkaDeadLetterQueue(String topic, Producer<byte[], byte[]> producer) {
+    this.topic = topic;
+    this.producer = producer;
+  }
+
+  @Override
+  public void write(SinkRecord record, String error) {
+    checkError();
+    ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(
+        this.topic,
+        null,
+        DeadLetterQueue.serialize(record.key()),
+        DeadLetterQueue.serialize(record.value())
+    );
+    producerRecord.headers()
+        .add(ERROR_HEADER, null == error ? null : error.getBytes(Charsets.UTF_8))
+        .add(TOPIC_HEADER, record.topic().getBytes(Charsets.UTF_8))
+        .add(PARTITION_HEADER, String.valueOf(record.kafkaPartition()).getBytes(Charsets.UTF_8))
+        .add(OFFSET_HEADER, Long.toString(record.kafkaOffset()).getBytes(Charsets.UTF_8));
+    this.producer.send(producerRecord, (metadata, exception) -> {
+      if (null != exception) {
+        log.error("Exception thrown while writing {}-{}:{} to {}.",
+            record.topic(), record.kafkaPartition(), record.kafkaOffset(), this.topic, exception);
+        this.error = exception;
+      }
+    });
+  }
+
+  @Override
+  public void flush() {
+    this.producer.flush();
+    checkError();
+  }
+
+  void checkError() {
+    Exception exception = this.error;
+    if (null != exception) {
+      throw new ConnectException(
+          String.format("Exception thrown while writing rejected records to %s.", this.topic),
+          exception
+      );
+    }
+  }
+
+  @Override
+  public void close() {
+    this.producer.close(30, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+/**
+ * Builds a transport on {@link java.net.HttpURLConnection}. Connections are kept alive by the JVM wide cache which is
+ * controlled by the `http.keepAlive` and `http.maxConnections` system properties.
+ */
+public class NetHttpTransportFactory implements SplunkHttpTransportFactory {
+  private static final Logger log = LoggerFactory.getLogger(NetHttpTransportFactory.class);
+
+  @Override
+  public HttpTransport create(SplunkHttpSinkConnectorConfig config) {
+    NetHttpTransport.Builder transportBuilder = new NetHttpTransport.Builder();
+
+    if (!config.validateCertificates) {
+      log.warn("Disabling ssl certificate verification.");
+      try {
+        transportBuilder.doNotValidateCertificate();
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Exception thrown calling transportBuilder.doNotValidateCertificate()", e);
+      }
+    }
+
+    if (config.hasTrustStorePath) {
+      log.info("Loading trust store from {}.", config.trustStorePath);
+      try (FileInputStream inputStream = new FileInputStream(config.trustStorePath)) {
+        transportBuilder.trustCertificatesFromJavaKeyStore(inputStream, config.trustStorePassword);
+      } catch (GeneralSecurityException | IOException ex) {
+        throw new IllegalStateException("Exception thrown while setting up trust certificates.", ex);
+      }
+    }
+
+    return transportBuilder.build();
+  }
+
+  @Override
+  public void close() {
+
+  }
+}
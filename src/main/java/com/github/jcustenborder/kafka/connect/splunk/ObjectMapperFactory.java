@@ -28,14 +28,13 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.google.common.collect.ImmutableSet;
-import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.sink.SinkRecord;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -50,13 +49,15 @@ class ObjectMapperFactory {
       "sourcetype",
       "index"
   );
+  static final StructSerializer STRUCT_SERIALIZER = new StructSerializer();
+  private static final ThreadLocal<char[]> TIME_BUFFER = ThreadLocal.withInitial(() -> new char[24]);
 
   static {
     ObjectMapper mapper = new ObjectMapper();
     SimpleModule module = new SimpleModule();
     module.addSerializer(Date.class, new DateSerializer());
     module.addDeserializer(Date.class, new DateDeserializer());
-    module.addSerializer(Struct.class, new StructSerializer());
+    module.addSerializer(Struct.class, STRUCT_SERIALIZER);
     module.addSerializer(SinkRecord.class, new SinkRecordSerializer());
     mapper.registerModule(module);
     mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
@@ -86,9 +87,7 @@ class ObjectMapperFactory {
   static class DateSerializer extends JsonSerializer<Date> {
     @Override
     public void serialize(Date date, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-      long time = date.getTime();
-      BigDecimal value = BigDecimal.valueOf(time, 3);
-      jsonGenerator.writeNumber(value);
+      writeTime(jsonGenerator, date.getTime());
     }
   }
 
@@ -96,111 +95,206 @@ class ObjectMapperFactory {
 
     @Override
     public void serialize(Struct struct, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-      List<Field> fields = struct.schema().fields();
-      Map<String, Object> values = new LinkedHashMap<>(fields.size());
-
-      for (Field field : fields) {
-        if (!RESERVED_METADATA.contains(field.name()))
-          values.put(field.name(), struct.get(field));
-      }
-
-      jsonGenerator.writeObject(values);
+      StructSerializationPlan.of(struct.schema()).writeEvent(struct, jsonGenerator, serializerProvider);
     }
   }
 
-  public static class Event {
-    public String host;
-    public Date time;
-    public String sourcetype;
-    public String index;
-    public String source;
-    public Object event;
-
-    boolean setValue(Object key, Object value) {
-      if (null == value) {
-        return false;
-      }
+  /**
+   * Writes epoch milliseconds as seconds with three decimal places. The output matches
+   * {@code BigDecimal.valueOf(time, 3)} written as a plain number without creating the decimal.
+   */
+  static void writeTime(JsonGenerator jsonGenerator, long time) throws IOException {
+    if (Long.MIN_VALUE == time) {
+      jsonGenerator.writeNumber(BigDecimal.valueOf(time, 3));
+      return;
+    }
+    final char[] buffer = TIME_BUFFER.get();
+    long remaining = Math.abs(time);
+    int millis = (int) (remaining % 1000L);
+    long seconds = remaining / 1000L;
+    int position = buffer.length;
+    buffer[--position] = (char) ('0' + millis % 10);
+    buffer[--position] = (char) ('0' + millis / 10 % 10);
+    buffer[--position] = (char) ('0' + millis / 100);
+    buffer[--position] = '.';
+    do {
+      buffer[--position] = (char) ('0' + seconds % 10L);
+      seconds /= 10L;
+    } while (seconds > 0L);
+    if (time < 0L) {
+      buffer[--position] = '-';
+    }
+    jsonGenerator.writeRawValue(buffer, position, buffer.length - position);
+  }
 
-      if ("time".equals(key)) {
-        if (value instanceof BigDecimal) {
-          BigDecimal decimal = (BigDecimal) value;
-          this.time = new Date(decimal.unscaledValue().longValue());
-        } else if (value instanceof Date) {
-          this.time = (Date) value;
+  /**
+   * Writes a value found inside of an event. The common types are written straight to the generator, everything
+   * else falls back to the serializer registered with the mapper.
+   */
+  static void writeValue(JsonGenerator jsonGenerator, SerializerProvider serializerProvider, Object value) throws IOException {
+    if (null == value) {
+      jsonGenerator.writeNull();
+    } else if (value instanceof String) {
+      jsonGenerator.writeString((String) value);
+    } else if (value instanceof Integer || value instanceof Byte) {
+      jsonGenerator.writeNumber(((Number) value).intValue());
+    } else if (value instanceof Long) {
+      jsonGenerator.writeNumber((Long) value);
+    } else if (value instanceof Short) {
+      jsonGenerator.writeNumber((Short) value);
+    } else if (value instanceof Double) {
+      jsonGenerator.writeNumber((Double) value);
+    } else if (value instanceof Float) {
+      jsonGenerator.writeNumber((Float) value);
+    } else if (value instanceof Boolean) {
+      jsonGenerator.writeBoolean((Boolean) value);
+    } else if (value instanceof BigDecimal) {
+      jsonGenerator.writeNumber((BigDecimal) value);
+    } else if (value instanceof Date) {
+      writeTime(jsonGenerator, ((Date) value).getTime());
+    } else if (value instanceof Struct) {
+      STRUCT_SERIALIZER.serialize((Struct) value, jsonGenerator, serializerProvider);
+    } else if (value instanceof Map) {
+      jsonGenerator.writeStartObject();
+      for (Object o : ((Map) value).entrySet()) {
+        Map.Entry entry = (Map.Entry) o;
+        if (null == entry.getValue()) {
+          continue;
         }
+        writeFieldName(jsonGenerator, serializerProvider, entry.getKey());
+        writeValue(jsonGenerator, serializerProvider, entry.getValue());
       }
-
-      if ("host".equals(key)) {
-        this.host = value.toString();
-      }
-      if ("source".equals(key)) {
-        this.source = value.toString();
+      jsonGenerator.writeEndObject();
+    } else if (value instanceof List) {
+      final List list = (List) value;
+      jsonGenerator.writeStartArray();
+      for (int i = 0; i < list.size(); i++) {
+        writeValue(jsonGenerator, serializerProvider, list.get(i));
       }
-      if ("sourcetype".equals(key)) {
-        this.sourcetype = value.toString();
+      jsonGenerator.writeEndArray();
+    } else if (value instanceof Collection) {
+      jsonGenerator.writeStartArray();
+      for (Object item : (Collection) value) {
+        writeValue(jsonGenerator, serializerProvider, item);
       }
-      if ("index".equals(key)) {
-        this.index = value.toString();
-      }
-
-      return RESERVED_METADATA.contains(key);
+      jsonGenerator.writeEndArray();
+    } else {
+      serializerProvider.defaultSerializeValue(value, jsonGenerator);
     }
+  }
 
+  static void writeFieldName(JsonGenerator jsonGenerator, SerializerProvider serializerProvider, Object key) throws IOException {
+    if (key instanceof String) {
+      jsonGenerator.writeFieldName((String) key);
+    } else {
+      serializerProvider.findKeySerializer(serializerProvider.constructType(Object.class), null)
+          .serialize(key, jsonGenerator, serializerProvider);
+    }
   }
 
+  /**
+   * Writes the Http Event Collector envelope for a record straight to the generator. Reserved metadata is pulled out
+   * of Map and Struct values and written ahead of the event in the order host, time, sourcetype, index, source. The
+   * remaining entries are written as the event. Null values are omitted and the event is left out when nothing remains.
+   */
   static class SinkRecordSerializer extends JsonSerializer<SinkRecord> {
 
-    void handleMap(Event event) {
-      final Map input = (Map) event.event;
-      final Map result = new LinkedHashMap(input.size());
-
-      for (Object key : input.keySet()) {
-        Object value = input.get(key);
+    static void writeMetadata(JsonGenerator jsonGenerator, Object host, Object time, Object sourcetype, Object index, Object source) throws IOException {
+      if (null != host) {
+        jsonGenerator.writeStringField("host", host.toString());
+      }
+      if (time instanceof Date) {
+        jsonGenerator.writeFieldName("time");
+        writeTime(jsonGenerator, ((Date) time).getTime());
+      } else if (time instanceof BigDecimal) {
+        jsonGenerator.writeFieldName("time");
+        writeTime(jsonGenerator, ((BigDecimal) time).unscaledValue().longValue());
+      }
+      if (null != sourcetype) {
+        jsonGenerator.writeStringField("sourcetype", sourcetype.toString());
+      }
+      if (null != index) {
+        jsonGenerator.writeStringField("index", index.toString());
+      }
+      if (null != source) {
+        jsonGenerator.writeStringField("source", source.toString());
+      }
+    }
 
-        if (!event.setValue(key, value)) {
-          result.put(key, value);
+    void serializeMap(Map<?, ?> input, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+      Object host = null, time = null, sourcetype = null, index = null, source = null;
+      boolean event = false;
+
+      for (Map.Entry<?, ?> entry : input.entrySet()) {
+        final Object key = entry.getKey();
+        final Object value = entry.getValue();
+        if (null == value || !RESERVED_METADATA.contains(key)) {
+          event = true;
+        } else if ("host".equals(key)) {
+          host = value;
+        } else if ("time".equals(key)) {
+          time = value;
+        } else if ("sourcetype".equals(key)) {
+          sourcetype = value;
+        } else if ("index".equals(key)) {
+          index = value;
+        } else {
+          source = value;
         }
       }
 
-      event.event = result.isEmpty() ? null : result;
-    }
-
-    void handleStruct(Event event) {
-      final Struct input = (Struct) event.event;
-      List<Field> fields = input.schema().fields();
-      final Map result = new LinkedHashMap(fields.size());
+      writeMetadata(jsonGenerator, host, time, sourcetype, index, source);
 
-      for (Field field : fields) {
-        Object key = field.name();
-        Object value = input.get(field);
+      if (!event) {
+        return;
+      }
 
-        if (null == value) {
+      jsonGenerator.writeFieldName("event");
+      jsonGenerator.writeStartObject();
+      for (Map.Entry<?, ?> entry : input.entrySet()) {
+        if (null == entry.getValue() || RESERVED_METADATA.contains(entry.getKey())) {
           continue;
         }
-
-        if (!event.setValue(key, value)) {
-          result.put(key, value);
-        }
+        writeFieldName(jsonGenerator, serializerProvider, entry.getKey());
+        writeValue(jsonGenerator, serializerProvider, entry.getValue());
       }
-
-      event.event = result.isEmpty() ? null : result;
+      jsonGenerator.writeEndObject();
     }
 
+    void serializeStruct(Struct input, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+      final StructSerializationPlan plan = StructSerializationPlan.of(input.schema());
+
+      writeMetadata(
+          jsonGenerator,
+          StructSerializationPlan.get(input, plan.host),
+          StructSerializationPlan.get(input, plan.time),
+          StructSerializationPlan.get(input, plan.sourcetype),
+          StructSerializationPlan.get(input, plan.index),
+          StructSerializationPlan.get(input, plan.source)
+      );
+
+      if (plan.hasEvent(input)) {
+        jsonGenerator.writeFieldName("event");
+        plan.writeEvent(input, jsonGenerator, serializerProvider);
+      }
+    }
 
     @Override
     public void serialize(SinkRecord sinkRecord, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException, JsonProcessingException {
-      Event event = new Event();
-      event.event = sinkRecord.value();
-
-      if (event.event instanceof Map) {
-        handleMap(event);
-      } else if (event.event instanceof Struct) {
-        handleStruct(event);
-      }
+      final Object value = sinkRecord.value();
 
       //TODO: When we go to the next Kafka version. Check for null date and use the timestamp of the SinkRecord.
 
-      jsonGenerator.writeObject(event);
+      jsonGenerator.writeStartObject();
+      if (value instanceof Map) {
+        serializeMap((Map<?, ?>) value, jsonGenerator, serializerProvider);
+      } else if (value instanceof Struct) {
+        serializeStruct((Struct) value, jsonGenerator, serializerProvider);
+      } else if (null != value) {
+        jsonGenerator.writeFieldName("event");
+        writeValue(jsonGenerator, serializerProvider, value);
+      }
+      jsonGenerator.writeEndObject();
     }
   }
 
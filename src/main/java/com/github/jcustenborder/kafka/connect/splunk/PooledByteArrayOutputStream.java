@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.io.OutputStream;
+
+/**
+ * {@link java.io.ByteArrayOutputStream} that takes its arrays from a {@link BufferPool} and hands the array it wrote
+ * to over to the caller instead of copying it.
+ */
+class PooledByteArrayOutputStream extends OutputStream {
+  final BufferPool pool;
+  final int initialSize;
+  byte[] buffer;
+  int count;
+
+  PooledByteArrayOutputStream(BufferPool pool, int initialSize) {
+    this.pool = pool;
+    this.initialSize = initialSize;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (null == this.buffer) {
+      this.buffer = this.pool.acquire(Math.max(this.initialSize, capacity));
+    } else if (capacity > this.buffer.length) {
+      byte[] buffer = this.pool.acquire(Math.max(capacity, this.buffer.length * 2));
+      System.arraycopy(this.buffer, 0, buffer, 0, this.count);
+      this.pool.release(this.buffer);
+      this.buffer = buffer;
+    }
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(this.count + 1);
+    this.buffer[this.count++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    ensureCapacity(this.count + len);
+    System.arraycopy(b, off, this.buffer, this.count, len);
+    this.count += len;
+  }
+
+  int size() {
+    return this.count;
+  }
+
+  void reset() {
+    this.count = 0;
+  }
+
+  /**
+   * Method is used to take the array that was written to. The stream starts over with a new array from the pool.
+   *
+   * @return the array holding the bytes written. Only the first {@link #size()} bytes are valid.
+   */
+  byte[] detach() {
+    byte[] result = null == this.buffer ? new byte[0] : this.buffer;
+    this.buffer = null;
+    this.count = 0;
+    return result;
+  }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a transport on Apache HttpClient with a pool of persistent connections. The size of the pool, how long a
+ * connection is kept alive and how long it may sit idle before it is closed are configurable.
+ */
+public class PooledHttpTransportFactory implements SplunkHttpTransportFactory {
+  private static final Logger log = LoggerFactory.getLogger(PooledHttpTransportFactory.class);
+  ApacheHttpTransport transport;
+  PoolingClientConnectionManager connectionManager;
+  ScheduledExecutorService evictionExecutorService;
+
+  @Override
+  public HttpTransport create(SplunkHttpSinkConnectorConfig config) {
+    ApacheHttpTransport.Builder transportBuilder = new ApacheHttpTransport.Builder();
+
+    if (!config.validateCertificates) {
+      log.warn("Disabling ssl certificate verification.");
+      try {
+        transportBuilder.doNotValidateCertificate();
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException("Exception thrown calling transportBuilder.doNotValidateCertificate()", e);
+      }
+    }
+
+    if (config.hasTrustStorePath) {
+      log.info("Loading trust store from {}.", config.trustStorePath);
+      try (FileInputStream inputStream = new FileInputStream(config.trustStorePath)) {
+        transportBuilder.trustCertificatesFromJavaKeyStore(inputStream, config.trustStorePassword);
+      } catch (GeneralSecurityException | IOException ex) {
+        throw new IllegalStateException("Exception thrown while setting up trust certificates.", ex);
+      }
+    }
+
+    SchemeRegistry schemeRegistry = new SchemeRegistry();
+    schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+    schemeRegistry.register(new Scheme("https", 443, transportBuilder.getSSLSocketFactory()));
+    this.connectionManager = new PoolingClientConnectionManager(schemeRegistry);
+    this.connectionManager.setMaxTotal(config.httpMaxConnections);
+    this.connectionManager.setDefaultMaxPerRoute(config.httpMaxConnectionsPerRoute);
+
+    HttpParams params = transportBuilder.getHttpParams();
+    HttpConnectionParams.setStaleCheckingEnabled(params, true);
+    HttpConnectionParams.setTcpNoDelay(params, true);
+
+    log.info(
+        "Creating pooled transport. maxConnections = {} maxConnectionsPerRoute = {} keepAlive = {} ms idleTimeout = {} ms",
+        config.httpMaxConnections,
+        config.httpMaxConnectionsPerRoute,
+        config.httpKeepAlive,
+        config.httpIdleTimeout
+    );
+
+    final DefaultHttpClient httpClient = new DefaultHttpClient(this.connectionManager, params);
+    httpClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+    httpClient.setRoutePlanner(new ProxySelectorRoutePlanner(schemeRegistry, ProxySelector.getDefault()));
+
+    final long keepAlive = config.httpKeepAlive;
+    httpClient.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+      @Override
+      public long getKeepAliveDuration(org.apache.http.HttpResponse response, org.apache.http.protocol.HttpContext context) {
+        long duration = super.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+      }
+    });
+
+    this.transport = new ApacheHttpTransport(httpClient);
+
+    final PoolingClientConnectionManager connectionManager = this.connectionManager;
+    final long idleTimeout = config.httpIdleTimeout;
+    this.evictionExecutorService = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("splunk-connection-eviction-%d")
+            .setDaemon(true)
+            .build()
+    );
+    final long interval = Math.max(1000L, idleTimeout / 2);
+    this.evictionExecutorService.scheduleWithFixedDelay(() -> {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }, interval, interval, TimeUnit.MILLISECONDS);
+
+    return this.transport;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (null != this.evictionExecutorService) {
+      this.evictionExecutorService.shutdownNow();
+    }
+    if (null != this.transport) {
+      this.transport.shutdown();
+    }
+  }
+}
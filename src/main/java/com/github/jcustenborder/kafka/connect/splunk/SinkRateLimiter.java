@@ -0,0 +1,221 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.SystemTime;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Limits the events and bytes per second a task writes to Splunk, in total and per index. Records that were handed to
+ * put() are always sent. When a limit is exceeded the partitions that went over are paused with
+ * {@link SinkTaskContext#pause(TopicPartition...)} until the bucket is out of debt, so Connect stops fetching for
+ * them instead of put() blocking. Bytes are counted before compression.
+ */
+class SinkRateLimiter {
+  private static final Logger log = LoggerFactory.getLogger(SinkRateLimiter.class);
+
+  final TokenBucket events;
+  final TokenBucket bytes;
+  final Map<String, TokenBucket> indexEvents = new HashMap<>();
+  final Map<String, TokenBucket> indexBytes = new HashMap<>();
+  final Map<TopicPartition, Set<TokenBucket>> paused = new HashMap<>();
+  final Set<String> passthroughTopics;
+
+  SinkRateLimiter(SplunkHttpSinkConnectorConfig config) {
+    this(config, new SystemTime());
+  }
+
+  SinkRateLimiter(SplunkHttpSinkConnectorConfig config, Time time) {
+    this.passthroughTopics = config.passthroughTopics;
+    this.events = config.rateLimitEvents > 0 ? new TokenBucket("events", config.rateLimitEvents, time) : null;
+    this.bytes = config.rateLimitBytes > 0 ? new TokenBucket("bytes", config.rateLimitBytes, time) : null;
+    for (Map.Entry<String, Long> entry : config.indexRateLimitEvents.entrySet()) {
+      this.indexEvents.put(entry.getKey(), new TokenBucket("events for index " + entry.getKey(), entry.getValue(), time));
+    }
+    for (Map.Entry<String, Long> entry : config.indexRateLimitBytes.entrySet()) {
+      this.indexBytes.put(entry.getKey(), new TokenBucket("bytes for index " + entry.getKey(), entry.getValue(), time));
+    }
+  }
+
+  boolean enabled() {
+    return null != this.events || null != this.bytes || !this.indexEvents.isEmpty() || !this.indexBytes.isEmpty();
+  }
+
+  /**
+   * Method is used to resume the partitions whose limits are no longer exceeded.
+   *
+   * @param context context used to resume the partitions.
+   */
+  void resume(SinkTaskContext context) {
+    if (this.paused.isEmpty()) {
+      return;
+    }
+    List<TopicPartition> ready = new ArrayList<>();
+    Iterator<Map.Entry<TopicPartition, Set<TokenBucket>>> iterator = this.paused.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<TopicPartition, Set<TokenBucket>> entry = iterator.next();
+      entry.getValue().removeIf(bucket -> 0 == bucket.delayMs());
+      if (entry.getValue().isEmpty()) {
+        ready.add(entry.getKey());
+        iterator.remove();
+      }
+    }
+    if (!ready.isEmpty()) {
+      log.debug("Resuming {}.", ready);
+      context.resume(ready.toArray(new TopicPartition[ready.size()]));
+    }
+  }
+
+  /**
+   * Method is used to take tokens for the batches of a put call and pause the partitions that went over a limit.
+   *
+   * @param context context used to pause the partitions.
+   * @param batches batches that are being sent.
+   */
+  void take(SinkTaskContext context, List<SinkRecordBatch> batches) {
+    final Map<TokenBucket, Set<TopicPartition>> used = new LinkedHashMap<>();
+    final boolean byIndex = !this.indexEvents.isEmpty() || !this.indexBytes.isEmpty();
+
+    for (SinkRecordBatch batch : batches) {
+      take(used, this.events, batch.records.size(), batch.topicPartition);
+      take(used, this.bytes, batch.length, batch.topicPartition);
+
+      if (byIndex) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (SinkRecord record : batch.records) {
+          String index = index(batch, record);
+          if (null != index) {
+            counts.merge(index, 1, Integer::sum);
+          }
+        }
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+          take(used, this.indexEvents.get(count.getKey()), count.getValue(), batch.topicPartition);
+          take(used, this.indexBytes.get(count.getKey()), (long) batch.length * count.getValue() / batch.records.size(), batch.topicPartition);
+        }
+      }
+    }
+
+    final Set<TopicPartition> pause = new HashSet<>();
+    for (Map.Entry<TokenBucket, Set<TopicPartition>> entry : used.entrySet()) {
+      final TokenBucket bucket = entry.getKey();
+      final long delay = bucket.delayMs();
+      if (0 == delay) {
+        continue;
+      }
+      final Collection<TopicPartition> partitions =
+          (bucket == this.events || bucket == this.bytes) ? context.assignment() : entry.getValue();
+      log.debug("Limit on {} exceeded. Pausing {} for about {} ms.", bucket, partitions, delay);
+      for (TopicPartition partition : partitions) {
+        this.paused.computeIfAbsent(partition, p -> new HashSet<>()).add(bucket);
+        pause.add(partition);
+      }
+    }
+
+    if (!pause.isEmpty()) {
+      context.pause(pause.toArray(new TopicPartition[pause.size()]));
+    }
+  }
+
+  private static void take(Map<TokenBucket, Set<TopicPartition>> used, TokenBucket bucket, long count, TopicPartition topicPartition) {
+    if (null == bucket) {
+      return;
+    }
+    bucket.take(count);
+    used.computeIfAbsent(bucket, b -> new HashSet<>()).add(topicPartition);
+  }
+
+  /**
+   * Method is used to stop tracking partitions that are no longer assigned.
+   *
+   * @param partitions partitions that were revoked.
+   */
+  void forget(Collection<TopicPartition> partitions) {
+    for (TopicPartition partition : partitions) {
+      this.paused.remove(partition);
+    }
+  }
+
+  /**
+   * Finds the index a record is written to the same way {@link ObjectMapperFactory.SinkRecordSerializer} does. Pass
+   * through events are parsed for their index field.
+   */
+  String index(SinkRecordBatch batch, SinkRecord record) {
+    if (batch.raw()) {
+      return batch.rawParameters.get("index");
+    }
+    final Object value = record.value();
+    Object index = null;
+    if (SinkRecordBatcher.isPassthrough(value) && this.passthroughTopics.contains(record.topic())) {
+      index = passthroughIndex(value);
+    } else if (value instanceof Map) {
+      index = ((Map) value).get("index");
+    } else if (value instanceof Struct) {
+      Struct struct = (Struct) value;
+      Field field = struct.schema().field("index");
+      if (null != field) {
+        index = struct.get(field);
+      }
+    }
+    return null == index ? null : index.toString();
+  }
+
+  /**
+   * Reads the top level index field of a pass through event without building a tree. A value that is not a json
+   * object does not count against any index.
+   */
+  static String passthroughIndex(Object value) {
+    final JsonFactory jsonFactory = ObjectMapperFactory.INSTANCE.getFactory();
+    try (JsonParser parser = value instanceof byte[] ?
+        jsonFactory.createParser((byte[]) value) :
+        jsonFactory.createParser((String) value)) {
+      if (JsonToken.START_OBJECT != parser.nextToken()) {
+        return null;
+      }
+      while (JsonToken.FIELD_NAME == parser.nextToken()) {
+        final String name = parser.getCurrentName();
+        final JsonToken token = parser.nextToken();
+        if ("index".equals(name)) {
+          return token.isScalarValue() && JsonToken.VALUE_NULL != token ? parser.getText() : null;
+        }
+        parser.skipChildren();
+      }
+    } catch (IOException e) {
+      log.trace("Could not read the index of a pass through event.", e);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.HttpContent;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of records from a single topic partition that have already been serialized to the newline delimited json
+ * expected by the Http Event Collector. The body is built once, compressed at most once by
+ * {@link SinkRecordBatchCompressor}, and the same bytes are sent on every attempt so the request always has a known
+ * Content-Length. While Splunk is unavailable the body can be moved to a {@link SpillLog} and read back before it is
+ * sent. A spilled batch also drops its records and keeps only the offsets needed to commit it, so spilled batches do
+ * not hold the records on the heap.
+ */
+class SinkRecordBatch implements HttpContent {
+  final TopicPartition topicPartition;
+  final long firstOffset;
+  final long lastOffset;
+  final int size;
+  final BufferPool pool;
+  final Map<String, String> rawParameters;
+  byte[] buffer;
+  int length;
+  /**
+   * Length of the body before it was compressed.
+   */
+  final int uncompressedLength;
+  String contentEncoding;
+  Long ackId;
+  long sentMs;
+  boolean acknowledged;
+  SpillLog spillLog;
+  SpillLog.Entry spilled;
+  /**
+   * True if the records were handled without sending them to Splunk.
+   */
+  boolean skipped;
+  /**
+   * Records in the batch. Null once the batch is spilled.
+   */
+  List<SinkRecord> records;
+
+  SinkRecordBatch(TopicPartition topicPartition, List<SinkRecord> records, byte[] buffer, int length) {
+    this(topicPartition, records, buffer, length, new BufferPool(0), null);
+  }
+
+  SinkRecordBatch(TopicPartition topicPartition, List<SinkRecord> records, byte[] buffer, int length, BufferPool pool, Map<String, String> rawParameters) {
+    this.topicPartition = topicPartition;
+    this.records = records;
+    this.firstOffset = records.get(0).kafkaOffset();
+    this.lastOffset = records.get(records.size() - 1).kafkaOffset();
+    this.size = records.size();
+    this.buffer = buffer;
+    this.length = length;
+    this.uncompressedLength = length;
+    this.pool = pool;
+    this.rawParameters = rawParameters;
+  }
+
+  /**
+   * Method is used to build a batch for records that are not sent to Splunk, for example because they were written to
+   * the dead letter queue. The batch has no body and is only queued so its offsets are committed in order with the
+   * batches around it.
+   *
+   * @param topicPartition partition of the records.
+   * @param records        records that were skipped.
+   * @return batch without a body.
+   */
+  static SinkRecordBatch skipped(TopicPartition topicPartition, List<SinkRecord> records) {
+    SinkRecordBatch batch = new SinkRecordBatch(topicPartition, records, null, 0);
+    batch.skipped = true;
+    return batch;
+  }
+
+  /**
+   * @return true if the batch is to be sent to the raw endpoint.
+   */
+  boolean raw() {
+    return null != this.rawParameters;
+  }
+
+  /**
+   * Method is called once the body will not be sent again to return its array to the pool.
+   */
+  void release() {
+    byte[] buffer = this.buffer;
+    this.buffer = null;
+    this.pool.release(buffer);
+    if (null != this.spilled) {
+      this.spillLog.release(this.spilled);
+      this.spilled = null;
+    }
+  }
+
+  /**
+   * Method is used to move the body to the spill log and return its array to the pool. The records are dropped as well
+   * so a spilled batch cannot be split. It has to be read from Kafka again instead.
+   *
+   * @param spillLog log to move the body to.
+   * @return true if the body was moved.
+   */
+  boolean spill(SpillLog spillLog) {
+    if (null == this.buffer || null != this.spilled) {
+      return false;
+    }
+    final SpillLog.Entry entry = spillLog.append(this.buffer, this.length);
+    if (null == entry) {
+      return false;
+    }
+    this.spillLog = spillLog;
+    this.spilled = entry;
+    this.records = null;
+    byte[] buffer = this.buffer;
+    this.buffer = null;
+    this.pool.release(buffer);
+    return true;
+  }
+
+  /**
+   * Method is used to read a spilled body back into an array from the pool before it is sent.
+   */
+  void unspill() {
+    if (null == this.spilled) {
+      return;
+    }
+    final byte[] buffer = this.pool.acquire(this.length);
+    this.spillLog.read(this.spilled, buffer);
+    this.spilled = null;
+    this.buffer = buffer;
+  }
+
+  long firstOffset() {
+    return this.firstOffset;
+  }
+
+  long lastOffset() {
+    return this.lastOffset;
+  }
+
+  /**
+   * @return number of records in the batch.
+   */
+  int size() {
+    return this.size;
+  }
+
+  @Override
+  public long getLength() throws IOException {
+    return this.length;
+  }
+
+  @Override
+  public String getType() {
+    return null;
+  }
+
+  @Override
+  public boolean retrySupported() {
+    return true;
+  }
+
+  @Override
+  public void writeTo(OutputStream outputStream) throws IOException {
+    final byte[] buffer = this.buffer;
+    if (null == buffer) {
+      throw new IOException("Batch for " + this.topicPartition + " was already released.");
+    }
+    outputStream.write(buffer, 0, this.length);
+    outputStream.flush();
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzips request bodies based on {@link SplunkHttpSinkConnectorConfig#compressionEnabled},
+ * {@link SplunkHttpSinkConnectorConfig#compressionLevel} and {@link SplunkHttpSinkConnectorConfig#compressionMinBytes}.
+ * Each sender thread keeps its own {@link Deflater} which is reset between bodies instead of being created, and
+ * its native memory allocated, for every request. The deflaters are ended when the compressor is closed.
+ */
+class SinkRecordBatchCompressor implements Closeable {
+  static final String GZIP = "gzip";
+  private static final int GZIP_HEADER_LENGTH = 10;
+  private static final int GZIP_TRAILER_LENGTH = 8;
+  private static final byte[] GZIP_HEADER = new byte[]{
+      (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+
+  final boolean enabled;
+  final int level;
+  final int minBytes;
+  final SplunkSinkMetrics metrics;
+  final ThreadLocal<Deflater> deflaters;
+  final Queue<Deflater> allocated = new ConcurrentLinkedQueue<>();
+  final ThreadLocal<CRC32> checksums = ThreadLocal.withInitial(CRC32::new);
+
+  SinkRecordBatchCompressor(SplunkHttpSinkConnectorConfig config, SplunkSinkMetrics metrics) {
+    this.enabled = config.compressionEnabled;
+    this.level = config.compressionLevel;
+    this.minBytes = config.compressionMinBytes;
+    this.metrics = metrics;
+    final int level = this.level;
+    this.deflaters = ThreadLocal.withInitial(() -> {
+      Deflater deflater = new Deflater(level, true);
+      this.allocated.add(deflater);
+      return deflater;
+    });
+  }
+
+  /**
+   * Method is used to compress the body of a batch in place if the policy calls for it. Calling this on a body that
+   * is already compressed does nothing so it is safe to call before every attempt.
+   *
+   * @param batch batch to compress.
+   */
+  void compress(SinkRecordBatch batch) {
+    if (!this.enabled || null != batch.contentEncoding || batch.length < this.minBytes) {
+      return;
+    }
+
+    final long start = System.nanoTime();
+    final int inputLength = batch.length;
+    final Deflater deflater = this.deflaters.get();
+    final CRC32 crc = this.checksums.get();
+    deflater.reset();
+    crc.reset();
+    crc.update(batch.buffer, 0, inputLength);
+    deflater.setInput(batch.buffer, 0, inputLength);
+    deflater.finish();
+
+    byte[] output = batch.pool.acquire(GZIP_HEADER_LENGTH + Math.max(512, inputLength / 4) + GZIP_TRAILER_LENGTH);
+    System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER_LENGTH);
+    int position = GZIP_HEADER_LENGTH;
+    while (!deflater.finished()) {
+      if (output.length - position < GZIP_TRAILER_LENGTH + 1) {
+        byte[] larger = batch.pool.acquire(output.length * 2);
+        System.arraycopy(output, 0, larger, 0, position);
+        batch.pool.release(output);
+        output = larger;
+      }
+      position += deflater.deflate(output, position, output.length - position - GZIP_TRAILER_LENGTH);
+    }
+    position = writeIntLE(output, position, (int) crc.getValue());
+    position = writeIntLE(output, position, inputLength);
+
+    batch.pool.release(batch.buffer);
+    batch.buffer = output;
+    batch.length = position;
+    batch.contentEncoding = GZIP;
+
+    this.metrics.recordCompression(inputLength, position, System.nanoTime() - start);
+  }
+
+  private static int writeIntLE(byte[] buffer, int position, int value) {
+    buffer[position++] = (byte) value;
+    buffer[position++] = (byte) (value >> 8);
+    buffer[position++] = (byte) (value >> 16);
+    buffer[position++] = (byte) (value >> 24);
+    return position;
+  }
+
+  /**
+   * Method is used to free the native memory of every deflater. Must only be called once the threads that compress
+   * have stopped.
+   */
+  @Override
+  public void close() {
+    Deflater deflater;
+    while (null != (deflater = this.allocated.poll())) {
+      deflater.end();
+    }
+  }
+}
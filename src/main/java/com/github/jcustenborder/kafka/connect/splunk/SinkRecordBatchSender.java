@@ -0,0 +1,762 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.SystemTime;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers batches to Splunk on background threads so put() does not wait on the round trip. Each topic partition has
+ * its own queue and at most one request outstanding, so batches for a partition are delivered in the order they were
+ * queued while different partitions are delivered in parallel. A batch is retried with exponential backoff until it
+ * succeeds, fails with a non retriable exception, or runs out of retries. When it runs out of retries the queue for
+ * that partition is dropped and the partition is rewound to the first offset that was not delivered. Requests from
+ * every partition go through a {@link CircuitBreaker} so nothing is sent while Splunk is down. If a {@link SpillLog}
+ * is configured, the bodies of queued batches are moved to it while the breaker is not closed. Spilled batches do not
+ * count against the queue limit, so put() keeps accepting records until the log is full.
+ * <p>
+ * When indexer acknowledgement is enabled a delivered batch is held until Splunk reports it as indexed. Offsets for a
+ * partition only move forward over batches that have been acknowledged.
+ */
+class SinkRecordBatchSender implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(SinkRecordBatchSender.class);
+
+  interface Handler {
+    /**
+     * Method is called to deliver a batch to Splunk. This method is called from multiple threads.
+     *
+     * @param batch batch to deliver.
+     * @return the ackId returned by Splunk or null if indexer acknowledgement is not in use.
+     * @throws SplunkUnavailableException if Splunk could not be reached or returned a server error.
+     * @throws RetriableException     if the batch should be tried again.
+     * @throws InvalidEventException  if Splunk rejected an event in the batch.
+     * @throws ConnectException       if the batch can never be delivered.
+     */
+    Long send(SinkRecordBatch batch);
+
+    /**
+     * Method is called to build a new batch from part of a batch that Splunk rejected.
+     *
+     * @param batch   batch that was rejected.
+     * @param records records from the batch to put in the new batch.
+     * @return batch containing only the supplied records.
+     */
+    SinkRecordBatch rebatch(SinkRecordBatch batch, List<SinkRecord> records);
+
+    /**
+     * Method is called with a record that Splunk rejected because of its data. The record is skipped.
+     *
+     * @param record record that was rejected.
+     * @param ex     exception returned for the record.
+     */
+    default void rejected(SinkRecord record, InvalidEventException ex) {
+    }
+
+    /**
+     * Method is called to check the status of outstanding acknowledgements. Only called when indexer acknowledgement
+     * is enabled.
+     *
+     * @param ackIds ackIds to check.
+     * @return status by ackId. ackIds that are missing are treated as not indexed yet.
+     */
+    Map<Long, Boolean> acks(Collection<Long> ackIds);
+  }
+
+  static class PartitionQueue {
+    final TopicPartition topicPartition;
+    final Deque<SinkRecordBatch> batches = new ArrayDeque<>();
+    final Deque<SinkRecordBatch> unacknowledged = new ArrayDeque<>();
+    SinkRecordBatch inFlight;
+    boolean scheduled;
+    int attempts;
+    Long rewindOffset;
+
+    PartitionQueue(TopicPartition topicPartition) {
+      this.topicPartition = topicPartition;
+    }
+  }
+
+  final Handler handler;
+  final int maxQueuedBatches;
+  final ExponentialBackoff backoff;
+  final CircuitBreaker circuitBreaker;
+  final SpillLog spillLog;
+  final int maxRetries;
+  final boolean ackEnabled;
+  final long ackTimeoutMs;
+  final Map<TopicPartition, PartitionQueue> partitions = new ConcurrentHashMap<>();
+  final BlockingQueue<PartitionQueue> ready = new LinkedBlockingQueue<>();
+  final Map<TopicPartition, Long> deliveredOffsets = new ConcurrentHashMap<>();
+  final Map<Long, SinkRecordBatch> pendingAcks = new ConcurrentHashMap<>();
+  final Object lock = new Object();
+  final ExecutorService executorService;
+  final ScheduledExecutorService scheduledExecutorService;
+  int outstanding;
+  volatile ConnectException error;
+  volatile boolean running = true;
+  Time time = new SystemTime();
+
+  SinkRecordBatchSender(SplunkHttpSinkConnectorConfig config, Handler handler) {
+    this.handler = handler;
+    this.maxQueuedBatches = config.senderMaxQueuedBatches;
+    this.backoff = new ExponentialBackoff(config);
+    this.circuitBreaker = new CircuitBreaker(config, this.time);
+    this.spillLog = config.spillEnabled ? new SpillLog(config) : null;
+    this.maxRetries = config.maxRetries;
+    this.ackEnabled = config.ackEnabled;
+    this.ackTimeoutMs = config.ackTimeout;
+    this.executorService = Executors.newFixedThreadPool(
+        config.maxInFlightRequests,
+        new ThreadFactoryBuilder()
+            .setNameFormat("splunk-sender-%d")
+            .setDaemon(true)
+            .build()
+    );
+    this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("splunk-sender-scheduler-%d")
+            .setDaemon(true)
+            .build()
+    );
+    for (int i = 0; i < config.maxInFlightRequests; i++) {
+      this.executorService.submit(this::run);
+    }
+    if (this.ackEnabled) {
+      this.scheduledExecutorService.scheduleWithFixedDelay(
+          this::pollAcks,
+          config.ackPollInterval,
+          config.ackPollInterval,
+          TimeUnit.MILLISECONDS
+      );
+    }
+  }
+
+  /**
+   * Method is used to hand the batches from a put call to the sender. The batches of a put call are accepted as a
+   * whole so a retried put does not send part of the data twice.
+   *
+   * @param batches   batches to deliver.
+   * @param timeoutMs maximum amount of time to wait for room in the queue.
+   */
+  public void send(List<SinkRecordBatch> batches, long timeoutMs) {
+    checkError();
+
+    int spilled = 0;
+    if (spilling()) {
+      for (SinkRecordBatch batch : batches) {
+        if (batch.spill(this.spillLog)) {
+          spilled++;
+        }
+      }
+    }
+
+    synchronized (this.lock) {
+      final long deadline = this.time.milliseconds() + timeoutMs;
+      while (spilled < batches.size() && this.outstanding - (spilledBatches() - spilled) >= this.maxQueuedBatches) {
+        final long remaining = deadline - this.time.milliseconds();
+        if (remaining <= 0) {
+          throw new RetriableException(
+              String.format("Timed out after %s ms waiting for %s outstanding batch(es) to be delivered.", timeoutMs, this.outstanding)
+          );
+        }
+        waitOnLock(remaining);
+        checkError();
+      }
+      this.outstanding += batches.size();
+    }
+
+    for (SinkRecordBatch batch : batches) {
+      PartitionQueue partitionQueue = this.partitions.computeIfAbsent(batch.topicPartition, PartitionQueue::new);
+      synchronized (partitionQueue) {
+        if (null != partitionQueue.rewindOffset) {
+          log.trace("Dropping batch for {} because the partition is being rewound.", batch.topicPartition);
+          batch.release();
+          completed(1);
+          continue;
+        }
+        partitionQueue.batches.addLast(batch);
+        if (!partitionQueue.scheduled) {
+          partitionQueue.scheduled = true;
+          this.ready.add(partitionQueue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Method is used to wait for all of the outstanding batches to be delivered, and acknowledged if indexer
+   * acknowledgement is enabled.
+   *
+   * @param timeoutMs maximum amount of time to wait.
+   * @return true if everything was delivered.
+   */
+  public boolean awaitDelivery(long timeoutMs) {
+    synchronized (this.lock) {
+      final long deadline = this.time.milliseconds() + timeoutMs;
+      while (this.outstanding > 0) {
+        final long remaining = deadline - this.time.milliseconds();
+        if (remaining <= 0) {
+          break;
+        }
+        waitOnLock(remaining);
+      }
+      checkError();
+      return 0 == this.outstanding;
+    }
+  }
+
+  /**
+   * Method returns the offsets that are safe to commit for the supplied partitions.
+   *
+   * @param partitions partitions to return offsets for.
+   * @return offsets of the records that have been delivered.
+   */
+  public Map<TopicPartition, OffsetAndMetadata> deliveredOffsets(Collection<TopicPartition> partitions) {
+    checkError();
+    Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>(partitions.size());
+    for (TopicPartition topicPartition : partitions) {
+      Long offset = this.deliveredOffsets.get(topicPartition);
+      if (null != offset) {
+        result.put(topicPartition, new OffsetAndMetadata(offset + 1));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Method returns the partitions that ran out of retries, or were not acknowledged in time, since the last call along
+   * with the offset they should be rewound to. Batches for these partitions are dropped until this method is called so
+   * the caller must seek the partitions to the returned offsets and skip any records for them that it has not handed
+   * to the sender yet.
+   *
+   * @return offset to rewind to by partition.
+   */
+  public Map<TopicPartition, Long> rewinds() {
+    Map<TopicPartition, Long> result = new HashMap<>();
+    for (PartitionQueue partitionQueue : this.partitions.values()) {
+      synchronized (partitionQueue) {
+        if (null != partitionQueue.rewindOffset) {
+          result.put(partitionQueue.topicPartition, partitionQueue.rewindOffset);
+          partitionQueue.rewindOffset = null;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Method is called when partitions are no longer assigned to the task. Any batches that have not been delivered
+   * for these partitions are dropped.
+   *
+   * @param partitions partitions that were revoked.
+   */
+  public void forget(Collection<TopicPartition> partitions) {
+    for (TopicPartition topicPartition : partitions) {
+      this.deliveredOffsets.remove(topicPartition);
+      PartitionQueue partitionQueue = this.partitions.get(topicPartition);
+      if (null == partitionQueue) {
+        continue;
+      }
+      synchronized (partitionQueue) {
+        int count = drop(partitionQueue);
+        partitionQueue.rewindOffset = null;
+        completed(count);
+      }
+    }
+  }
+
+  /**
+   * @return true if batches are being moved to the spill log.
+   */
+  boolean spilling() {
+    return null != this.spillLog && CircuitBreaker.State.CLOSED != this.circuitBreaker.state();
+  }
+
+  /**
+   * @param length length of the body.
+   * @return true if the spill log can take a body of the supplied length.
+   */
+  boolean canSpill(int length) {
+    return null != this.spillLog && this.spillLog.hasRoom(length);
+  }
+
+  private int spilledBatches() {
+    return null == this.spillLog ? 0 : this.spillLog.entries();
+  }
+
+  void checkError() {
+    ConnectException exception = this.error;
+    if (null != exception) {
+      throw exception;
+    }
+  }
+
+  private void waitOnLock(long timeoutMs) {
+    try {
+      this.lock.wait(timeoutMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectException("Interrupted while waiting for the sender.", e);
+    }
+  }
+
+  void run() {
+    while (this.running) {
+      PartitionQueue partitionQueue;
+      try {
+        partitionQueue = this.ready.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        break;
+      }
+
+      if (null != partitionQueue) {
+        deliver(partitionQueue);
+      }
+    }
+    log.trace("Sender stopped.");
+  }
+
+  void deliver(final PartitionQueue partitionQueue) {
+    final SinkRecordBatch batch;
+    final long waitMs;
+    final boolean probe;
+    synchronized (partitionQueue) {
+      batch = partitionQueue.batches.peekFirst();
+      if (null == batch) {
+        partitionQueue.scheduled = false;
+        return;
+      }
+      if (batch.skipped) {
+        partitionQueue.batches.pollFirst();
+        partitionQueue.unacknowledged.addLast(batch);
+        batch.acknowledged = true;
+        advance(partitionQueue);
+        reschedule(partitionQueue);
+        return;
+      }
+      waitMs = this.circuitBreaker.acquire();
+      probe = 0 == waitMs && CircuitBreaker.State.HALF_OPEN == this.circuitBreaker.state();
+      if (0 == waitMs) {
+        partitionQueue.inFlight = batch;
+      } else if (null != this.spillLog) {
+        spill(partitionQueue);
+      }
+    }
+
+    if (waitMs > 0) {
+      log.trace("Circuit breaker is not closed. Holding {} for {} ms.", partitionQueue.topicPartition, waitMs);
+      this.scheduledExecutorService.schedule(() -> this.ready.add(partitionQueue), waitMs, TimeUnit.MILLISECONDS);
+      return;
+    }
+
+    final Long ackId;
+    try {
+      batch.unspill();
+      ackId = this.handler.send(batch);
+      this.circuitBreaker.success();
+    } catch (InvalidEventException ex) {
+      this.circuitBreaker.success();
+      split(partitionQueue, batch, ex);
+      return;
+    } catch (SplunkUnavailableException ex) {
+      this.circuitBreaker.failure(ex.retryAfterMs);
+      retry(partitionQueue, batch, ex);
+      return;
+    } catch (RetriableException ex) {
+      if (probe) {
+        this.circuitBreaker.failure(null);
+      }
+      retry(partitionQueue, batch, ex);
+      return;
+    } catch (RuntimeException ex) {
+      if (probe) {
+        this.circuitBreaker.failure(null);
+      }
+      failed(ex instanceof ConnectException ? (ConnectException) ex : new ConnectException("Exception thrown while delivering records.", ex));
+      return;
+    }
+
+    synchronized (partitionQueue) {
+      partitionQueue.inFlight = null;
+      partitionQueue.attempts = 0;
+      batch.release();
+      if (partitionQueue.batches.peekFirst() == batch) {
+        partitionQueue.batches.pollFirst();
+        partitionQueue.unacknowledged.addLast(batch);
+
+        if (this.ackEnabled && null != ackId) {
+          batch.ackId = ackId;
+          batch.sentMs = this.time.milliseconds();
+          this.pendingAcks.put(ackId, batch);
+        } else {
+          if (this.ackEnabled) {
+            log.warn("Splunk did not return an ackId for {}. Is indexer acknowledgement enabled on the token?", batch.topicPartition);
+          }
+          batch.acknowledged = true;
+          advance(partitionQueue);
+        }
+      }
+      reschedule(partitionQueue);
+    }
+  }
+
+  private void retry(final PartitionQueue partitionQueue, final SinkRecordBatch batch, RetriableException ex) {
+    final long backoffMs;
+    synchronized (partitionQueue) {
+      partitionQueue.inFlight = null;
+      if (partitionQueue.batches.peekFirst() != batch) {
+        log.trace("Batch for {} was dropped while it was being delivered.", batch.topicPartition);
+        batch.release();
+        reschedule(partitionQueue);
+        return;
+      }
+
+      partitionQueue.attempts++;
+      backoffMs = Math.max(this.backoff.backoffMs(partitionQueue.attempts), this.circuitBreaker.openMs());
+
+      if (partitionQueue.attempts > this.maxRetries) {
+        log.error(
+            "Exception thrown while delivering {} record(s) for {}. Retries exhausted, rewinding partition.",
+            batch.size(),
+            batch.topicPartition,
+            ex
+        );
+        rewind(partitionQueue);
+        partitionQueue.scheduled = false;
+        return;
+      }
+
+      log.warn(
+          "Exception thrown while delivering {} record(s) for {}. Attempt {} of {}, retrying in {} ms.",
+          batch.size(),
+          batch.topicPartition,
+          partitionQueue.attempts,
+          this.maxRetries + 1,
+          backoffMs,
+          ex
+      );
+    }
+
+    this.scheduledExecutorService.schedule(() -> this.ready.add(partitionQueue), backoffMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Replaces a batch that Splunk rejected because of its data. If Splunk reported which event was invalid the events
+   * before it are treated as delivered, the invalid event is handed to
+   * {@link Handler#rejected(SinkRecord, InvalidEventException)} and skipped, and the events after it are sent as a new
+   * batch. Otherwise the batch is cut in half until the invalid event is by itself and is rejected when it fails on
+   * its own. A rejected event is never retried so it cannot stall the partition. A spilled batch no longer has its
+   * records so the partition is rewound to read them from Kafka again. The handler is called without
+   * holding the lock on the partition queue and the offset of the rejected event is only committed once it returns.
+   */
+  private void split(final PartitionQueue partitionQueue, final SinkRecordBatch batch, InvalidEventException ex) {
+    SinkRecord rejected = null;
+    SinkRecordBatch delivered = null;
+    synchronized (partitionQueue) {
+      partitionQueue.inFlight = null;
+      batch.release();
+      if (partitionQueue.batches.peekFirst() != batch) {
+        log.trace("Batch for {} was dropped while it was being delivered.", batch.topicPartition);
+        reschedule(partitionQueue);
+        return;
+      }
+      if (null == batch.records) {
+        log.warn(
+            "Splunk rejected {} spilled record(s) for {}. Rewinding partition to split them. {}",
+            batch.size(),
+            batch.topicPartition,
+            ex.getMessage()
+        );
+        rewind(partitionQueue);
+        partitionQueue.scheduled = false;
+        return;
+      }
+      partitionQueue.batches.pollFirst();
+      partitionQueue.attempts = 0;
+
+      final List<SinkRecord> records = batch.records;
+      final int size = records.size();
+      final Integer invalid = ex.invalidEventNumber;
+      final List<SinkRecordBatch> replacements = new ArrayList<>(2);
+
+      try {
+        if (1 == size) {
+          rejected = records.get(0);
+          log.error(
+              "Splunk rejected the record at {}-{}:{}. Skipping it. {}",
+              rejected.topic(),
+              rejected.kafkaPartition(),
+              rejected.kafkaOffset(),
+              ex.getMessage()
+          );
+          delivered = new SinkRecordBatch(batch.topicPartition, records, null, 0);
+        } else if (null != invalid && invalid >= 0 && invalid < size) {
+          rejected = records.get(invalid);
+          log.error(
+              "Splunk rejected the record at {}-{}:{}, event {} of {}. Skipping it and sending the {} event(s) after it. {}",
+              rejected.topic(),
+              rejected.kafkaPartition(),
+              rejected.kafkaOffset(),
+              invalid,
+              size,
+              size - invalid - 1,
+              ex.getMessage()
+          );
+          delivered = new SinkRecordBatch(batch.topicPartition, records.subList(0, invalid + 1), null, 0);
+          if (invalid + 1 < size) {
+            replacements.add(this.handler.rebatch(batch, records.subList(invalid + 1, size)));
+          }
+        } else {
+          final int half = size / 2;
+          log.warn(
+              "Splunk rejected {} event(s) for {} without saying which event was invalid. Splitting the batch. {}",
+              size,
+              batch.topicPartition,
+              ex.getMessage()
+          );
+          replacements.add(this.handler.rebatch(batch, records.subList(0, half)));
+          replacements.add(this.handler.rebatch(batch, records.subList(half, size)));
+        }
+      } catch (RuntimeException e) {
+        partitionQueue.batches.addFirst(batch);
+        failed(e instanceof ConnectException ? (ConnectException) e : new ConnectException("Exception thrown while splitting batch.", e));
+        return;
+      }
+
+      added(replacements.size() + (null == delivered ? 0 : 1) - 1);
+      for (int i = replacements.size() - 1; i >= 0; i--) {
+        partitionQueue.batches.addFirst(replacements.get(i));
+      }
+      if (null != delivered) {
+        partitionQueue.unacknowledged.addLast(delivered);
+      }
+      reschedule(partitionQueue);
+    }
+
+    if (null == rejected) {
+      return;
+    }
+    try {
+      this.handler.rejected(rejected, ex);
+    } catch (RuntimeException e) {
+      failed(e instanceof ConnectException ? (ConnectException) e : new ConnectException("Exception thrown while handling a rejected record.", e));
+      return;
+    }
+    synchronized (partitionQueue) {
+      delivered.acknowledged = true;
+      advance(partitionQueue);
+    }
+  }
+
+  void pollAcks() {
+    if (this.pendingAcks.isEmpty()) {
+      return;
+    }
+
+    final List<Long> ackIds = new ArrayList<>(this.pendingAcks.keySet());
+    Map<Long, Boolean> statuses;
+    try {
+      log.trace("Checking the status of {} ackId(s).", ackIds.size());
+      statuses = this.handler.acks(ackIds);
+    } catch (RuntimeException ex) {
+      log.warn("Exception thrown while checking the status of {} ackId(s).", ackIds.size(), ex);
+      statuses = Collections.emptyMap();
+    }
+
+    final long now = this.time.milliseconds();
+    for (Long ackId : ackIds) {
+      SinkRecordBatch batch = this.pendingAcks.get(ackId);
+      if (null == batch) {
+        continue;
+      }
+      PartitionQueue partitionQueue = this.partitions.get(batch.topicPartition);
+      synchronized (partitionQueue) {
+        if (Boolean.TRUE.equals(statuses.get(ackId))) {
+          this.pendingAcks.remove(ackId);
+          batch.acknowledged = true;
+          advance(partitionQueue);
+        } else if (now - batch.sentMs > this.ackTimeoutMs) {
+          log.error(
+              "ackId {} for {} record(s) of {} was not acknowledged within {} ms. Rewinding partition.",
+              ackId,
+              batch.size(),
+              batch.topicPartition,
+              this.ackTimeoutMs
+          );
+          rewind(partitionQueue);
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves the committable offset forward over the batches at the head of the partition that have been acknowledged.
+   * Must be called while holding the lock on the partition queue.
+   */
+  private void advance(PartitionQueue partitionQueue) {
+    int count = 0;
+    while (!partitionQueue.unacknowledged.isEmpty() && partitionQueue.unacknowledged.peekFirst().acknowledged) {
+      SinkRecordBatch batch = partitionQueue.unacknowledged.pollFirst();
+      this.deliveredOffsets.merge(batch.topicPartition, batch.lastOffset(), Math::max);
+      count++;
+    }
+    completed(count);
+  }
+
+  /**
+   * Drops everything that has not been committed for the partition and marks it to be rewound to the first offset
+   * that was dropped. Must be called while holding the lock on the partition queue.
+   */
+  private void rewind(PartitionQueue partitionQueue) {
+    SinkRecordBatch first = partitionQueue.unacknowledged.isEmpty() ?
+        partitionQueue.batches.peekFirst() : partitionQueue.unacknowledged.peekFirst();
+    if (null == first) {
+      return;
+    }
+    long offset = first.firstOffset();
+    completed(drop(partitionQueue));
+    partitionQueue.attempts = 0;
+    partitionQueue.rewindOffset = null == partitionQueue.rewindOffset ? offset : Math.min(offset, partitionQueue.rewindOffset);
+  }
+
+  /**
+   * Drops the queued and unacknowledged batches for a partition. Must be called while holding the lock on the
+   * partition queue. The body of a batch that is on the wire is released by the thread sending it.
+   *
+   * @return the number of batches that were dropped.
+   */
+  private int drop(PartitionQueue partitionQueue) {
+    int count = partitionQueue.batches.size() + partitionQueue.unacknowledged.size();
+    for (SinkRecordBatch batch : partitionQueue.unacknowledged) {
+      if (null != batch.ackId) {
+        this.pendingAcks.remove(batch.ackId);
+      }
+    }
+    for (SinkRecordBatch batch : partitionQueue.batches) {
+      if (batch != partitionQueue.inFlight) {
+        batch.release();
+      }
+    }
+    partitionQueue.batches.clear();
+    partitionQueue.unacknowledged.clear();
+    return count;
+  }
+
+  /**
+   * Moves the bodies of the batches queued for a partition to the spill log. Must be called while holding the lock on
+   * the partition queue.
+   */
+  private void spill(PartitionQueue partitionQueue) {
+    int count = 0;
+    for (SinkRecordBatch batch : partitionQueue.batches) {
+      if (batch != partitionQueue.inFlight && batch.spill(this.spillLog)) {
+        count++;
+      }
+    }
+    if (count > 0) {
+      log.debug("Spilled {} batch(es) for {}.", count, partitionQueue.topicPartition);
+      synchronized (this.lock) {
+        this.lock.notifyAll();
+      }
+    }
+  }
+
+  private void reschedule(PartitionQueue partitionQueue) {
+    if (partitionQueue.batches.isEmpty()) {
+      partitionQueue.scheduled = false;
+    } else {
+      this.ready.add(partitionQueue);
+    }
+  }
+
+  private void added(int count) {
+    if (count <= 0) {
+      completed(-count);
+      return;
+    }
+    synchronized (this.lock) {
+      this.outstanding += count;
+    }
+  }
+
+  private void completed(int count) {
+    if (count <= 0) {
+      return;
+    }
+    synchronized (this.lock) {
+      this.outstanding -= count;
+      this.lock.notifyAll();
+    }
+  }
+
+  void failed(ConnectException ex) {
+    log.error("Exception thrown while delivering records. No further records will be delivered.", ex);
+    this.error = ex;
+    this.ready.clear();
+    for (PartitionQueue partitionQueue : this.partitions.values()) {
+      synchronized (partitionQueue) {
+        drop(partitionQueue);
+        partitionQueue.scheduled = false;
+      }
+    }
+    synchronized (this.lock) {
+      this.outstanding = 0;
+      this.lock.notifyAll();
+    }
+  }
+
+  @Override
+  public void close() {
+    this.running = false;
+    this.scheduledExecutorService.shutdownNow();
+    this.executorService.shutdownNow();
+    try {
+      if (!this.executorService.awaitTermination(30, TimeUnit.SECONDS)) {
+        log.warn("Timed out waiting for the sender to stop.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (null != this.spillLog) {
+      this.spillLog.close();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits the records passed to a put call into batches per topic partition whose serialized size does not exceed
+ * {@link SplunkHttpSinkConnectorConfig#batchMaxBytes}, or the current target of the {@link AdaptiveBatchSize}. Each
+ * record is serialized exactly once, straight into an array taken from the {@link BufferPool} that becomes the body of
+ * the request. Records for topics in {@link SplunkHttpSinkConnectorConfig#rawTopics} are written without the json
+ * envelope. String and byte array values for topics in {@link SplunkHttpSinkConnectorConfig#passthroughTopics} are
+ * already events and are copied as is.
+ */
+class SinkRecordBatcher {
+  private static final Logger log = LoggerFactory.getLogger(SinkRecordBatcher.class);
+  final int maxBytes;
+  final AdaptiveBatchSize batchSize;
+  int targetBytes;
+  int targetRecords;
+  final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(1024);
+  final BufferPool pool;
+  final PooledByteArrayOutputStream batchBuffer;
+  final Map<String, Map<String, String>> rawTopics;
+  final Set<String> passthroughTopics;
+  final boolean passthroughValidate;
+  /**
+   * Pass through records from the last call to batch that are not a json object. They are not part of any batch.
+   */
+  final List<SinkRecord> invalid = new ArrayList<>();
+
+  SinkRecordBatcher(int maxBytes) {
+    this(maxBytes, null, new BufferPool(0), Collections.emptyMap(), Collections.emptySet(), false);
+  }
+
+  /**
+   * @param config    config for the task.
+   * @param batchSize current target size of a batch. Batches are only limited by
+   *                  {@link SplunkHttpSinkConnectorConfig#batchMaxBytes} if this is null.
+   * @param pool      pool to take the arrays for the bodies from.
+   */
+  SinkRecordBatcher(SplunkHttpSinkConnectorConfig config, AdaptiveBatchSize batchSize, BufferPool pool) {
+    this(
+        config.batchMaxBytes,
+        batchSize,
+        pool,
+        config.rawTopics,
+        config.passthroughTopics,
+        config.passthroughValidate
+    );
+  }
+
+  private SinkRecordBatcher(int maxBytes, AdaptiveBatchSize batchSize, BufferPool pool, Map<String, Map<String, String>> rawTopics, Set<String> passthroughTopics, boolean passthroughValidate) {
+    this.maxBytes = maxBytes;
+    this.batchSize = batchSize;
+    this.targetBytes = maxBytes;
+    this.targetRecords = Integer.MAX_VALUE;
+    this.pool = pool;
+    this.rawTopics = rawTopics;
+    this.passthroughTopics = passthroughTopics;
+    this.passthroughValidate = passthroughValidate;
+    this.batchBuffer = new PooledByteArrayOutputStream(pool, Math.min(maxBytes, 64 * 1024));
+  }
+
+  public List<SinkRecordBatch> batch(Collection<SinkRecord> records) throws IOException {
+    if (null != this.batchSize) {
+      this.targetBytes = this.batchSize.targetBytes();
+      this.targetRecords = this.batchSize.targetRecords();
+    }
+    this.invalid.clear();
+
+    Map<TopicPartition, List<SinkRecord>> recordsByPartition = new LinkedHashMap<>();
+    for (SinkRecord record : records) {
+      TopicPartition topicPartition = new TopicPartition(record.topic(), record.kafkaPartition());
+      List<SinkRecord> partitionRecords = recordsByPartition.get(topicPartition);
+      if (null == partitionRecords) {
+        partitionRecords = new ArrayList<>();
+        recordsByPartition.put(topicPartition, partitionRecords);
+      }
+      partitionRecords.add(record);
+    }
+
+    List<SinkRecordBatch> batches = new ArrayList<>();
+    for (Map.Entry<TopicPartition, List<SinkRecord>> entry : recordsByPartition.entrySet()) {
+      batch(batches, entry.getKey(), entry.getValue());
+    }
+    return batches;
+  }
+
+  void batch(List<SinkRecordBatch> batches, TopicPartition topicPartition, List<SinkRecord> records) throws IOException {
+    final Map<String, String> rawParameters = this.rawTopics.get(topicPartition.topic());
+    final boolean passthrough = this.passthroughTopics.contains(topicPartition.topic());
+    List<SinkRecord> current = new ArrayList<>();
+    this.batchBuffer.reset();
+
+    for (SinkRecord record : records) {
+      this.recordBuffer.reset();
+      final boolean copy = (null != rawParameters || passthrough) && isPassthrough(record.value());
+      if (copy && null == rawParameters && this.passthroughValidate && !isJsonObject(record.value())) {
+        this.invalid.add(record);
+        continue;
+      }
+
+      // Byte arrays are copied straight into the batch, everything else is written to the record buffer first.
+      final byte[] bytes = copy && record.value() instanceof byte[] ? (byte[]) record.value() : null;
+      if (null == bytes) {
+        if (null != rawParameters || copy) {
+          writeRaw(record);
+        } else {
+          ObjectMapperFactory.INSTANCE.writeValue(this.recordBuffer, record);
+        }
+      }
+      final int size = null != bytes ? bytes.length : this.recordBuffer.size();
+
+      if (size > this.maxBytes) {
+        log.warn(
+            "Record for {}-{}:{} is {} bytes serialized which is larger than {}. It will be sent by itself.",
+            record.topic(),
+            record.kafkaPartition(),
+            record.kafkaOffset(),
+            size,
+            this.maxBytes
+        );
+      }
+
+      if (!current.isEmpty() &&
+          (this.batchBuffer.size() + 1 + size > this.targetBytes || current.size() >= this.targetRecords)) {
+        batches.add(complete(topicPartition, current, rawParameters));
+        current = new ArrayList<>();
+      }
+
+      if (!current.isEmpty()) {
+        this.batchBuffer.write('\n');
+      }
+      if (null != bytes) {
+        this.batchBuffer.write(bytes, 0, bytes.length);
+      } else {
+        this.recordBuffer.writeTo(this.batchBuffer);
+      }
+      current.add(record);
+    }
+
+    if (!current.isEmpty()) {
+      batches.add(complete(topicPartition, current, rawParameters));
+    }
+  }
+
+  /**
+   * Writes the value of a record for the raw endpoint. Strings are written as UTF-8 and byte arrays are written as is.
+   * Anything else is written as json.
+   */
+  private void writeRaw(SinkRecord record) throws IOException {
+    final Object value = record.value();
+    if (null == value) {
+      return;
+    }
+    if (value instanceof String) {
+      this.recordBuffer.write(((String) value).getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof byte[]) {
+      this.recordBuffer.write((byte[]) value);
+    } else {
+      ObjectMapperFactory.INSTANCE.writeValue(this.recordBuffer, value);
+    }
+  }
+
+  static boolean isPassthrough(Object value) {
+    return value instanceof byte[] || value instanceof String;
+  }
+
+  /**
+   * Light check that a pass through value looks like a json object. Only the first and last characters that are not
+   * whitespace are looked at, the value is not parsed.
+   */
+  static boolean isJsonObject(Object value) {
+    if (value instanceof byte[]) {
+      final byte[] bytes = (byte[]) value;
+      int start = 0;
+      int end = bytes.length - 1;
+      while (start <= end && Character.isWhitespace(bytes[start])) {
+        start++;
+      }
+      while (end > start && Character.isWhitespace(bytes[end])) {
+        end--;
+      }
+      return start < end && '{' == bytes[start] && '}' == bytes[end];
+    } else {
+      final String text = (String) value;
+      int start = 0;
+      int end = text.length() - 1;
+      while (start <= end && Character.isWhitespace(text.charAt(start))) {
+        start++;
+      }
+      while (end > start && Character.isWhitespace(text.charAt(end))) {
+        end--;
+      }
+      return start < end && '{' == text.charAt(start) && '}' == text.charAt(end);
+    }
+  }
+
+  private SinkRecordBatch complete(TopicPartition topicPartition, List<SinkRecord> records, Map<String, String> rawParameters) {
+    final int length = this.batchBuffer.size();
+    final byte[] buffer = this.batchBuffer.detach();
+    return new SinkRecordBatch(topicPartition, records, buffer, length, this.pool, rawParameters);
+  }
+}
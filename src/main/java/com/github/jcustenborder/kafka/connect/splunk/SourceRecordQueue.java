@@ -0,0 +1,261 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Queue of records received by the event collector waiting to be returned by poll(). The queue is bounded by
+ * {@link SplunkHttpSourceConnectorConfig#queueMaxRecords} and {@link SplunkHttpSourceConnectorConfig#queueMaxBytes}
+ * so that the heap cannot fill up when Kafka is slower than the clients sending data. The records of a request are
+ * added all or nothing so a client that is told to retry does not create duplicates.
+ * <p>
+ * Records are kept in a preallocated ring with many producers, the servlet threads, and a single consumer, the
+ * thread calling poll(). A producer claims the slots for a whole request with a single compare and set on the head
+ * and then publishes each slot. The consumer stops at the first slot that is not published yet. Neither side takes
+ * a lock, and the consumer parks instead of sleeping so it is woken as soon as there is data.
+ */
+class SourceRecordQueue {
+  /**
+   * Rough number of bytes a record takes on the heap in addition to the text of its fields.
+   */
+  static final int RECORD_OVERHEAD = 256;
+
+  final int maxRecords;
+  final long maxBytes;
+  final int batchSize;
+  final int minBatchSize;
+  final long lingerNanos;
+  final long backoffNanos;
+  private final AtomicReferenceArray<SourceRecord> ring;
+  private final int mask;
+  /**
+   * Sequence of the next slot a producer will claim.
+   */
+  private final AtomicLong head = new AtomicLong();
+  /**
+   * Sequence of the next slot the consumer will read. Only written by the consumer.
+   */
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private volatile Thread waiter;
+
+  SourceRecordQueue(SplunkHttpSourceConnectorConfig config) {
+    this(config.queueMaxRecords, config.queueMaxBytes, config.batchSize, config.batchMinSize, config.lingerMs, config.backoffMS);
+  }
+
+  SourceRecordQueue(int maxRecords, long maxBytes, int batchSize, int backoffMs) {
+    this(maxRecords, maxBytes, batchSize, 1, 0, backoffMs);
+  }
+
+  SourceRecordQueue(int maxRecords, long maxBytes, int batchSize, int minBatchSize, int lingerMs, int backoffMs) {
+    this.maxRecords = maxRecords;
+    this.maxBytes = maxBytes;
+    this.batchSize = batchSize;
+    this.minBatchSize = Math.max(1, Math.min(minBatchSize, batchSize));
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+    this.backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMs);
+    final int capacity = maxRecords <= 1 ? 1 : Integer.highestOneBit(maxRecords - 1) << 1;
+    this.ring = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Method is used to estimate the number of bytes a record holds on the heap.
+   *
+   * @param record record to estimate.
+   * @return estimated size in bytes.
+   */
+  static long size(SourceRecord record) {
+    long size = RECORD_OVERHEAD;
+    if (record.value() instanceof Struct) {
+      Struct struct = (Struct) record.value();
+      size += 2L * (length(struct, "event") + length(struct, "host") + length(struct, "source") +
+          length(struct, "sourcetype") + length(struct, "index"));
+    }
+    return size;
+  }
+
+  private static int length(Struct struct, String field) {
+    Object value = struct.get(field);
+    return null == value ? 0 : value.toString().length();
+  }
+
+  /**
+   * Method is used to determine if the queue is at capacity.
+   *
+   * @return true if no more requests should be accepted.
+   */
+  boolean isFull() {
+    return size() >= this.maxRecords || (this.maxBytes > 0 && this.bytes.get() >= this.maxBytes);
+  }
+
+  /**
+   * Method is used to add the records of a request. The records are only added if all of them fit. A request is
+   * always accepted by an empty queue as long as it has no more than {@link #maxRecords} records, so that a request
+   * larger than {@link #maxBytes} can still be delivered.
+   *
+   * @param batch records to add.
+   * @return true if the records were added.
+   */
+  boolean offer(List<SourceRecord> batch) {
+    final int count = batch.size();
+    if (count > this.maxRecords) {
+      return false;
+    }
+    if (0 == count) {
+      return true;
+    }
+
+    long batchBytes = 0;
+    for (int i = 0; i < count; i++) {
+      batchBytes += size(batch.get(i));
+    }
+
+    long sequence;
+    do {
+      sequence = this.head.get();
+      final long queued = sequence - this.tail.get();
+      if (queued > 0 && (queued + count > this.maxRecords || (this.maxBytes > 0 && this.bytes.get() + batchBytes > this.maxBytes))) {
+        return false;
+      }
+    } while (!this.head.compareAndSet(sequence, sequence + count));
+    // Counted before the slots are published so the consumer never subtracts bytes that were not added yet.
+    this.bytes.addAndGet(batchBytes);
+
+    // The last slot is published with a volatile write so it cannot be reordered with the read of waiter below.
+    // Otherwise the consumer could miss the records and park after this thread saw no waiter.
+    final int last = count - 1;
+    for (int i = 0; i < last; i++) {
+      this.ring.lazySet((int) (sequence + i) & this.mask, batch.get(i));
+    }
+    this.ring.set((int) (sequence + last) & this.mask, batch.get(last));
+
+    final Thread waiter = this.waiter;
+    if (null != waiter) {
+      LockSupport.unpark(waiter);
+    }
+    return true;
+  }
+
+  /**
+   * Method is used to move up to {@link SplunkHttpSourceConnectorConfig#batchSize} records to the supplied list. The
+   * calling thread parks until {@link SplunkHttpSourceConnectorConfig#batchMinSize} records are available or the
+   * oldest record has waited {@link SplunkHttpSourceConnectorConfig#lingerMs}. If the queue stays empty for
+   * {@link SplunkHttpSourceConnectorConfig#backoffMS} nothing is returned. Must only be called by one thread at a
+   * time.
+   *
+   * @param output list to add the records to.
+   * @return true if any records were added.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  boolean drain(List<SourceRecord> output) throws InterruptedException {
+    final long start = System.nanoTime();
+    long lingerDeadline = 0;
+    boolean lingering = false;
+
+    while (true) {
+      final int available = published();
+      final long now = System.nanoTime();
+      if (available > 0 && !lingering) {
+        lingering = true;
+        lingerDeadline = now + this.lingerNanos;
+      }
+      if (available >= this.minBatchSize || (lingering && now - lingerDeadline >= 0)) {
+        return take(output) > 0;
+      }
+
+      final long remaining = lingering ? lingerDeadline - now : start + this.backoffNanos - now;
+      if (!lingering && remaining <= 0) {
+        return false;
+      }
+
+      this.waiter = Thread.currentThread();
+      if (published() == available) {
+        LockSupport.parkNanos(this, remaining);
+      }
+      this.waiter = null;
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * Number of records that have been published and can be read by the consumer. Counting stops at
+   * {@link #minBatchSize} since that is enough to return.
+   */
+  private int published() {
+    final long tail = this.tail.get();
+    final long head = this.head.get();
+    int available = 0;
+    while (available < this.minBatchSize && tail + available < head &&
+        null != this.ring.get((int) (tail + available) & this.mask)) {
+      available++;
+    }
+    return available;
+  }
+
+  private int take(List<SourceRecord> output) {
+    long tail = this.tail.get();
+    final long head = this.head.get();
+    int taken = 0;
+    long takenBytes = 0;
+    while (taken < this.batchSize && tail < head) {
+      final int index = (int) tail & this.mask;
+      final SourceRecord record = this.ring.get(index);
+      if (null == record) {
+        break;
+      }
+      this.ring.lazySet(index, null);
+      output.add(record);
+      takenBytes += size(record);
+      taken++;
+      tail++;
+    }
+    this.bytes.addAndGet(-takenBytes);
+    this.tail.lazySet(tail);
+    return taken;
+  }
+
+  int size() {
+    return (int) (this.head.get() - this.tail.get());
+  }
+
+  long bytes() {
+    return this.bytes.get();
+  }
+
+  /**
+   * Method is used to report how full the queue is.
+   *
+   * @return the larger of the record and byte fill ratios.
+   */
+  double fillRatio() {
+    double ratio = (double) size() / this.maxRecords;
+    if (this.maxBytes > 0) {
+      ratio = Math.max(ratio, (double) this.bytes.get() / this.maxBytes);
+    }
+    return ratio;
+  }
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.errors.ConnectException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append only log of serialized batch bodies that is used while Splunk is not accepting data. The log is split into
+ * segment files of a fixed size that are written and read with positional {@link FileChannel} calls, so the bodies
+ * stay in the page cache instead of the heap and nothing is left mapped once a segment is deleted. Bodies are appended
+ * to the newest segment and a segment is closed and deleted once every body in it has been read back or dropped.
+ * <p>
+ * The log is scratch space. Offsets are only committed once the batches in it are delivered, so after a restart the
+ * records are read from Kafka again and the log is not needed. Each instance writes to its own directory, which is
+ * deleted when it is closed.
+ */
+class SpillLog implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(SpillLog.class);
+
+  /**
+   * Location of a body in the log.
+   */
+  static class Entry {
+    final Segment segment;
+    final int position;
+    final int length;
+
+    Entry(Segment segment, int position, int length) {
+      this.segment = segment;
+      this.position = position;
+      this.length = length;
+    }
+  }
+
+  static class Segment {
+    final File file;
+    final FileChannel channel;
+    int position;
+    int live;
+
+    Segment(File file) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(
+          file.toPath(),
+          StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE
+      );
+    }
+
+    void write(byte[] buffer, int length) throws IOException {
+      final ByteBuffer source = ByteBuffer.wrap(buffer, 0, length);
+      long position = this.position;
+      while (source.hasRemaining()) {
+        position += this.channel.write(source, position);
+      }
+    }
+
+    void read(Entry entry, byte[] buffer) throws IOException {
+      final ByteBuffer target = ByteBuffer.wrap(buffer, 0, entry.length);
+      long position = entry.position;
+      while (target.hasRemaining()) {
+        final int read = this.channel.read(target, position);
+        if (read < 0) {
+          throw new EOFException(String.format("Spill segment %s ended at %s.", this.file, position));
+        }
+        position += read;
+      }
+    }
+
+    void delete() {
+      try {
+        this.channel.close();
+      } catch (IOException e) {
+        log.warn("Exception thrown while closing spill segment {}.", this.file, e);
+      }
+      if (!this.file.delete()) {
+        log.warn("Could not delete spill segment {}.", this.file);
+      }
+    }
+  }
+
+  final File directory;
+  final int segmentBytes;
+  final int maxSegments;
+  final List<Segment> segments = new ArrayList<>();
+  Segment active;
+  int sequence;
+  int entries;
+  long bytes;
+
+  SpillLog(SplunkHttpSinkConnectorConfig config) {
+    this(
+        new File(config.spillPath),
+        Math.max(config.spillSegmentBytes, config.batchMaxBytes),
+        config.spillMaxBytes
+    );
+  }
+
+  SpillLog(File parent, int segmentBytes, long maxBytes) {
+    this.directory = new File(parent, String.format("splunk-spill-%s", UUID.randomUUID()));
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes));
+    if (!this.directory.mkdirs()) {
+      throw new ConnectException(
+          String.format("Could not create spill directory %s.", this.directory.getAbsolutePath())
+      );
+    }
+    log.info("Spilling to {} with {} segment(s) of {} bytes.", this.directory, this.maxSegments, this.segmentBytes);
+  }
+
+  /**
+   * Method is used to append a body to the log.
+   *
+   * @param buffer array holding the body.
+   * @param length length of the body.
+   * @return location of the body or null if the log is full.
+   */
+  synchronized Entry append(byte[] buffer, int length) {
+    if (length > this.segmentBytes) {
+      return null;
+    }
+    if (null == this.active || this.segmentBytes - this.active.position < length) {
+      if (!roll()) {
+        return null;
+      }
+    }
+    final Segment segment = this.active;
+    try {
+      segment.write(buffer, length);
+    } catch (IOException e) {
+      log.error("Exception thrown while writing to spill segment {}.", segment.file, e);
+      return null;
+    }
+    final Entry entry = new Entry(segment, segment.position, length);
+    segment.position += length;
+    segment.live++;
+    this.entries++;
+    this.bytes += length;
+    return entry;
+  }
+
+  private boolean roll() {
+    if (null != this.active && 0 == this.active.live) {
+      this.active.position = 0;
+      return true;
+    }
+    if (this.segments.size() >= this.maxSegments) {
+      return false;
+    }
+    final File file = new File(this.directory, String.format("%020d.segment", this.sequence++));
+    try {
+      this.active = new Segment(file);
+    } catch (IOException e) {
+      log.error("Exception thrown while creating spill segment {}.", file, e);
+      return false;
+    }
+    this.segments.add(this.active);
+    return true;
+  }
+
+  /**
+   * Method is used to copy a body out of the log and remove it.
+   *
+   * @param entry  location of the body.
+   * @param buffer array to copy the body to. Must be at least {@link Entry#length} long.
+   */
+  synchronized void read(Entry entry, byte[] buffer) {
+    try {
+      entry.segment.read(entry, buffer);
+    } catch (IOException e) {
+      throw new ConnectException(
+          String.format("Exception thrown while reading from spill segment %s.", entry.segment.file), e
+      );
+    } finally {
+      release(entry);
+    }
+  }
+
+  /**
+   * Method is used to remove a body from the log without reading it.
+   *
+   * @param entry location of the body.
+   */
+  synchronized void release(Entry entry) {
+    final Segment segment = entry.segment;
+    segment.live--;
+    this.entries--;
+    this.bytes -= entry.length;
+    if (0 == segment.live && segment != this.active) {
+      this.segments.remove(segment);
+      segment.delete();
+    }
+  }
+
+  /**
+   * @return true if the log has room for a body of the supplied length.
+   */
+  synchronized boolean hasRoom(int length) {
+    if (length > this.segmentBytes) {
+      return false;
+    }
+    if (this.segments.size() < this.maxSegments) {
+      return true;
+    }
+    return null != this.active && (this.segmentBytes - this.active.position >= length || 0 == this.active.live);
+  }
+
+  synchronized int entries() {
+    return this.entries;
+  }
+
+  synchronized long bytes() {
+    return this.bytes;
+  }
+
+  @Override
+  public synchronized void close() {
+    for (Segment segment : this.segments) {
+      segment.delete();
+    }
+    this.segments.clear();
+    this.active = null;
+    if (!this.directory.delete()) {
+      log.warn("Could not delete spill directory {}.", this.directory);
+    }
+  }
+}
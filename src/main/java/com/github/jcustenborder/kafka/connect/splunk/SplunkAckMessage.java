@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.util.Key;
+import com.google.common.base.MoreObjects;
+
+import java.util.Map;
+
+/**
+ * Response returned by the /services/collector/ack endpoint.
+ */
+public class SplunkAckMessage {
+  @Key("acks")
+  Map<String, Boolean> acks;
+
+  public Map<String, Boolean> acks() {
+    return this.acks;
+  }
+
+  public void acks(Map<String, Boolean> acks) {
+    this.acks = acks;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("acks", this.acks)
+        .toString();
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.GenericUrl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single Http Event Collector the sink can write to along with the state used to balance requests across the
+ * collectors.
+ */
+class SplunkEndpoint {
+  final String host;
+  final int port;
+  final int weight;
+  final GenericUrl eventCollectorUrl;
+  final GenericUrl ackUrl;
+  final GenericUrl healthUrl;
+  final GenericUrl rawUrl;
+  final Map<String, GenericUrl> rawUrls = new ConcurrentHashMap<>();
+  final AtomicInteger outstanding = new AtomicInteger();
+  int currentWeight;
+  int consecutiveFailures;
+  boolean ejected;
+  long probeAfterMs;
+
+  SplunkEndpoint(String host, int port, int weight, boolean ssl, String channel) {
+    this.host = host;
+    this.port = port;
+    this.weight = weight;
+
+    this.eventCollectorUrl = new GenericUrl();
+    this.eventCollectorUrl.setScheme(ssl ? "https" : "http");
+    this.eventCollectorUrl.setHost(host.indexOf(':') >= 0 ? "[" + host + "]" : host);
+    this.eventCollectorUrl.setPort(port);
+    this.eventCollectorUrl.setRawPath("/services/collector/event");
+
+    this.ackUrl = this.eventCollectorUrl.clone();
+    this.ackUrl.setRawPath("/services/collector/ack");
+    this.ackUrl.put("channel", channel);
+
+    this.rawUrl = this.eventCollectorUrl.clone();
+    this.rawUrl.setRawPath("/services/collector/raw");
+    this.rawUrl.put("channel", channel);
+
+    this.healthUrl = this.eventCollectorUrl.clone();
+    this.healthUrl.setRawPath("/services/collector/health");
+  }
+
+  /**
+   * Method returns the url a batch is posted to.
+   *
+   * @param batch batch to post.
+   * @return raw url with the query parameters for the topic or the event url.
+   */
+  GenericUrl url(SinkRecordBatch batch) {
+    if (!batch.raw()) {
+      return this.eventCollectorUrl;
+    }
+    return this.rawUrls.computeIfAbsent(batch.topicPartition.topic(), topic -> {
+      GenericUrl url = this.rawUrl.clone();
+      url.putAll(batch.rawParameters);
+      return url;
+    });
+  }
+
+  /**
+   * Method is used to build the endpoints from the configuration. Hosts can be in the form of `host`, `host:port`,
+   * or `[ipv6]:port`.
+   *
+   * @param config  configuration for the sink.
+   * @param channel channel used for indexer acknowledgement and the raw endpoint.
+   * @return endpoints in the order they were configured.
+   */
+  static List<SplunkEndpoint> endpoints(SplunkHttpSinkConnectorConfig config, String channel) {
+    List<SplunkEndpoint> result = new ArrayList<>(config.splunkHosts.size());
+    for (int i = 0; i < config.splunkHosts.size(); i++) {
+      String entry = config.splunkHosts.get(i).trim();
+      String host = entry;
+      int port = config.splunkPort;
+
+      int portIndex = -1;
+      if (entry.startsWith("[")) {
+        int end = entry.indexOf(']');
+        host = entry.substring(1, end);
+        if (entry.length() > end + 1 && entry.charAt(end + 1) == ':') {
+          portIndex = end + 1;
+        }
+      } else if (entry.indexOf(':') == entry.lastIndexOf(':')) {
+        portIndex = entry.indexOf(':');
+        if (portIndex > 0) {
+          host = entry.substring(0, portIndex);
+        }
+      }
+
+      if (portIndex > 0) {
+        try {
+          port = Integer.parseInt(entry.substring(portIndex + 1));
+        } catch (NumberFormatException ex) {
+          throw new IllegalStateException(
+              String.format("Port for '%s' in %s is not a number.", entry, SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF),
+              ex
+          );
+        }
+      }
+
+      result.add(new SplunkEndpoint(host, port, config.splunkWeights.get(i), config.ssl, channel));
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return this.host + ":" + this.port;
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.common.utils.SystemTime;
+import org.apache.kafka.common.utils.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Spreads requests across the configured endpoints. An endpoint that fails a number of requests in a row is taken out
+ * of use. Once the ejection time has passed the endpoint is checked with the health check on a background thread and
+ * it is used again when the check passes.
+ */
+class SplunkEndpointSelector implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(SplunkEndpointSelector.class);
+
+  enum Strategy {
+    LEAST_OUTSTANDING,
+    ROUND_ROBIN
+  }
+
+  final List<SplunkEndpoint> endpoints;
+  final Strategy strategy;
+  final int ejectionThreshold;
+  final long ejectionMs;
+  final Predicate<SplunkEndpoint> healthCheck;
+  final ScheduledExecutorService scheduledExecutorService;
+  Time time = new SystemTime();
+  int next;
+
+  SplunkEndpointSelector(SplunkHttpSinkConnectorConfig config, List<SplunkEndpoint> endpoints, Predicate<SplunkEndpoint> healthCheck) {
+    this.endpoints = endpoints;
+    this.strategy = Strategy.valueOf(config.loadBalancingStrategy);
+    this.ejectionThreshold = config.endpointEjectionThreshold;
+    this.ejectionMs = config.endpointEjection;
+    this.healthCheck = healthCheck;
+    this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("splunk-health-check-%d")
+            .setDaemon(true)
+            .build()
+    );
+    this.scheduledExecutorService.scheduleWithFixedDelay(
+        this::probe,
+        config.endpointHealthCheckInterval,
+        config.endpointHealthCheckInterval,
+        TimeUnit.MILLISECONDS
+    );
+    log.info("Using {} endpoint(s) with the {} strategy. {}", endpoints.size(), this.strategy, endpoints);
+  }
+
+  /**
+   * Method is used to select the endpoint for the next request. The caller must report the outcome of the request
+   * with {@link #success(SplunkEndpoint)} or {@link #failure(SplunkEndpoint)}.
+   *
+   * @return endpoint to send the request to.
+   * @throws SplunkUnavailableException if every endpoint has been taken out of use.
+   */
+  synchronized SplunkEndpoint select() {
+    final SplunkEndpoint result;
+    switch (this.strategy) {
+      case ROUND_ROBIN:
+        result = selectRoundRobin();
+        break;
+      default:
+        result = selectLeastOutstanding();
+        break;
+    }
+
+    if (null == result) {
+      long probeAfterMs = Long.MAX_VALUE;
+      for (SplunkEndpoint endpoint : this.endpoints) {
+        probeAfterMs = Math.min(probeAfterMs, endpoint.probeAfterMs);
+      }
+      throw new SplunkUnavailableException(
+          String.format("All %s endpoint(s) are unhealthy. %s", this.endpoints.size(), this.endpoints),
+          Math.max(0L, probeAfterMs - this.time.milliseconds())
+      );
+    }
+
+    result.outstanding.incrementAndGet();
+    return result;
+  }
+
+  /**
+   * Smooth weighted round robin. Every healthy endpoint has its weight added to its current weight and the endpoint
+   * with the highest current weight is selected and has the total weight subtracted.
+   */
+  private SplunkEndpoint selectRoundRobin() {
+    SplunkEndpoint result = null;
+    int total = 0;
+    for (SplunkEndpoint endpoint : this.endpoints) {
+      if (endpoint.ejected) {
+        continue;
+      }
+      endpoint.currentWeight += endpoint.weight;
+      total += endpoint.weight;
+      if (null == result || endpoint.currentWeight > result.currentWeight) {
+        result = endpoint;
+      }
+    }
+    if (null != result) {
+      result.currentWeight -= total;
+    }
+    return result;
+  }
+
+  /**
+   * Selects the healthy endpoint with the fewest outstanding requests relative to its weight. Ties are broken by
+   * rotating the starting point so idle endpoints share the load.
+   */
+  private SplunkEndpoint selectLeastOutstanding() {
+    SplunkEndpoint result = null;
+    double lowest = Double.MAX_VALUE;
+    final int size = this.endpoints.size();
+    final int start = this.next;
+    this.next = (this.next + 1) % size;
+    for (int i = 0; i < size; i++) {
+      SplunkEndpoint endpoint = this.endpoints.get((start + i) % size);
+      if (endpoint.ejected) {
+        continue;
+      }
+      double load = (endpoint.outstanding.get() + 1D) / endpoint.weight;
+      if (load < lowest) {
+        lowest = load;
+        result = endpoint;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Method is called when an endpoint responded to a request.
+   *
+   * @param endpoint endpoint the request was sent to.
+   */
+  synchronized void success(SplunkEndpoint endpoint) {
+    endpoint.outstanding.decrementAndGet();
+    endpoint.consecutiveFailures = 0;
+  }
+
+  /**
+   * Method is called when a request to an endpoint failed with an error or timed out.
+   *
+   * @param endpoint endpoint the request was sent to.
+   */
+  synchronized void failure(SplunkEndpoint endpoint) {
+    endpoint.outstanding.decrementAndGet();
+    endpoint.consecutiveFailures++;
+    if (!endpoint.ejected && endpoint.consecutiveFailures >= this.ejectionThreshold) {
+      log.warn(
+          "Endpoint {} failed {} request(s) in a row. Not using it for at least {} ms.",
+          endpoint,
+          endpoint.consecutiveFailures,
+          this.ejectionMs
+      );
+      eject(endpoint);
+    }
+  }
+
+  private void eject(SplunkEndpoint endpoint) {
+    endpoint.ejected = true;
+    endpoint.probeAfterMs = this.time.milliseconds() + this.ejectionMs;
+  }
+
+  void probe() {
+    final List<SplunkEndpoint> candidates = new ArrayList<>();
+    synchronized (this) {
+      final long now = this.time.milliseconds();
+      for (SplunkEndpoint endpoint : this.endpoints) {
+        if (endpoint.ejected && now >= endpoint.probeAfterMs) {
+          candidates.add(endpoint);
+        }
+      }
+    }
+
+    for (SplunkEndpoint endpoint : candidates) {
+      boolean healthy;
+      try {
+        healthy = this.healthCheck.test(endpoint);
+      } catch (RuntimeException ex) {
+        log.debug("Exception thrown while checking the health of {}.", endpoint, ex);
+        healthy = false;
+      }
+
+      synchronized (this) {
+        if (healthy) {
+          log.info("Endpoint {} passed the health check. Using it again.", endpoint);
+          endpoint.ejected = false;
+          endpoint.consecutiveFailures = 0;
+          endpoint.currentWeight = 0;
+        } else {
+          log.warn("Endpoint {} failed the health check.", endpoint);
+          eject(endpoint);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    this.scheduledExecutorService.shutdownNow();
+  }
+}
@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,7 +55,9 @@ public class SplunkHttpSinkConnector extends SinkConnector {
   public List<Map<String, String>> taskConfigs(int maxTasks) {
     List<Map<String, String>> configs = new ArrayList<>();
     for (int i = 0; i < maxTasks; i++) {
-      configs.add(this.settings);
+      Map<String, String> taskSettings = new LinkedHashMap<>(this.settings);
+      taskSettings.put(SplunkHttpSinkConnectorConfig.TASK_ID_CONF, Integer.toString(i));
+      configs.add(taskSettings);
     }
     return configs;
   }
@@ -16,12 +16,22 @@
 package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import org.apache.kafka.common.config.AbstractConfig;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigDef.Importance;
 import org.apache.kafka.common.config.ConfigDef.Type;
+import org.apache.kafka.common.config.ConfigException;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 
 public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
@@ -36,10 +46,65 @@ public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
   public static final String CONNECT_TIMEOUT_CONF = "splunk.connect.timeout.ms";
   public static final String READ_TIMEOUT_CONF = "splunk.read.timeout.ms";
   public static final String CURL_LOGGING_ENABLED_CONF = "splunk.curl.logging.enabled";
+  public static final String BATCH_MAX_BYTES_CONF = "splunk.batch.max.bytes";
+  public static final String SENDER_MAX_QUEUED_BATCHES_CONF = "splunk.sender.max.queued.batches";
+  public static final String SENDER_TIMEOUT_CONF = "splunk.sender.timeout.ms";
+  public static final String RETRY_BACKOFF_CONF = "splunk.retry.backoff.ms";
+  public static final String RETRY_BACKOFF_MAX_CONF = "splunk.retry.backoff.max.ms";
+  public static final String RETRY_BACKOFF_JITTER_CONF = "splunk.retry.backoff.jitter";
+  public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF = "splunk.circuit.breaker.failure.threshold";
+  public static final String MAX_RETRIES_CONF = "splunk.max.retries";
+  public static final String SPILL_ENABLED_CONF = "splunk.spill.enabled";
+  public static final String SPILL_PATH_CONF = "splunk.spill.path";
+  public static final String SPILL_MAX_BYTES_CONF = "splunk.spill.max.bytes";
+  public static final String SPILL_SEGMENT_BYTES_CONF = "splunk.spill.segment.bytes";
+  public static final String DEAD_LETTER_TOPIC_CONF = "splunk.dead.letter.topic";
+  public static final String DEAD_LETTER_PRODUCER_PREFIX = "splunk.dead.letter.producer.";
+  public static final String DEAD_LETTER_PATH_CONF = "splunk.dead.letter.path";
+  public static final String DEAD_LETTER_FILE_MAX_BYTES_CONF = "splunk.dead.letter.file.max.bytes";
+  public static final String DEAD_LETTER_MAX_FILES_CONF = "splunk.dead.letter.max.files";
+  /**
+   * Added to the settings of each task by {@link SplunkHttpSinkConnector#taskConfigs(int)}. Not a user setting.
+   */
+  static final String TASK_ID_CONF = "splunk.task.id";
+  static final String NAME_CONF = "name";
+  public static final String MAX_IN_FLIGHT_REQUESTS_CONF = "splunk.max.in.flight.requests";
+  public static final String ACK_ENABLED_CONF = "splunk.ack.enabled";
+  public static final String ACK_POLL_INTERVAL_CONF = "splunk.ack.poll.interval.ms";
+  public static final String ACK_TIMEOUT_CONF = "splunk.ack.timeout.ms";
+  public static final String TRANSPORT_FACTORY_CONF = "splunk.http.transport.factory";
+  public static final String HTTP_MAX_CONNECTIONS_CONF = "splunk.http.max.connections";
+  public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_CONF = "splunk.http.max.connections.per.route";
+  public static final String HTTP_KEEP_ALIVE_CONF = "splunk.http.keep.alive.ms";
+  public static final String HTTP_IDLE_TIMEOUT_CONF = "splunk.http.idle.timeout.ms";
+  public static final String REMOTE_WEIGHTS_CONF = "splunk.remote.weights";
+  public static final String LOAD_BALANCING_STRATEGY_CONF = "splunk.load.balancing.strategy";
+  public static final String ENDPOINT_EJECTION_THRESHOLD_CONF = "splunk.endpoint.ejection.threshold";
+  public static final String ENDPOINT_EJECTION_CONF = "splunk.endpoint.ejection.ms";
+  public static final String ENDPOINT_HEALTH_CHECK_INTERVAL_CONF = "splunk.endpoint.health.check.interval.ms";
+  public static final String COMPRESSION_ENABLED_CONF = "splunk.compression.enabled";
+  public static final String COMPRESSION_LEVEL_CONF = "splunk.compression.level";
+  public static final String COMPRESSION_MIN_BYTES_CONF = "splunk.compression.min.bytes";
+  public static final String RAW_TOPICS_CONF = "splunk.raw.topics";
+  public static final String PASSTHROUGH_TOPICS_CONF = "splunk.passthrough.topics";
+  public static final String PASSTHROUGH_VALIDATE_CONF = "splunk.passthrough.validate";
+  public static final String BATCH_MAX_RECORDS_CONF = "splunk.batch.max.records";
+  public static final String ADAPTIVE_BATCH_ENABLED_CONF = "splunk.batch.adaptive.enabled";
+  public static final String ADAPTIVE_BATCH_MIN_BYTES_CONF = "splunk.batch.adaptive.min.bytes";
+  public static final String ADAPTIVE_LATENCY_CONF = "splunk.batch.adaptive.latency.ms";
+  public static final String RATE_LIMIT_EVENTS_CONF = "splunk.rate.limit.events.per.sec";
+  public static final String RATE_LIMIT_BYTES_CONF = "splunk.rate.limit.bytes.per.sec";
+  public static final String RATE_LIMIT_INDEX_PREFIX = "splunk.rate.limit.index.";
+  static final String EVENTS_PER_SEC_SUFFIX = ".events.per.sec";
+  static final String BYTES_PER_SEC_SUFFIX = ".bytes.per.sec";
+  public static final String RAW_TOPIC_PREFIX = "splunk.raw.topic.";
+  static final Set<String> RAW_PARAMETERS = ImmutableSet.of("index", "sourcetype", "source", "host");
 
   static final String AUTHORIZATION_TOKEN_DOC = "The authorization token to use when writing data to splunk.";
-  static final String REMOTE_PORT_DOC = "Port on the remote splunk server to write to.";
-  static final String REMOTE_HOST_DOC = "The hostname of the remote splunk host to write data do.";
+  static final String REMOTE_PORT_DOC = "Port on the remote splunk server to write to. Used for the hosts in `" +
+      REMOTE_HOST_CONF + "` that do not specify a port.";
+  static final String REMOTE_HOST_DOC = "The hostnames of the remote splunk hosts to write data to. Each entry is in the " +
+      "form of `host` or `host:port`. Requests are spread across the hosts based on `" + LOAD_BALANCING_STRATEGY_CONF + "`.";
   static final String SSL_DOC = "Flag to determine if the connection to splunk should be over ssl.";
   static final String SSL_VALIDATE_CERTIFICATES_DOC = "Flag to determine if ssl connections should validate the certificate" +
       "of the remote host.";
@@ -50,9 +115,135 @@ public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
       "or 0 for an infinite timeout.";
   static final String CURL_LOGGING_ENABLED_DOC = "Flag to determine if requests to Splunk should be logged in curl form." +
       " This will output a curl command to replicate the call to Splunk.";
+  static final String BATCH_MAX_BYTES_DOC = "The maximum number of bytes of serialized event data to post to Splunk in a " +
+      "single request. The records passed to the task are split into as many requests as needed to stay under this " +
+      "limit. This should be lower than the `max_content_length` configured on the Splunk Http Event Collector.";
+  static final String SENDER_MAX_QUEUED_BATCHES_DOC = "The maximum number of batches that can be waiting to be " +
+      "delivered to Splunk by the background sender. Once this is reached put() will wait for batches to be delivered. " +
+      "Batches moved to the spill log only keep their offsets in memory and are not counted.";
+  static final String SENDER_TIMEOUT_DOC = "The maximum amount of time in milliseconds put() will wait for room in the " +
+      "sender queue and flush() will wait for outstanding batches to be delivered before a retriable exception is thrown.";
+  static final String RETRY_BACKOFF_DOC = "The amount of time in milliseconds to wait before retrying a batch that " +
+      "could not be delivered to Splunk. The wait doubles with each attempt up to `" + RETRY_BACKOFF_MAX_CONF + "`.";
+  static final String RETRY_BACKOFF_MAX_DOC = "The maximum amount of time in milliseconds to wait before retrying a " +
+      "batch or sending a probe request to Splunk while the circuit breaker is open.";
+  static final String RETRY_BACKOFF_JITTER_DOC = "The largest fraction of the retry backoff that is randomly taken " +
+      "off so tasks that failed at the same time do not retry at the same time. 0 disables jitter.";
+  static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD_DOC = "The number of consecutive requests that fail because " +
+      "Splunk could not be reached or returned a server error before the task stops sending. While stopped put() " +
+      "backs off with `SinkTaskContext.timeout()`. After the backoff a single request is sent as a probe and traffic " +
+      "resumes once it succeeds. A Retry-After returned by Splunk is honoured. 0 disables the circuit breaker.";
+  static final String SPILL_ENABLED_DOC = "Flag to determine if batches should be written to local disk while the " +
+      "circuit breaker is open. put() keeps accepting records until `" + SPILL_MAX_BYTES_CONF + "` is reached and the " +
+      "spilled batches are sent in order once Splunk is available. Offsets are only committed once the spilled " +
+      "batches are delivered. The spilled data is not kept across restarts.";
+  static final String SPILL_PATH_DOC = "Local directory for spilled batches. Each task writes to its own subdirectory " +
+      "which is deleted when the task stops.";
+  static final String SPILL_MAX_BYTES_DOC = "The maximum number of bytes of spilled batches each task keeps on disk.";
+  static final String SPILL_SEGMENT_BYTES_DOC = "The size in bytes of each spill file. Raised to `" +
+      BATCH_MAX_BYTES_CONF + "` if it is smaller.";
+  static final String DEAD_LETTER_TOPIC_DOC = "Kafka topic to write records to when Splunk rejects the data in them, " +
+      "for example because of an invalid index or a missing event field. These records can never be indexed so they " +
+      "are not retried. The error from Splunk is added to the `" + KafkaDeadLetterQueue.ERROR_HEADER + "` header. " +
+      "The producer is configured with the settings prefixed with `" + DEAD_LETTER_PRODUCER_PREFIX + "`, which must " +
+      "include `bootstrap.servers`. If empty, records are written to `" + DEAD_LETTER_PATH_CONF + "`.";
+  static final String DEAD_LETTER_PATH_DOC = "Local directory to write records to when Splunk rejects the data in them " +
+      "and `" + DEAD_LETTER_TOPIC_CONF + "` is not set. Each record is written as a line of json along with the error " +
+      "from Splunk. Each task writes to its own files, named after the connector and the task. Defaults to " +
+      "`splunk-dead-letter` in the temp directory of the worker. If set to an empty string, rejected records are " +
+      "only logged.";
+  static final String DEAD_LETTER_FILE_MAX_BYTES_DOC = "The size in bytes at which a new dead letter file is started.";
+  static final String DEAD_LETTER_MAX_FILES_DOC = "The number of dead letter files each task keeps. The oldest file is " +
+      "deleted when a new file is started.";
+  static final String MAX_RETRIES_DOC = "The number of times a batch is retried before the partition it belongs to is " +
+      "rewound to the first offset that was not delivered. Other partitions are not affected.";
+  static final String MAX_IN_FLIGHT_REQUESTS_DOC = "The maximum number of requests the task will have outstanding to " +
+      "Splunk at once. Batches for different topic partitions are sent in parallel while batches for the same " +
+      "partition are always delivered in order.";
+  static final String ACK_ENABLED_DOC = "Flag to determine if indexer acknowledgement should be used. When enabled each " +
+      "task sends its requests on its own channel and offsets are only committed once Splunk reports the events as " +
+      "indexed. Indexer acknowledgement must be enabled on the token.";
+  static final String ACK_POLL_INTERVAL_DOC = "The amount of time in milliseconds between requests to Splunk for the " +
+      "status of outstanding acknowledgements. All outstanding acknowledgements are checked in a single request.";
+  static final String ACK_TIMEOUT_DOC = "The amount of time in milliseconds to wait for a batch to be acknowledged " +
+      "before the partition is rewound and the batch is sent again.";
+  static final String TRANSPORT_FACTORY_DOC = "The class used to create the http transport. `" +
+      NetHttpTransportFactory.class.getName() + "` uses java.net.HttpURLConnection. `" +
+      PooledHttpTransportFactory.class.getName() + "` uses a pool of persistent connections that can be tuned with the " +
+      "`splunk.http.*` settings.";
+  static final String HTTP_MAX_CONNECTIONS_DOC = "The maximum number of connections in the pool. Only used by the " +
+      "pooled transport.";
+  static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_DOC = "The maximum number of connections in the pool to a single " +
+      "Splunk host. Only used by the pooled transport.";
+  static final String HTTP_KEEP_ALIVE_DOC = "The maximum amount of time in milliseconds a connection is kept alive for " +
+      "reuse. A shorter keep alive sent by Splunk takes precedence. Only used by the pooled transport.";
+  static final String HTTP_IDLE_TIMEOUT_DOC = "The amount of time in milliseconds a pooled connection can be idle before " +
+      "it is closed. Only used by the pooled transport.";
+  static final String REMOTE_WEIGHTS_DOC = "The relative weight of each host in `" + REMOTE_HOST_CONF + "`. If set, " +
+      "there must be one entry per host. If empty every host has a weight of 1.";
+  static final String LOAD_BALANCING_STRATEGY_DOC = "The strategy used to select the host for a request. " +
+      "`LEAST_OUTSTANDING` selects the host with the fewest outstanding requests relative to its weight. " +
+      "`ROUND_ROBIN` rotates through the hosts in proportion to their weight.";
+  static final String ENDPOINT_EJECTION_THRESHOLD_DOC = "The number of consecutive errors or timeouts after which a " +
+      "host is no longer used.";
+  static final String ENDPOINT_EJECTION_DOC = "The amount of time in milliseconds a host that was taken out of use " +
+      "waits before it is checked with `/services/collector/health`.";
+  static final String ENDPOINT_HEALTH_CHECK_INTERVAL_DOC = "The interval in milliseconds for checking the health of " +
+      "hosts that were taken out of use. A host is used again once the health check is successful.";
+  static final String COMPRESSION_ENABLED_DOC = "Flag to determine if request bodies should be gzipped.";
+  static final String COMPRESSION_LEVEL_DOC = "The gzip compression level from 1 (fastest) to 9 (smallest). -1 uses the " +
+      "default level of the JVM.";
+  static final String COMPRESSION_MIN_BYTES_DOC = "Request bodies smaller than this number of bytes are sent " +
+      "uncompressed.";
+  static final String BATCH_MAX_RECORDS_DOC = "The maximum number of records in a single request to Splunk.";
+  static final String ADAPTIVE_BATCH_ENABLED_DOC = "Flag to determine if the size of a batch should adapt to how Splunk " +
+      "is responding. The target size starts at `" + ADAPTIVE_BATCH_MIN_BYTES_CONF + "` and grows towards `" +
+      BATCH_MAX_BYTES_CONF + "` and `" + BATCH_MAX_RECORDS_CONF + "` while requests complete within `" +
+      ADAPTIVE_LATENCY_CONF + "`. It is cut in half when Splunk is busy or a request times out. A request that is too " +
+      "large is split and the target is lowered to half its size. A single record that is too large fails the task.";
+  static final String ADAPTIVE_BATCH_MIN_BYTES_DOC = "The smallest target size in bytes when adaptive batch sizing is " +
+      "enabled.";
+  static final String ADAPTIVE_LATENCY_DOC = "Requests that complete within this many milliseconds grow the target " +
+      "batch size when adaptive batch sizing is enabled.";
+  static final String RATE_LIMIT_EVENTS_DOC = "The maximum number of events per second the task writes to Splunk. " +
+      "Partitions are paused while the limit is exceeded. 0 disables the limit. Limits for a single index can be set " +
+      "with `" + RATE_LIMIT_INDEX_PREFIX + "<index>" + EVENTS_PER_SEC_SUFFIX + "`.";
+  static final String RATE_LIMIT_BYTES_DOC = "The maximum number of uncompressed bytes per second the task writes to " +
+      "Splunk. Partitions are paused while the limit is exceeded. 0 disables the limit. Limits for a single index can " +
+      "be set with `" + RATE_LIMIT_INDEX_PREFIX + "<index>" + BYTES_PER_SEC_SUFFIX + "`.";
+  static final String RAW_TOPICS_DOC = "Topics whose records are written to `/services/collector/raw` instead of " +
+      "`/services/collector/event`. The value of each record is written as is, one record per line, without a json " +
+      "envelope. The index, sourcetype, source and host for a topic are set with `" + RAW_TOPIC_PREFIX +
+      "<topic>.index`, `" + RAW_TOPIC_PREFIX + "<topic>.sourcetype`, `" + RAW_TOPIC_PREFIX + "<topic>.source` and `" +
+      RAW_TOPIC_PREFIX + "<topic>.host`.";
+  static final String PASSTHROUGH_TOPICS_DOC = "Topics whose records already contain a complete Http Event Collector " +
+      "event. String and byte array values are copied into the request as is, without being parsed or re-encoded. " +
+      "Values of any other type are serialized as usual.";
+  static final String PASSTHROUGH_VALIDATE_DOC = "Flag to determine if the values of `" + PASSTHROUGH_TOPICS_CONF +
+      "` are checked to be a json object before they are sent. Values that are not are written to the dead letter " +
+      "queue, or fail the task if a dead letter queue is not configured.";
   public final String authToken;
   public final int splunkPort;
-  public final String splunkHost;
+  public final List<String> splunkHosts;
+  public final List<Integer> splunkWeights;
+  public final String loadBalancingStrategy;
+  public final int endpointEjectionThreshold;
+  public final int endpointEjection;
+  public final int endpointHealthCheckInterval;
+  public final boolean compressionEnabled;
+  public final int compressionLevel;
+  public final int compressionMinBytes;
+  public final Map<String, Map<String, String>> rawTopics;
+  public final Set<String> passthroughTopics;
+  public final boolean passthroughValidate;
+  public final int batchMaxRecords;
+  public final boolean adaptiveBatchEnabled;
+  public final int adaptiveBatchMinBytes;
+  public final int adaptiveLatency;
+  public final long rateLimitEvents;
+  public final long rateLimitBytes;
+  public final Map<String, Long> indexRateLimitEvents;
+  public final Map<String, Long> indexRateLimitBytes;
   public final boolean ssl;
   public final boolean validateCertificates;
   public final String trustStorePath;
@@ -61,11 +252,66 @@ public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
   public final int connectTimeout;
   public final int readTimeout;
   public final boolean curlLoggingEnabled;
+  public final int batchMaxBytes;
+  public final int senderMaxQueuedBatches;
+  public final int senderTimeout;
+  public final int retryBackoff;
+  public final int retryBackoffMax;
+  public final double retryBackoffJitter;
+  public final int circuitBreakerFailureThreshold;
+  public final int maxRetries;
+  public final boolean spillEnabled;
+  public final String spillPath;
+  public final long spillMaxBytes;
+  public final int spillSegmentBytes;
+  public final String deadLetterTopic;
+  public final String deadLetterPath;
+  public final long deadLetterFileMaxBytes;
+  public final int deadLetterMaxFiles;
+  public final String connectorName;
+  public final String taskId;
+  public final int maxInFlightRequests;
+  public final boolean ackEnabled;
+  public final int ackPollInterval;
+  public final int ackTimeout;
+  public final int httpMaxConnections;
+  public final int httpMaxConnectionsPerRoute;
+  public final int httpKeepAlive;
+  public final int httpIdleTimeout;
+
   public SplunkHttpSinkConnectorConfig(Map<String, String> parsedConfig) {
     super(conf(), parsedConfig);
     this.authToken = this.getPassword(AUTHORIZATION_TOKEN_CONF).value();
     this.splunkPort = this.getInt(REMOTE_PORT_CONF);
-    this.splunkHost = this.getString(REMOTE_HOST_CONF);
+    this.splunkHosts = this.getList(REMOTE_HOST_CONF);
+    this.splunkWeights = weights(this.splunkHosts, this.getList(REMOTE_WEIGHTS_CONF));
+    this.loadBalancingStrategy = this.getString(LOAD_BALANCING_STRATEGY_CONF);
+    this.endpointEjectionThreshold = this.getInt(ENDPOINT_EJECTION_THRESHOLD_CONF);
+    this.endpointEjection = this.getInt(ENDPOINT_EJECTION_CONF);
+    this.endpointHealthCheckInterval = this.getInt(ENDPOINT_HEALTH_CHECK_INTERVAL_CONF);
+    this.compressionEnabled = this.getBoolean(COMPRESSION_ENABLED_CONF);
+    this.compressionLevel = this.getInt(COMPRESSION_LEVEL_CONF);
+    this.compressionMinBytes = this.getInt(COMPRESSION_MIN_BYTES_CONF);
+    this.rawTopics = rawTopics(this.getList(RAW_TOPICS_CONF));
+    this.passthroughTopics = ImmutableSet.copyOf(this.getList(PASSTHROUGH_TOPICS_CONF));
+    this.passthroughValidate = this.getBoolean(PASSTHROUGH_VALIDATE_CONF);
+    for (String topic : this.passthroughTopics) {
+      if (this.rawTopics.containsKey(topic)) {
+        throw new ConfigException(
+            PASSTHROUGH_TOPICS_CONF,
+            topic,
+            String.format("Topic cannot also be listed in %s.", RAW_TOPICS_CONF)
+        );
+      }
+    }
+    this.batchMaxRecords = this.getInt(BATCH_MAX_RECORDS_CONF);
+    this.adaptiveBatchEnabled = this.getBoolean(ADAPTIVE_BATCH_ENABLED_CONF);
+    this.adaptiveBatchMinBytes = this.getInt(ADAPTIVE_BATCH_MIN_BYTES_CONF);
+    this.adaptiveLatency = this.getInt(ADAPTIVE_LATENCY_CONF);
+    this.rateLimitEvents = this.getLong(RATE_LIMIT_EVENTS_CONF);
+    this.rateLimitBytes = this.getLong(RATE_LIMIT_BYTES_CONF);
+    this.indexRateLimitEvents = indexRateLimits(EVENTS_PER_SEC_SUFFIX);
+    this.indexRateLimitBytes = indexRateLimits(BYTES_PER_SEC_SUFFIX);
     this.ssl = this.getBoolean(SSL_CONF);
     this.validateCertificates = this.getBoolean(SSL_VALIDATE_CERTIFICATES_CONF);
     this.trustStorePath = this.getString(SSL_TRUSTSTORE_PATH_CONF);
@@ -74,13 +320,131 @@ public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
     this.connectTimeout = this.getInt(CONNECT_TIMEOUT_CONF);
     this.readTimeout = this.getInt(READ_TIMEOUT_CONF);
     this.curlLoggingEnabled = this.getBoolean(CURL_LOGGING_ENABLED_CONF);
+    this.batchMaxBytes = this.getInt(BATCH_MAX_BYTES_CONF);
+    this.senderMaxQueuedBatches = this.getInt(SENDER_MAX_QUEUED_BATCHES_CONF);
+    this.senderTimeout = this.getInt(SENDER_TIMEOUT_CONF);
+    this.retryBackoff = this.getInt(RETRY_BACKOFF_CONF);
+    this.retryBackoffMax = this.getInt(RETRY_BACKOFF_MAX_CONF);
+    this.retryBackoffJitter = this.getDouble(RETRY_BACKOFF_JITTER_CONF);
+    this.circuitBreakerFailureThreshold = this.getInt(CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF);
+    this.maxRetries = this.getInt(MAX_RETRIES_CONF);
+    this.spillEnabled = this.getBoolean(SPILL_ENABLED_CONF);
+    this.spillPath = this.getString(SPILL_PATH_CONF);
+    this.spillMaxBytes = this.getLong(SPILL_MAX_BYTES_CONF);
+    this.spillSegmentBytes = this.getInt(SPILL_SEGMENT_BYTES_CONF);
+    this.deadLetterTopic = this.getString(DEAD_LETTER_TOPIC_CONF);
+    this.deadLetterPath = this.getString(DEAD_LETTER_PATH_CONF);
+    this.deadLetterFileMaxBytes = this.getLong(DEAD_LETTER_FILE_MAX_BYTES_CONF);
+    this.deadLetterMaxFiles = this.getInt(DEAD_LETTER_MAX_FILES_CONF);
+    this.connectorName = Objects.toString(this.originals().get(NAME_CONF), "");
+    this.taskId = Objects.toString(this.originals().get(TASK_ID_CONF), "0");
+    if (!Strings.isNullOrEmpty(this.deadLetterTopic) && !deadLetterProducerSettings().containsKey("bootstrap.servers")) {
+      throw new ConfigException(
+          DEAD_LETTER_PRODUCER_PREFIX + "bootstrap.servers",
+          null,
+          String.format("Must be set when %s is set.", DEAD_LETTER_TOPIC_CONF)
+      );
+    }
+    this.maxInFlightRequests = this.getInt(MAX_IN_FLIGHT_REQUESTS_CONF);
+    this.ackEnabled = this.getBoolean(ACK_ENABLED_CONF);
+    this.ackPollInterval = this.getInt(ACK_POLL_INTERVAL_CONF);
+    this.ackTimeout = this.getInt(ACK_TIMEOUT_CONF);
+    this.httpMaxConnections = this.getInt(HTTP_MAX_CONNECTIONS_CONF);
+    this.httpMaxConnectionsPerRoute = this.getInt(HTTP_MAX_CONNECTIONS_PER_ROUTE_CONF);
+    this.httpKeepAlive = this.getInt(HTTP_KEEP_ALIVE_CONF);
+    this.httpIdleTimeout = this.getInt(HTTP_IDLE_TIMEOUT_CONF);
+  }
+
+  Map<String, Map<String, String>> rawTopics(List<String> topics) {
+    Map<String, Map<String, String>> result = new HashMap<>(topics.size());
+    for (String topic : topics) {
+      Map<String, Object> settings = this.originalsWithPrefix(RAW_TOPIC_PREFIX + topic + ".");
+      Map<String, String> parameters = new TreeMap<>();
+      for (Map.Entry<String, Object> entry : settings.entrySet()) {
+        if (!RAW_PARAMETERS.contains(entry.getKey())) {
+          throw new ConfigException(
+              RAW_TOPIC_PREFIX + topic + "." + entry.getKey(),
+              entry.getValue(),
+              String.format("Only %s can be set for a raw topic.", RAW_PARAMETERS)
+          );
+        }
+        parameters.put(entry.getKey(), entry.getValue().toString());
+      }
+      result.put(topic, parameters);
+    }
+    return result;
+  }
+
+  Map<String, Long> indexRateLimits(String suffix) {
+    Map<String, Long> result = new HashMap<>();
+    for (Map.Entry<String, Object> entry : this.originalsWithPrefix(RATE_LIMIT_INDEX_PREFIX).entrySet()) {
+      final String key = entry.getKey();
+      if (!key.endsWith(EVENTS_PER_SEC_SUFFIX) && !key.endsWith(BYTES_PER_SEC_SUFFIX)) {
+        throw new ConfigException(
+            RATE_LIMIT_INDEX_PREFIX + key,
+            entry.getValue(),
+            String.format("Must end with %s or %s.", EVENTS_PER_SEC_SUFFIX, BYTES_PER_SEC_SUFFIX)
+        );
+      }
+      if (!key.endsWith(suffix)) {
+        continue;
+      }
+      final long limit;
+      try {
+        limit = Long.parseLong(entry.getValue().toString().trim());
+      } catch (NumberFormatException ex) {
+        throw new ConfigException(RATE_LIMIT_INDEX_PREFIX + key, entry.getValue(), "Must be a number.");
+      }
+      if (limit <= 0) {
+        throw new ConfigException(RATE_LIMIT_INDEX_PREFIX + key, entry.getValue(), "Must be greater than 0.");
+      }
+      result.put(key.substring(0, key.length() - suffix.length()), limit);
+    }
+    return result;
+  }
+
+  static List<Integer> weights(List<String> hosts, List<String> weights) {
+    if (hosts.isEmpty()) {
+      throw new ConfigException(REMOTE_HOST_CONF, hosts, "At least one host must be specified.");
+    }
+    if (weights.isEmpty()) {
+      return Collections.nCopies(hosts.size(), 1);
+    }
+    if (weights.size() != hosts.size()) {
+      throw new ConfigException(
+          REMOTE_WEIGHTS_CONF,
+          weights,
+          String.format("%s weight(s) were specified for %s host(s).", weights.size(), hosts.size())
+      );
+    }
+    List<Integer> result = new ArrayList<>(weights.size());
+    for (String weight : weights) {
+      final int value;
+      try {
+        value = Integer.parseInt(weight.trim());
+      } catch (NumberFormatException ex) {
+        throw new ConfigException(REMOTE_WEIGHTS_CONF, weights, String.format("'%s' is not a number.", weight));
+      }
+      if (value < 1) {
+        throw new ConfigException(REMOTE_WEIGHTS_CONF, weights, "Weights must be at least 1.");
+      }
+      result.add(value);
+    }
+    return result;
+  }
+
+  public Map<String, Object> deadLetterProducerSettings() {
+    return this.originalsWithPrefix(DEAD_LETTER_PRODUCER_PREFIX);
+  }
 
+  public SplunkHttpTransportFactory transportFactory() {
+    return this.getConfiguredInstance(TRANSPORT_FACTORY_CONF, SplunkHttpTransportFactory.class);
   }
 
   public static ConfigDef conf() {
     return new ConfigDef()
         .define(AUTHORIZATION_TOKEN_CONF, Type.PASSWORD, Importance.HIGH, AUTHORIZATION_TOKEN_DOC)
-        .define(REMOTE_HOST_CONF, Type.STRING, Importance.HIGH, REMOTE_HOST_DOC)
+        .define(REMOTE_HOST_CONF, Type.LIST, Importance.HIGH, REMOTE_HOST_DOC)
         .define(REMOTE_PORT_CONF, Type.INT, 8088, Importance.MEDIUM, REMOTE_PORT_DOC)
         .define(SSL_CONF, Type.BOOLEAN, true, Importance.HIGH, SSL_DOC)
         .define(SSL_VALIDATE_CERTIFICATES_CONF, Type.BOOLEAN, true, Importance.MEDIUM, SSL_VALIDATE_CERTIFICATES_DOC)
@@ -88,6 +452,50 @@ public class SplunkHttpSinkConnectorConfig extends AbstractConfig {
         .define(SSL_TRUSTSTORE_PASSWORD_CONF, Type.PASSWORD, "", Importance.HIGH, SSL_TRUSTSTORE_PASSWORD_DOC)
         .define(CONNECT_TIMEOUT_CONF, Type.INT, 20000, Importance.LOW, CONNECT_TIMEOUT_DOC)
         .define(READ_TIMEOUT_CONF, Type.INT, 30000, Importance.LOW, READ_TIMEOUT_DOC)
-        .define(CURL_LOGGING_ENABLED_CONF, Type.BOOLEAN, false, Importance.LOW, CURL_LOGGING_ENABLED_DOC);
+        .define(CURL_LOGGING_ENABLED_CONF, Type.BOOLEAN, false, Importance.LOW, CURL_LOGGING_ENABLED_DOC)
+        .define(BATCH_MAX_BYTES_CONF, Type.INT, 1000000, ConfigDef.Range.atLeast(1024), Importance.MEDIUM, BATCH_MAX_BYTES_DOC)
+        .define(SENDER_MAX_QUEUED_BATCHES_CONF, Type.INT, 10, ConfigDef.Range.atLeast(1), Importance.LOW, SENDER_MAX_QUEUED_BATCHES_DOC)
+        .define(SENDER_TIMEOUT_CONF, Type.INT, 30000, ConfigDef.Range.atLeast(0), Importance.LOW, SENDER_TIMEOUT_DOC)
+        .define(RETRY_BACKOFF_CONF, Type.INT, 1000, ConfigDef.Range.atLeast(0), Importance.LOW, RETRY_BACKOFF_DOC)
+        .define(MAX_RETRIES_CONF, Type.INT, 10, ConfigDef.Range.atLeast(0), Importance.LOW, MAX_RETRIES_DOC)
+        .define(MAX_IN_FLIGHT_REQUESTS_CONF, Type.INT, 5, ConfigDef.Range.atLeast(1), Importance.MEDIUM, MAX_IN_FLIGHT_REQUESTS_DOC)
+        .define(ACK_ENABLED_CONF, Type.BOOLEAN, false, Importance.MEDIUM, ACK_ENABLED_DOC)
+        .define(ACK_POLL_INTERVAL_CONF, Type.INT, 1000, ConfigDef.Range.atLeast(10), Importance.LOW, ACK_POLL_INTERVAL_DOC)
+        .define(ACK_TIMEOUT_CONF, Type.INT, 300000, ConfigDef.Range.atLeast(0), Importance.LOW, ACK_TIMEOUT_DOC)
+        .define(TRANSPORT_FACTORY_CONF, Type.CLASS, NetHttpTransportFactory.class, Importance.LOW, TRANSPORT_FACTORY_DOC)
+        .define(HTTP_MAX_CONNECTIONS_CONF, Type.INT, 200, ConfigDef.Range.atLeast(1), Importance.LOW, HTTP_MAX_CONNECTIONS_DOC)
+        .define(HTTP_MAX_CONNECTIONS_PER_ROUTE_CONF, Type.INT, 20, ConfigDef.Range.atLeast(1), Importance.LOW, HTTP_MAX_CONNECTIONS_PER_ROUTE_DOC)
+        .define(HTTP_KEEP_ALIVE_CONF, Type.INT, 60000, ConfigDef.Range.atLeast(0), Importance.LOW, HTTP_KEEP_ALIVE_DOC)
+        .define(HTTP_IDLE_TIMEOUT_CONF, Type.INT, 30000, ConfigDef.Range.atLeast(0), Importance.LOW, HTTP_IDLE_TIMEOUT_DOC)
+        .define(REMOTE_WEIGHTS_CONF, Type.LIST, "", Importance.LOW, REMOTE_WEIGHTS_DOC)
+        .define(LOAD_BALANCING_STRATEGY_CONF, Type.STRING, SplunkEndpointSelector.Strategy.LEAST_OUTSTANDING.name(),
+            ConfigDef.ValidString.in(SplunkEndpointSelector.Strategy.LEAST_OUTSTANDING.name(), SplunkEndpointSelector.Strategy.ROUND_ROBIN.name()),
+            Importance.LOW, LOAD_BALANCING_STRATEGY_DOC)
+        .define(ENDPOINT_EJECTION_THRESHOLD_CONF, Type.INT, 3, ConfigDef.Range.atLeast(1), Importance.LOW, ENDPOINT_EJECTION_THRESHOLD_DOC)
+        .define(ENDPOINT_EJECTION_CONF, Type.INT, 30000, ConfigDef.Range.atLeast(0), Importance.LOW, ENDPOINT_EJECTION_DOC)
+        .define(ENDPOINT_HEALTH_CHECK_INTERVAL_CONF, Type.INT, 5000, ConfigDef.Range.atLeast(100), Importance.LOW, ENDPOINT_HEALTH_CHECK_INTERVAL_DOC)
+        .define(COMPRESSION_ENABLED_CONF, Type.BOOLEAN, true, Importance.MEDIUM, COMPRESSION_ENABLED_DOC)
+        .define(COMPRESSION_LEVEL_CONF, Type.INT, -1, ConfigDef.Range.between(-1, 9), Importance.LOW, COMPRESSION_LEVEL_DOC)
+        .define(COMPRESSION_MIN_BYTES_CONF, Type.INT, 1024, ConfigDef.Range.atLeast(0), Importance.LOW, COMPRESSION_MIN_BYTES_DOC)
+        .define(RAW_TOPICS_CONF, Type.LIST, "", Importance.MEDIUM, RAW_TOPICS_DOC)
+        .define(PASSTHROUGH_TOPICS_CONF, Type.LIST, "", Importance.MEDIUM, PASSTHROUGH_TOPICS_DOC)
+        .define(PASSTHROUGH_VALIDATE_CONF, Type.BOOLEAN, false, Importance.LOW, PASSTHROUGH_VALIDATE_DOC)
+        .define(BATCH_MAX_RECORDS_CONF, Type.INT, 10000, ConfigDef.Range.atLeast(1), Importance.MEDIUM, BATCH_MAX_RECORDS_DOC)
+        .define(ADAPTIVE_BATCH_ENABLED_CONF, Type.BOOLEAN, false, Importance.MEDIUM, ADAPTIVE_BATCH_ENABLED_DOC)
+        .define(ADAPTIVE_BATCH_MIN_BYTES_CONF, Type.INT, 65536, ConfigDef.Range.atLeast(1024), Importance.LOW, ADAPTIVE_BATCH_MIN_BYTES_DOC)
+        .define(ADAPTIVE_LATENCY_CONF, Type.INT, 1000, ConfigDef.Range.atLeast(1), Importance.LOW, ADAPTIVE_LATENCY_DOC)
+        .define(RATE_LIMIT_EVENTS_CONF, Type.LONG, 0L, ConfigDef.Range.atLeast(0), Importance.LOW, RATE_LIMIT_EVENTS_DOC)
+        .define(RATE_LIMIT_BYTES_CONF, Type.LONG, 0L, ConfigDef.Range.atLeast(0), Importance.LOW, RATE_LIMIT_BYTES_DOC)
+        .define(RETRY_BACKOFF_MAX_CONF, Type.INT, 60000, ConfigDef.Range.atLeast(0), Importance.LOW, RETRY_BACKOFF_MAX_DOC)
+        .define(RETRY_BACKOFF_JITTER_CONF, Type.DOUBLE, 0.5D, ConfigDef.Range.between(0D, 1D), Importance.LOW, RETRY_BACKOFF_JITTER_DOC)
+        .define(CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, Type.INT, 5, ConfigDef.Range.atLeast(0), Importance.LOW, CIRCUIT_BREAKER_FAILURE_THRESHOLD_DOC)
+        .define(SPILL_ENABLED_CONF, Type.BOOLEAN, false, Importance.MEDIUM, SPILL_ENABLED_DOC)
+        .define(SPILL_PATH_CONF, Type.STRING, System.getProperty("java.io.tmpdir"), Importance.LOW, SPILL_PATH_DOC)
+        .define(SPILL_MAX_BYTES_CONF, Type.LONG, 1073741824L, ConfigDef.Range.atLeast(1024), Importance.LOW, SPILL_MAX_BYTES_DOC)
+        .define(SPILL_SEGMENT_BYTES_CONF, Type.INT, 67108864, ConfigDef.Range.atLeast(1024), Importance.LOW, SPILL_SEGMENT_BYTES_DOC)
+        .define(DEAD_LETTER_TOPIC_CONF, Type.STRING, "", Importance.MEDIUM, DEAD_LETTER_TOPIC_DOC)
+        .define(DEAD_LETTER_PATH_CONF, Type.STRING, new File(System.getProperty("java.io.tmpdir"), "splunk-dead-letter").getPath(), Importance.LOW, DEAD_LETTER_PATH_DOC)
+        .define(DEAD_LETTER_FILE_MAX_BYTES_CONF, Type.LONG, 104857600L, ConfigDef.Range.atLeast(1), Importance.LOW, DEAD_LETTER_FILE_MAX_BYTES_DOC)
+        .define(DEAD_LETTER_MAX_FILES_CONF, Type.INT, 10, ConfigDef.Range.atLeast(1), Importance.LOW, DEAD_LETTER_MAX_FILES_DOC);
   }
 }
@@ -16,7 +16,6 @@
 package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.github.jcustenborder.kafka.connect.utils.VersionUtil;
-import com.google.api.client.http.GZipEncoding;
 import com.google.api.client.http.GenericUrl;
 import com.google.api.client.http.HttpMediaType;
 import com.google.api.client.http.HttpRequest;
@@ -24,37 +23,79 @@ import com.google.api.client.http.HttpRequestFactory;
 import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.json.JsonHttpContent;
 import com.google.api.client.json.Json;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.JsonObjectParser;
 import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
 import org.apache.kafka.connect.errors.RetriableException;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.apache.kafka.connect.sink.SinkTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.security.GeneralSecurityException;
+import java.net.SocketTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class SplunkHttpSinkTask extends SinkTask {
   static final HttpMediaType JSON_MEDIA_TYPE = new HttpMediaType(Json.MEDIA_TYPE);
+  static final String CHANNEL_HEADER = "X-Splunk-Request-Channel";
+
+  /**
+   * ackIds are only unique for a channel on a single Splunk host so the ackIds handed to the sender are generated here
+   * and mapped back to the host that issued them.
+   */
+  static class PendingAck {
+    final SplunkEndpoint endpoint;
+    final long ackId;
+    final long sentMs;
+
+    PendingAck(SplunkEndpoint endpoint, long ackId, long sentMs) {
+      this.endpoint = endpoint;
+      this.ackId = ackId;
+      this.sentMs = sentMs;
+    }
+  }
+
   private static Logger log = LoggerFactory.getLogger(SplunkHttpSinkTask.class);
   SplunkHttpSinkConnectorConfig config;
+  SplunkHttpTransportFactory transportFactory;
   HttpTransport transport;
   JsonFactory jsonFactory = new JacksonFactory();
   HttpRequestFactory httpRequestFactory;
   HttpRequestInitializer httpRequestInitializer;
-  GenericUrl eventCollectorUrl;
+  SplunkEndpointSelector endpoints;
+  String channel;
+  final AtomicLong ackSequence = new AtomicLong();
+  final Map<Long, PendingAck> pendingAcks = new ConcurrentHashMap<>();
+  BufferPool bufferPool;
+  SplunkSinkMetrics metrics;
+  SinkRecordBatchCompressor compressor;
+  AdaptiveBatchSize batchSize;
+  SinkRecordBatcher batcher;
+  SinkRecordBatchSender sender;
+  SinkRateLimiter rateLimiter;
+  DeadLetterQueue deadLetterQueue;
 
   @Override
   public String version() {
@@ -75,32 +116,16 @@ public class SplunkHttpSinkTask extends SinkTask {
 
     log.info("Starting...");
 
-    NetHttpTransport.Builder transportBuilder = new NetHttpTransport.Builder();
-
-    if (!this.config.validateCertificates) {
-      log.warn("Disabling ssl certificate verification.");
-      try {
-        transportBuilder.doNotValidateCertificate();
-      } catch (GeneralSecurityException e) {
-        throw new IllegalStateException("Exception thrown calling transportBuilder.doNotValidateCertificate()", e);
-      }
-    }
-
-    if (this.config.hasTrustStorePath) {
-      log.info("Loading trust store from {}.", this.config.trustStorePath);
-      try (FileInputStream inputStream = new FileInputStream(this.config.trustStorePath)) {
-        transportBuilder.trustCertificatesFromJavaKeyStore(inputStream, this.config.trustStorePassword);
-      } catch (GeneralSecurityException | IOException ex) {
-        throw new IllegalStateException("Exception thrown while setting up trust certificates.", ex);
-      }
-    }
-
-    this.transport = transportBuilder.build();
+    this.transportFactory = this.config.transportFactory();
+    this.transport = this.transportFactory.create(this.config);
     final String authHeaderValue = String.format("Splunk %s", this.config.authToken);
     final JsonObjectParser jsonObjectParser = new JsonObjectParser(jsonFactory);
 
     final String userAgent = String.format("kafka-connect-splunk/%s", version());
     final boolean curlLogging = this.config.curlLoggingEnabled;
+    final boolean ackEnabled = this.config.ackEnabled;
+    this.channel = UUID.randomUUID().toString();
+    final String channel = this.channel;
     this.httpRequestInitializer = new HttpRequestInitializer() {
       @Override
       public void initialize(HttpRequest httpRequest) throws IOException {
@@ -108,85 +133,412 @@ public class SplunkHttpSinkTask extends SinkTask {
         httpRequest.getHeaders().setAccept(Json.MEDIA_TYPE);
         httpRequest.getHeaders().setUserAgent(userAgent);
         httpRequest.setParser(jsonObjectParser);
-        httpRequest.setEncoding(new GZipEncoding());
         httpRequest.setThrowExceptionOnExecuteError(false);
         httpRequest.setConnectTimeout(config.connectTimeout);
         httpRequest.setReadTimeout(config.readTimeout);
         httpRequest.setCurlLoggingEnabled(curlLogging);
+        if (ackEnabled) {
+          httpRequest.getHeaders().set(CHANNEL_HEADER, channel);
+        }
 //        httpRequest.setLoggingEnabled(curlLogging);
       }
     };
 
     this.httpRequestFactory = this.transport.createRequestFactory(this.httpRequestInitializer);
 
-    this.eventCollectorUrl = new GenericUrl();
-    this.eventCollectorUrl.setRawPath("/services/collector/event");
-    this.eventCollectorUrl.setPort(this.config.splunkPort);
-    this.eventCollectorUrl.setHost(this.config.splunkHost);
-
-    if (this.config.ssl) {
-      this.eventCollectorUrl.setScheme("https");
-    } else {
-      this.eventCollectorUrl.setScheme("http");
+    if (this.config.ackEnabled) {
+      log.info("Indexer acknowledgement enabled. Using channel {}.", this.channel);
     }
 
-    log.info("Setting Splunk Http Event Collector Url to {}", this.eventCollectorUrl);
+    this.endpoints = new SplunkEndpointSelector(
+        this.config,
+        SplunkEndpoint.endpoints(this.config, this.channel),
+        this::healthy
+    );
+
+    this.metrics = new SplunkSinkMetrics(this.config);
+    this.compressor = new SinkRecordBatchCompressor(this.config, this.metrics);
+    this.bufferPool = new BufferPool((long) this.config.batchMaxBytes * this.config.senderMaxQueuedBatches);
+    this.batchSize = new AdaptiveBatchSize(this.config);
+    this.metrics.batchSize(this.batchSize);
+    this.batcher = new SinkRecordBatcher(this.config, this.batchSize, this.bufferPool);
+    this.rateLimiter = new SinkRateLimiter(this.config);
+    this.deadLetterQueue = DeadLetterQueue.create(this.config);
+    this.sender = new SinkRecordBatchSender(this.config, new SinkRecordBatchSender.Handler() {
+      @Override
+      public Long send(SinkRecordBatch batch) {
+        return post(batch);
+      }
+
+      @Override
+      public Map<Long, Boolean> acks(Collection<Long> ackIds) {
+        return SplunkHttpSinkTask.this.acks(ackIds);
+      }
+
+      @Override
+      public SinkRecordBatch rebatch(SinkRecordBatch batch, List<SinkRecord> records) {
+        return SplunkHttpSinkTask.this.rebatch(records);
+      }
+
+      @Override
+      public void rejected(SinkRecord record, InvalidEventException ex) {
+        if (null != deadLetterQueue) {
+          deadLetterQueue.write(record, ex.getMessage());
+        }
+      }
+    });
+    if (null != this.sender.spillLog) {
+      this.metrics.spill(this.sender.spillLog);
+    }
   }
 
 
   @Override
   public void put(Collection<SinkRecord> collection) {
+    this.sender.checkError();
+
+    final long openMs = this.sender.circuitBreaker.openMs();
+    if (openMs > 0 && !collection.isEmpty() && !this.sender.canSpill(this.config.batchMaxBytes)) {
+      this.context.timeout(openMs);
+      throw new RetriableException(
+          String.format("Circuit breaker is open because Splunk is not accepting data. Retrying in %s ms.", openMs)
+      );
+    }
+
+    final Map<TopicPartition, Long> rewinds = this.sender.rewinds();
+    if (!rewinds.isEmpty()) {
+      log.warn("Rewinding {} to resend records that could not be delivered.", rewinds);
+      this.context.offset(rewinds);
+      collection = skipRewound(collection, rewinds);
+    }
+
+    if (this.rateLimiter.enabled()) {
+      this.rateLimiter.resume(this.context);
+    }
+
     if (collection.isEmpty()) {
       log.trace("No records in collection.");
       return;
     }
 
+    final List<SinkRecordBatch> batches;
     try {
-      log.trace("Posting {} message(s) to {}", collection.size(), this.eventCollectorUrl);
-
-      SinkRecordContent sinkRecordContent = new SinkRecordContent(collection);
-
-      if (log.isTraceEnabled()) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-          sinkRecordContent.writeTo(outputStream);
-          outputStream.flush();
-          byte[] buffer = outputStream.toByteArray();
-          log.trace("Posting\n{}", new String(buffer, "UTF-8"));
-        } catch (IOException ex) {
-          if (log.isTraceEnabled()) {
-            log.trace("exception thrown while previewing post", ex);
-          }
-        }
+      batches = this.batcher.batch(collection);
+    } catch (IOException e) {
+      throw new ConnectException("Exception thrown while serializing records.", e);
+    }
+    final List<SinkRecordBatch> pending = this.batcher.invalid.isEmpty() ?
+        batches : invalid(this.batcher.invalid, batches);
+
+    log.trace("Split {} message(s) into {} batch(es).", collection.size(), batches.size());
+    if (this.rateLimiter.enabled()) {
+      this.rateLimiter.take(this.context, batches);
+    }
+    this.sender.send(pending, this.config.senderTimeout);
+  }
+
+  /**
+   * Method is used to handle pass through records that are not a json object. They are written to the dead letter
+   * queue if there is one, otherwise the task fails. Each run of invalid records is queued with the batches as a
+   * skipped batch so the offset of the partition moves past them once the batches before them are delivered.
+   *
+   * @return the batches and the skipped batches ordered by partition and offset.
+   */
+  List<SinkRecordBatch> invalid(List<SinkRecord> records, List<SinkRecordBatch> batches) {
+    if (null == this.deadLetterQueue) {
+      for (SinkRecordBatch batch : batches) {
+        batch.release();
       }
+      final SinkRecord record = records.get(0);
+      throw new DataException(
+          String.format(
+              "Value for %s-%s:%s is not a json object. Configure %s or %s to skip invalid records.",
+              record.topic(),
+              record.kafkaPartition(),
+              record.kafkaOffset(),
+              SplunkHttpSinkConnectorConfig.DEAD_LETTER_TOPIC_CONF,
+              SplunkHttpSinkConnectorConfig.DEAD_LETTER_PATH_CONF
+          )
+      );
+    }
+    final List<SinkRecordBatch> result = new ArrayList<>(batches.size() + records.size());
+    result.addAll(batches);
+    for (SinkRecord record : records) {
+      this.deadLetterQueue.write(record, "Value is not a json object.");
+      result.add(
+          SinkRecordBatch.skipped(new TopicPartition(record.topic(), record.kafkaPartition()), Collections.singletonList(record))
+      );
+    }
+    result.sort(
+        Comparator.comparing((SinkRecordBatch batch) -> batch.topicPartition.topic())
+            .thenComparingInt(batch -> batch.topicPartition.partition())
+            .thenComparingLong(SinkRecordBatch::firstOffset)
+    );
 
-      HttpRequest httpRequest = this.httpRequestFactory.buildPostRequest(this.eventCollectorUrl, sinkRecordContent);
+    final List<SinkRecordBatch> merged = new ArrayList<>(result.size());
+    SinkRecordBatch previous = null;
+    for (SinkRecordBatch batch : result) {
+      if (null != previous && previous.skipped && batch.skipped && previous.topicPartition.equals(batch.topicPartition)) {
+        final List<SinkRecord> run = new ArrayList<>(previous.records);
+        run.addAll(batch.records);
+        previous = SinkRecordBatch.skipped(batch.topicPartition, run);
+        merged.set(merged.size() - 1, previous);
+        continue;
+      }
+      merged.add(batch);
+      previous = batch;
+    }
+    return merged;
+  }
+
+  static Collection<SinkRecord> skipRewound(Collection<SinkRecord> collection, Map<TopicPartition, Long> rewinds) {
+    List<SinkRecord> result = new ArrayList<>(collection.size());
+    for (SinkRecord record : collection) {
+      TopicPartition topicPartition = new TopicPartition(record.topic(), record.kafkaPartition());
+      if (!rewinds.containsKey(topicPartition)) {
+        result.add(record);
+      }
+    }
+    return result;
+  }
+
+  Long post(SinkRecordBatch batch) {
+    final SplunkEndpoint endpoint = this.endpoints.select();
+    final GenericUrl url = endpoint.url(batch);
+    boolean responded = false;
+    try {
+      log.trace("Posting {} message(s) to {}", batch.size(), url);
+
+      if (log.isTraceEnabled() && null == batch.contentEncoding) {
+        log.trace("Posting\n{}", new String(batch.buffer, 0, batch.length, "UTF-8"));
+      }
+
+      this.compressor.compress(batch);
+      HttpRequest httpRequest = this.httpRequestFactory.buildPostRequest(url, batch);
+      httpRequest.getHeaders().setContentEncoding(batch.contentEncoding);
+      final long start = System.currentTimeMillis();
       HttpResponse httpResponse = httpRequest.execute();
+      final long latency = System.currentTimeMillis() - start;
+      responded = httpResponse.getStatusCode() < 500;
+      final Long ackId;
+      try {
+        ackId = handleResponse(batch, httpResponse);
+      } finally {
+        httpResponse.ignore();
+      }
+      this.batchSize.success(latency);
 
-      if (httpResponse.getStatusCode() == 403) {
-        throw new ConnectException("Authentication was not successful. Please check the token with Splunk.");
+      if (!this.config.ackEnabled || null == ackId) {
+        return ackId;
       }
+      final long id = this.ackSequence.incrementAndGet();
+      this.pendingAcks.put(id, new PendingAck(endpoint, ackId, System.currentTimeMillis()));
+      return id;
+    } catch (SocketTimeoutException e) {
+      this.batchSize.overloaded("Request timed out");
+      throw new SplunkUnavailableException(
+          String.format("Timed out while posting data to %s.", url),
+          e
+      );
+    } catch (IOException e) {
+      throw new SplunkUnavailableException(
+          String.format("Exception while posting data to %s.", url),
+          e
+      );
+    } finally {
+      if (responded) {
+        this.endpoints.success(endpoint);
+      } else {
+        this.endpoints.failure(endpoint);
+      }
+    }
+  }
 
-      if (httpResponse.getStatusCode() == 417) {
-        log.warn("This exception happens when too much content is pushed to splunk per call. Look at this blog post " +
-            "http://blogs.splunk.com/2016/08/12/handling-http-event-collector-hec-content-length-too-large-errors-without-pulling-your-hair-out/" +
-            " Setting consumer.max.poll.records to a lower value will decrease the number of message posted to Splunk " +
-            "at once.");
-        throw new ConnectException("Status 417: Content-Length of XXXXX too large (maximum is 1000000). Verify Splunk config or " +
-            " lower the value in consumer.max.poll.records.");
+  /**
+   * Method is used to serialize part of a batch that was rejected by Splunk. Called from the sender threads so it
+   * cannot use the batcher owned by put(). The records come from a single batch so they always fit in one.
+   */
+  SinkRecordBatch rebatch(List<SinkRecord> records) {
+    SinkRecordBatcher batcher = new SinkRecordBatcher(this.config, null, this.bufferPool);
+    try {
+      return batcher.batch(records).get(0);
+    } catch (IOException e) {
+      throw new ConnectException("Exception thrown while serializing records.", e);
+    }
+  }
+
+  boolean healthy(SplunkEndpoint endpoint) {
+    try {
+      HttpRequest httpRequest = this.httpRequestFactory.buildGetRequest(endpoint.healthUrl);
+      HttpResponse httpResponse = httpRequest.execute();
+      try {
+        return httpResponse.isSuccessStatusCode();
+      } finally {
+        httpResponse.ignore();
       }
+    } catch (IOException e) {
+      log.trace("Exception thrown while checking the health of {}.", endpoint, e);
+      return false;
+    }
+  }
 
-      if (JSON_MEDIA_TYPE.equalsIgnoreParameters(httpResponse.getMediaType())) {
-        SplunkStatusMessage statusMessage = httpResponse.parseAs(SplunkStatusMessage.class);
+  Long handleResponse(SinkRecordBatch batch, HttpResponse httpResponse) throws IOException {
+    if (httpResponse.getStatusCode() == 403) {
+      throw new ConnectException("Authentication was not successful. Please check the token with Splunk.");
+    }
 
-        if (!statusMessage.isSuccessful()) {
-          throw new RetriableException(statusMessage.toString());
+    if (httpResponse.getStatusCode() == 503) {
+      this.batchSize.overloaded("Splunk is busy");
+    }
+    final boolean unavailable = httpResponse.getStatusCode() >= 500 || httpResponse.getStatusCode() == 429;
+    final Long retryAfterMs = unavailable ?
+        retryAfterMs(httpResponse.getHeaders().getFirstHeaderStringValue("Retry-After"), System.currentTimeMillis()) :
+        null;
+
+    if (this.config.adaptiveBatchEnabled && batch.size() > 1 &&
+        (httpResponse.getStatusCode() == 413 || httpResponse.getStatusCode() == 417)) {
+      this.batchSize.tooLarge(batch.uncompressedLength);
+      throw new InvalidEventException(
+          String.format("Status %s: Content-Length of %s (%s uncompressed) too large.",
+              httpResponse.getStatusCode(), batch.length, batch.uncompressedLength),
+          null
+      );
+    }
+
+    if (httpResponse.getStatusCode() == 413 || httpResponse.getStatusCode() == 417) {
+      log.warn("This exception happens when too much content is pushed to splunk per call. Look at this blog post " +
+          "http://blogs.splunk.com/2016/08/12/handling-http-event-collector-hec-content-length-too-large-errors-without-pulling-your-hair-out/" +
+          " Setting {} to a lower value will decrease the size of the requests posted to Splunk.",
+          SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF);
+      throw new ConnectException(
+          String.format("Status %s: Content-Length of %s (%s uncompressed) too large. Verify Splunk config or lower the value in %s.",
+              httpResponse.getStatusCode(),
+              batch.length,
+              batch.uncompressedLength,
+              SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF
+          )
+      );
+    }
+
+    if (JSON_MEDIA_TYPE.equalsIgnoreParameters(httpResponse.getMediaType())) {
+      SplunkStatusMessage statusMessage = httpResponse.parseAs(SplunkStatusMessage.class);
+
+      if (!statusMessage.isSuccessful()) {
+        if (statusMessage.isInvalidData()) {
+          throw new InvalidEventException(
+              statusMessage.toString(),
+              batch.raw() ? null : statusMessage.invalidEventNumber()
+          );
         }
-      } else {
-        throw new RetriableException("Media type of " + Json.MEDIA_TYPE + " was not returned.");
+        if (!statusMessage.isRetriable()) {
+          throw new ConnectException(
+              String.format("Status %s: Splunk will not accept data with the current settings. %s", httpResponse.getStatusCode(), statusMessage)
+          );
+        }
+        if (unavailable) {
+          throw new SplunkUnavailableException(statusMessage.toString(), retryAfterMs);
+        }
+        throw new RetriableException(statusMessage.toString());
       }
+
+      return statusMessage.ackId();
+    } else if (unavailable) {
+      throw new SplunkUnavailableException(
+          String.format("Status %s: Splunk is not accepting data.", httpResponse.getStatusCode()),
+          retryAfterMs
+      );
+    } else {
+      throw new RetriableException("Media type of " + Json.MEDIA_TYPE + " was not returned.");
+    }
+  }
+
+  /**
+   * Method is used to parse the Retry-After header, which is either a number of seconds or an http date.
+   *
+   * @param value value of the header. Can be null.
+   * @param nowMs current time.
+   * @return time to wait in milliseconds or null if there is no valid value.
+   */
+  static Long retryAfterMs(String value, long nowMs) {
+    if (Strings.isNullOrEmpty(value)) {
+      return null;
+    }
+    final String trimmed = value.trim();
+    try {
+      return Math.max(0L, Long.parseLong(trimmed) * 1000L);
+    } catch (NumberFormatException e) {
+      log.trace("Retry-After '{}' is not a number of seconds.", trimmed);
+    }
+    try {
+      final long retryAt = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return Math.max(0L, retryAt - nowMs);
+    } catch (DateTimeParseException e) {
+      log.debug("Ignoring invalid Retry-After '{}'.", trimmed);
+      return null;
+    }
+  }
+
+  Map<Long, Boolean> acks(Collection<Long> ackIds) {
+    final Map<SplunkEndpoint, Map<Long, Long>> byEndpoint = new HashMap<>();
+    for (Long id : ackIds) {
+      PendingAck pendingAck = this.pendingAcks.get(id);
+      if (null != pendingAck) {
+        byEndpoint.computeIfAbsent(pendingAck.endpoint, e -> new HashMap<>()).put(pendingAck.ackId, id);
+      }
+    }
+
+    final Map<Long, Boolean> result = new HashMap<>(ackIds.size());
+    for (Map.Entry<SplunkEndpoint, Map<Long, Long>> kvp : byEndpoint.entrySet()) {
+      final Map<Long, Long> ids = kvp.getValue();
+      final Map<Long, Boolean> statuses;
+      try {
+        statuses = acks(kvp.getKey(), ids.keySet());
+      } catch (RetriableException ex) {
+        log.warn("Exception thrown while checking acknowledgements with {}.", kvp.getKey(), ex);
+        continue;
+      }
+      for (Map.Entry<Long, Boolean> status : statuses.entrySet()) {
+        Long id = ids.get(status.getKey());
+        if (null != id) {
+          result.put(id, status.getValue());
+          if (Boolean.TRUE.equals(status.getValue())) {
+            this.pendingAcks.remove(id);
+          }
+        }
+      }
+    }
+
+    final long expired = System.currentTimeMillis() - 2L * this.config.ackTimeout;
+    this.pendingAcks.values().removeIf(pendingAck -> pendingAck.sentMs < expired);
+    return result;
+  }
+
+  Map<Long, Boolean> acks(SplunkEndpoint endpoint, Collection<Long> ackIds) {
+    try {
+      JsonHttpContent content = new JsonHttpContent(this.jsonFactory, ImmutableMap.of("acks", ackIds));
+      HttpRequest httpRequest = this.httpRequestFactory.buildPostRequest(endpoint.ackUrl, content);
+      HttpResponse httpResponse = httpRequest.execute();
+      SplunkAckMessage ackMessage;
+      try {
+        if (!httpResponse.isSuccessStatusCode() || !JSON_MEDIA_TYPE.equalsIgnoreParameters(httpResponse.getMediaType())) {
+          throw new RetriableException(
+              String.format("Status %s returned while checking acknowledgements.", httpResponse.getStatusCode())
+          );
+        }
+        ackMessage = httpResponse.parseAs(SplunkAckMessage.class);
+      } finally {
+        httpResponse.ignore();
+      }
+      Map<Long, Boolean> result = new HashMap<>(ackIds.size());
+      if (null != ackMessage.acks()) {
+        for (Map.Entry<String, Boolean> entry : ackMessage.acks().entrySet()) {
+          result.put(Long.parseLong(entry.getKey()), entry.getValue());
+        }
+      }
+      return result;
     } catch (IOException e) {
       throw new RetriableException(
-          String.format("Exception while posting data to %s.", this.eventCollectorUrl),
+          String.format("Exception while checking acknowledgements with %s.", endpoint.ackUrl),
           e
       );
     }
@@ -194,11 +546,52 @@ public class SplunkHttpSinkTask extends SinkTask {
 
   @Override
   public void flush(Map<TopicPartition, OffsetAndMetadata> map) {
+    if (!this.sender.awaitDelivery(this.config.senderTimeout)) {
+      throw new RetriableException(
+          String.format("Timed out after %s ms waiting for records to be delivered to Splunk.", this.config.senderTimeout)
+      );
+    }
+  }
+
+  @Override
+  public Map<TopicPartition, OffsetAndMetadata> preCommit(Map<TopicPartition, OffsetAndMetadata> currentOffsets) {
+    final Map<TopicPartition, OffsetAndMetadata> result = this.sender.deliveredOffsets(currentOffsets.keySet());
+    if (null != this.deadLetterQueue) {
+      this.deadLetterQueue.flush();
+    }
+    return result;
+  }
 
+  @Override
+  public void close(Collection<TopicPartition> partitions) {
+    this.sender.forget(partitions);
+    this.rateLimiter.forget(partitions);
   }
 
   @Override
   public void stop() {
     log.info("Stopping...");
+    if (null != this.sender) {
+      this.sender.close();
+    }
+    if (null != this.compressor) {
+      this.compressor.close();
+    }
+    if (null != this.endpoints) {
+      this.endpoints.close();
+    }
+    if (null != this.deadLetterQueue) {
+      this.deadLetterQueue.close();
+    }
+    if (null != this.metrics) {
+      this.metrics.close();
+    }
+    if (null != this.transportFactory) {
+      try {
+        this.transportFactory.close();
+      } catch (IOException e) {
+        log.warn("Exception thrown while closing transport.", e);
+      }
+    }
   }
 }
@@ -19,15 +19,24 @@ import org.apache.kafka.common.config.AbstractConfig;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigDef.Importance;
 import org.apache.kafka.common.config.ConfigDef.Type;
+import org.apache.kafka.common.config.ConfigException;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
+  private static final Logger log = LoggerFactory.getLogger(SplunkHttpSourceConnectorConfig.class);
 
   public static final String PORT_CONF = "splunk.port";
   public static final String KEYSTORE_PATH_CONF = "splunk.ssl.key.store.path";
@@ -40,6 +49,23 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
   public static final String TOPIC_PER_INDEX_CONF = "topic.per.index";
   public static final String BATCH_SIZE_CONF = "batch.size";
   public static final String BACKOFF_MS_CONF = "backoff.ms";
+  public static final String BATCH_MIN_SIZE_CONF = "batch.min.size";
+  public static final String LINGER_MS_CONF = "linger.ms";
+  public static final String ASYNC_ENABLED_CONF = "splunk.collector.async.enabled";
+  public static final String ASYNC_TIMEOUT_MS_CONF = "splunk.collector.async.timeout.ms";
+  public static final String MAX_BODY_BYTES_CONF = "splunk.collector.max.body.bytes";
+  public static final String QUEUE_MAX_RECORDS_CONF = "splunk.collector.queue.max.records";
+  public static final String QUEUE_MAX_BYTES_CONF = "splunk.collector.queue.max.bytes";
+  public static final String QUEUE_RETRY_AFTER_CONF = "splunk.collector.queue.retry.after.seconds";
+  public static final String SERVER_THREADS_MAX_CONF = "splunk.server.threads.max";
+  public static final String SERVER_THREADS_MIN_CONF = "splunk.server.threads.min";
+  public static final String SERVER_THREADS_IDLE_TIMEOUT_MS_CONF = "splunk.server.threads.idle.timeout.ms";
+  public static final String SERVER_VIRTUAL_THREADS_ENABLED_CONF = "splunk.server.virtual.threads.enabled";
+  public static final String SERVER_ACCEPTORS_CONF = "splunk.server.acceptors";
+  public static final String SERVER_SELECTORS_CONF = "splunk.server.selectors";
+  public static final String SERVER_ACCEPT_QUEUE_SIZE_CONF = "splunk.server.accept.queue.size";
+  public static final String SERVER_IDLE_TIMEOUT_MS_CONF = "splunk.server.idle.timeout.ms";
+  public static final String SERVER_OUTPUT_BUFFER_SIZE_CONF = "splunk.server.output.buffer.size";
   private static final String PORT_DOC = "The port to configure the http listener on.";
   private static final String KEYSTORE_PATH_DOC = "The path to the keystore on the local filesystem.";
   private static final String KEYSTORE_PASSWORD_DOC = "The password for opening the keystore.";
@@ -57,8 +83,48 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
       + "` value will be used for the topic.";
 
   private static final String BATCH_SIZE_DOC = "Maximum number of records to write per poll call.";
-  private static final String BACKOFF_MS_DOC = "The number of milliseconds to back off when there are no records in the" +
-      "queue.";
+  private static final String BACKOFF_MS_DOC = "The maximum number of milliseconds a poll call waits for records when " +
+      "the queue is empty.";
+  private static final String BATCH_MIN_SIZE_DOC = "The number of records a poll call waits for before returning. Fewer " +
+      "records are returned once `" + LINGER_MS_CONF + "` has passed.";
+  private static final String LINGER_MS_DOC = "The maximum number of milliseconds a poll call waits for `" +
+      BATCH_MIN_SIZE_CONF + "` records once the first record has arrived. 0 returns records as soon as they arrive.";
+  private static final String ASYNC_ENABLED_DOC = "Flag to determine if request bodies are read asynchronously. When " +
+      "enabled the body is read as data arrives without holding a server thread, so slow clients do not tie up the " +
+      "thread pool. The events are parsed once the whole body has been received.";
+  private static final String ASYNC_TIMEOUT_MS_DOC = "The number of milliseconds an asynchronous request has to send " +
+      "its body before it is failed with a 408.";
+  private static final String MAX_BODY_BYTES_DOC = "The maximum size in bytes of a request body. Requests with a " +
+      "larger Content-Length are rejected with a 413 before the body is read, and asynchronous requests that send " +
+      "more than this are rejected with a 413 as soon as the limit is passed.";
+  private static final String QUEUE_MAX_RECORDS_DOC = "The maximum number of records received from clients that can " +
+      "be waiting to be written to Kafka. Requests are rejected with a 503 while the queue is full. Space for this " +
+      "many records is allocated up front. Requests with more events than this are rejected with a 413.";
+  private static final String QUEUE_MAX_BYTES_DOC = "The maximum estimated size in bytes of the records received " +
+      "from clients that can be waiting to be written to Kafka. Requests are rejected with a 503 while the queue is " +
+      "full. 0 disables the limit.";
+  private static final String QUEUE_RETRY_AFTER_DOC = "The number of seconds clients are told to wait in the " +
+      "`Retry-After` header when a request is rejected because the queue is full.";
+  private static final String SERVER_THREADS_MAX_DOC = "The maximum number of threads in the web server thread pool. " +
+      "The acceptor and selector threads are taken from this pool so it must be larger than `" + SERVER_ACCEPTORS_CONF +
+      "` plus `" + SERVER_SELECTORS_CONF + "`, using the values the web server picks for -1, to leave a thread for " +
+      "requests.";
+  private static final String SERVER_THREADS_MIN_DOC = "The minimum number of threads kept in the web server thread pool.";
+  private static final String SERVER_THREADS_IDLE_TIMEOUT_MS_DOC = "The number of milliseconds a thread above `" +
+      SERVER_THREADS_MIN_CONF + "` can be idle before it is stopped.";
+  private static final String SERVER_VIRTUAL_THREADS_ENABLED_DOC = "Flag to determine if the web server runs on " +
+      "virtual threads so that a request blocked reading its body does not hold a platform thread. Requires a JVM " +
+      "with virtual threads. On older JVMs a warning is logged and the thread pool settings are used instead.";
+  private static final String SERVER_ACCEPTORS_DOC = "The number of threads accepting connections. -1 lets the web " +
+      "server pick a value based on the number of cores.";
+  private static final String SERVER_SELECTORS_DOC = "The number of threads selecting on open connections. -1 lets " +
+      "the web server pick a value based on the number of cores.";
+  private static final String SERVER_ACCEPT_QUEUE_SIZE_DOC = "The number of connections the operating system queues " +
+      "before they are accepted. 0 uses the operating system default.";
+  private static final String SERVER_IDLE_TIMEOUT_MS_DOC = "The number of milliseconds a connection can be idle " +
+      "before it is closed.";
+  private static final String SERVER_OUTPUT_BUFFER_SIZE_DOC = "The size in bytes of the buffer used to write a " +
+      "response.";
   public final int port;
   public final String keyStorePath;
   public final String keyStorePassword;
@@ -70,6 +136,24 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
   public final String topicPrefix;
   public final int batchSize;
   public final int backoffMS;
+  public final int batchMinSize;
+  public final int lingerMs;
+  public final boolean asyncEnabled;
+  public final int asyncTimeoutMs;
+  public final int maxBodyBytes;
+  public final int queueMaxRecords;
+  public final long queueMaxBytes;
+  public final int queueRetryAfter;
+  public final int serverThreadsMax;
+  public final int serverThreadsMin;
+  public final int serverThreadsIdleTimeoutMs;
+  public final boolean serverVirtualThreadsEnabled;
+  public final int serverAcceptors;
+  public final int serverSelectors;
+  public final int serverAcceptQueueSize;
+  public final long serverIdleTimeoutMs;
+  public final int serverOutputBufferSize;
+
   public SplunkHttpSourceConnectorConfig(Map<String, String> parsedConfig) {
     super(conf(), parsedConfig);
 
@@ -84,6 +168,56 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
     this.topicPrefix = this.getString(TOPIC_PREFIX_CONF);
     this.batchSize = this.getInt(BATCH_SIZE_CONF);
     this.backoffMS = this.getInt(BACKOFF_MS_CONF);
+    this.batchMinSize = this.getInt(BATCH_MIN_SIZE_CONF);
+    this.lingerMs = this.getInt(LINGER_MS_CONF);
+    this.asyncEnabled = this.getBoolean(ASYNC_ENABLED_CONF);
+    this.asyncTimeoutMs = this.getInt(ASYNC_TIMEOUT_MS_CONF);
+    this.maxBodyBytes = this.getInt(MAX_BODY_BYTES_CONF);
+    this.queueMaxRecords = this.getInt(QUEUE_MAX_RECORDS_CONF);
+    this.queueMaxBytes = this.getLong(QUEUE_MAX_BYTES_CONF);
+    this.queueRetryAfter = this.getInt(QUEUE_RETRY_AFTER_CONF);
+    this.serverThreadsMax = this.getInt(SERVER_THREADS_MAX_CONF);
+    this.serverThreadsMin = this.getInt(SERVER_THREADS_MIN_CONF);
+    this.serverThreadsIdleTimeoutMs = this.getInt(SERVER_THREADS_IDLE_TIMEOUT_MS_CONF);
+    this.serverVirtualThreadsEnabled = this.getBoolean(SERVER_VIRTUAL_THREADS_ENABLED_CONF);
+    this.serverAcceptors = this.getInt(SERVER_ACCEPTORS_CONF);
+    this.serverSelectors = this.getInt(SERVER_SELECTORS_CONF);
+    this.serverAcceptQueueSize = this.getInt(SERVER_ACCEPT_QUEUE_SIZE_CONF);
+    this.serverIdleTimeoutMs = this.getLong(SERVER_IDLE_TIMEOUT_MS_CONF);
+    this.serverOutputBufferSize = this.getInt(SERVER_OUTPUT_BUFFER_SIZE_CONF);
+    if (this.serverThreadsMin > this.serverThreadsMax) {
+      throw new ConfigException(
+          SERVER_THREADS_MIN_CONF,
+          this.serverThreadsMin,
+          String.format("Must not be greater than %s.", SERVER_THREADS_MAX_CONF)
+      );
+    }
+    final int cores = Runtime.getRuntime().availableProcessors();
+    final int reserved = acceptors(this.serverAcceptors, cores) + selectors(this.serverSelectors, cores);
+    if (this.serverThreadsMax <= reserved) {
+      throw new ConfigException(
+          SERVER_THREADS_MAX_CONF,
+          this.serverThreadsMax,
+          String.format(
+              "Must be greater than the %s acceptor and selector thread(s) so at least one thread is left for requests.",
+              reserved
+          )
+      );
+    }
+  }
+
+  /**
+   * Number of acceptor threads the web server starts. Matches the default Jetty uses for -1.
+   */
+  static int acceptors(int acceptors, int cores) {
+    return acceptors < 0 ? Math.max(1, Math.min(4, cores / 8)) : acceptors;
+  }
+
+  /**
+   * Number of selector threads the web server starts. Matches the default Jetty uses for -1.
+   */
+  static int selectors(int selectors, int cores) {
+    return selectors > 0 ? selectors : Math.max(1, Math.min(4, cores / 2));
   }
 
   public static ConfigDef conf() {
@@ -98,7 +232,24 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
         .define(TOPIC_PER_INDEX_CONF, Type.BOOLEAN, false, Importance.MEDIUM, TOPIC_PER_INDEX_DOC)
         .define(TOPIC_PREFIX_CONF, Type.STRING, Importance.HIGH, TOPIC_PREFIX_DOC)
         .define(BATCH_SIZE_CONF, Type.INT, 10000, Importance.LOW, BATCH_SIZE_DOC)
-        .define(BACKOFF_MS_CONF, Type.INT, 100, Importance.LOW, BACKOFF_MS_DOC);
+        .define(BACKOFF_MS_CONF, Type.INT, 100, Importance.LOW, BACKOFF_MS_DOC)
+        .define(BATCH_MIN_SIZE_CONF, Type.INT, 1, ConfigDef.Range.atLeast(1), Importance.LOW, BATCH_MIN_SIZE_DOC)
+        .define(LINGER_MS_CONF, Type.INT, 0, ConfigDef.Range.atLeast(0), Importance.LOW, LINGER_MS_DOC)
+        .define(ASYNC_ENABLED_CONF, Type.BOOLEAN, false, Importance.MEDIUM, ASYNC_ENABLED_DOC)
+        .define(ASYNC_TIMEOUT_MS_CONF, Type.INT, 30000, ConfigDef.Range.atLeast(0), Importance.LOW, ASYNC_TIMEOUT_MS_DOC)
+        .define(MAX_BODY_BYTES_CONF, Type.INT, 1048576, ConfigDef.Range.atLeast(1024), Importance.MEDIUM, MAX_BODY_BYTES_DOC)
+        .define(QUEUE_MAX_RECORDS_CONF, Type.INT, 100000, ConfigDef.Range.between(1, 1 << 26), Importance.MEDIUM, QUEUE_MAX_RECORDS_DOC)
+        .define(QUEUE_MAX_BYTES_CONF, Type.LONG, 268435456L, ConfigDef.Range.atLeast(0), Importance.MEDIUM, QUEUE_MAX_BYTES_DOC)
+        .define(QUEUE_RETRY_AFTER_CONF, Type.INT, 5, ConfigDef.Range.atLeast(1), Importance.LOW, QUEUE_RETRY_AFTER_DOC)
+        .define(SERVER_THREADS_MAX_CONF, Type.INT, 200, ConfigDef.Range.atLeast(2), Importance.MEDIUM, SERVER_THREADS_MAX_DOC)
+        .define(SERVER_THREADS_MIN_CONF, Type.INT, 8, ConfigDef.Range.atLeast(1), Importance.LOW, SERVER_THREADS_MIN_DOC)
+        .define(SERVER_THREADS_IDLE_TIMEOUT_MS_CONF, Type.INT, 60000, ConfigDef.Range.atLeast(0), Importance.LOW, SERVER_THREADS_IDLE_TIMEOUT_MS_DOC)
+        .define(SERVER_VIRTUAL_THREADS_ENABLED_CONF, Type.BOOLEAN, false, Importance.MEDIUM, SERVER_VIRTUAL_THREADS_ENABLED_DOC)
+        .define(SERVER_ACCEPTORS_CONF, Type.INT, -1, ConfigDef.Range.atLeast(-1), Importance.LOW, SERVER_ACCEPTORS_DOC)
+        .define(SERVER_SELECTORS_CONF, Type.INT, -1, ConfigDef.Range.atLeast(-1), Importance.LOW, SERVER_SELECTORS_DOC)
+        .define(SERVER_ACCEPT_QUEUE_SIZE_CONF, Type.INT, 0, ConfigDef.Range.atLeast(0), Importance.LOW, SERVER_ACCEPT_QUEUE_SIZE_DOC)
+        .define(SERVER_IDLE_TIMEOUT_MS_CONF, Type.LONG, 30000L, ConfigDef.Range.atLeast(0), Importance.LOW, SERVER_IDLE_TIMEOUT_MS_DOC)
+        .define(SERVER_OUTPUT_BUFFER_SIZE_CONF, Type.INT, 32768, ConfigDef.Range.atLeast(1024), Importance.LOW, SERVER_OUTPUT_BUFFER_SIZE_DOC);
   }
 
   public SslContextFactory sslContextFactory() {
@@ -108,4 +259,33 @@ public class SplunkHttpSourceConnectorConfig extends AbstractConfig {
     sslContextFactory.setRenegotiationAllowed(this.sslRenegotiationAllowed);
     return sslContextFactory;
   }
+
+  /**
+   * Method is used to build the thread pool for the web server. Virtual threads are looked up by reflection so the
+   * connector still runs on JVMs without them.
+   *
+   * @return thread pool for the web server.
+   */
+  public ThreadPool threadPool() {
+    if (this.serverVirtualThreadsEnabled) {
+      ExecutorService executor = virtualThreadExecutor();
+      if (null != executor) {
+        return new ExecutorThreadPool(executor);
+      }
+      log.warn("{} is enabled but virtual threads are not supported by this JVM. Falling back to a thread pool of {} threads.",
+          SERVER_VIRTUAL_THREADS_ENABLED_CONF, this.serverThreadsMax);
+    }
+    QueuedThreadPool threadPool = new QueuedThreadPool(this.serverThreadsMax, this.serverThreadsMin, this.serverThreadsIdleTimeoutMs);
+    threadPool.setName("splunk-http-source");
+    return threadPool;
+  }
+
+  static ExecutorService virtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.trace("Virtual threads are not available.", e);
+      return null;
+    }
+  }
 }
@@ -17,7 +17,6 @@ package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.github.jcustenborder.kafka.connect.utils.VersionUtil;
-import com.github.jcustenborder.kafka.connect.utils.data.SourceRecordConcurrentLinkedDeque;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
@@ -44,7 +43,8 @@ public class SplunkHttpSourceTask extends SourceTask {
   SplunkHttpSourceConnectorConfig config;
   Server server;
   EventServlet eventServlet;
-  SourceRecordConcurrentLinkedDeque sourceRecordConcurrentLinkedDeque;
+  SourceRecordQueue recordQueue;
+  SplunkSourceMetrics metrics;
 
   @Override
   public String version() {
@@ -54,18 +54,23 @@ public class SplunkHttpSourceTask extends SourceTask {
   @Override
   public void start(Map<String, String> map) {
     this.config = new SplunkHttpSourceConnectorConfig(map);
-    this.server = new Server();
+    this.server = new Server(this.config.threadPool());
 
     HttpConfiguration httpsConfiguration = new HttpConfiguration();
+    httpsConfiguration.setOutputBufferSize(this.config.serverOutputBufferSize);
     httpsConfiguration.addCustomizer(new SecureRequestCustomizer());
 
     SslContextFactory sslContextFactory = this.config.sslContextFactory();
     ServerConnector sslConnector = new ServerConnector(
         server,
+        this.config.serverAcceptors,
+        this.config.serverSelectors,
         new SslConnectionFactory(sslContextFactory, "http/1.1"),
         new HttpConnectionFactory(httpsConfiguration)
     );
     sslConnector.setPort(this.config.port);
+    sslConnector.setAcceptQueueSize(this.config.serverAcceptQueueSize);
+    sslConnector.setIdleTimeout(this.config.serverIdleTimeoutMs);
 
     server.setConnectors(new ServerConnector[]{sslConnector});
 
@@ -74,8 +79,11 @@ public class SplunkHttpSourceTask extends SourceTask {
     ServletContextHandler servletContextHandler = new ServletContextHandler(server, "/", ServletContextHandler.NO_SESSIONS);
     servletContextHandler.addServlet(DefaultServlet.class, "/");
     ServletHolder holder = servletContextHandler.addServlet(EventServlet.class, this.config.eventCollectorUrl);
+    holder.setAsyncSupported(this.config.asyncEnabled);
 
-    this.sourceRecordConcurrentLinkedDeque = new SourceRecordConcurrentLinkedDeque(this.config.batchSize, this.config.backoffMS);
+    this.recordQueue = new SourceRecordQueue(this.config);
+    this.metrics = new SplunkSourceMetrics(map.get("name"));
+    this.metrics.queue(this.recordQueue);
 
     try {
       log.info("Starting web server on port {}", this.config.port);
@@ -92,15 +100,16 @@ public class SplunkHttpSourceTask extends SourceTask {
 
     JsonFactory jsonFactory = new JsonFactory();
 
-    this.eventServlet.configure(this.config, jsonFactory, this.sourceRecordConcurrentLinkedDeque);
+    this.eventServlet.configure(this.config, jsonFactory, this.recordQueue, this.metrics);
   }
 
   @Override
   public List<SourceRecord> poll() throws InterruptedException {
     List<SourceRecord> records = new ArrayList<>(this.config.batchSize);
 
-    while (!this.sourceRecordConcurrentLinkedDeque.drain(records)) {
-      log.trace("No records received. Sleeping.");
+    if (!this.recordQueue.drain(records)) {
+      log.trace("No records received.");
+      return null;
     }
 
     return records;
@@ -113,5 +122,8 @@ public class SplunkHttpSourceTask extends SourceTask {
     } catch (Exception e) {
       log.error("Exception thrown calling server.stop()", e);
     }
+    if (null != this.metrics) {
+      this.metrics.close();
+    }
   }
 }
\ No newline at end of file
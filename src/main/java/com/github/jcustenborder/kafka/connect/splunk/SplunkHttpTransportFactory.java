@@ -0,0 +1,35 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.HttpTransport;
+
+import java.io.Closeable;
+
+/**
+ * Creates the {@link HttpTransport} the sink task uses to talk to Splunk. Implementations are configured with
+ * {@link SplunkHttpSinkConnectorConfig#TRANSPORT_FACTORY_CONF} and must have a public no argument constructor. The
+ * factory is closed when the task is stopped.
+ */
+public interface SplunkHttpTransportFactory extends Closeable {
+  /**
+   * Method is used to build the transport for a task.
+   *
+   * @param config config for the task.
+   * @return transport that will be shared by every request from the task.
+   */
+  HttpTransport create(SplunkHttpSinkConnectorConfig config);
+}
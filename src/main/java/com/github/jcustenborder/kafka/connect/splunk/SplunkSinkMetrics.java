@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.utils.Time;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics for a sink task. They are registered with JMX under the `kafka.connect.splunk` domain and are tagged with
+ * the connector name and the id of the task.
+ */
+class SplunkSinkMetrics implements Closeable {
+  static final String JMX_PREFIX = "kafka.connect.splunk";
+  static final String GROUP = "splunk-sink-metrics";
+
+  final Metrics metrics;
+  final Map<String, String> tags;
+  final Sensor compressionRatio;
+  final Sensor compressionTime;
+  final Sensor compressionBytesSaved;
+
+  SplunkSinkMetrics(SplunkHttpSinkConnectorConfig config) {
+    this(
+        new Metrics(
+            new MetricConfig(),
+            Collections.<MetricsReporter>singletonList(new JmxReporter(JMX_PREFIX)),
+            Time.SYSTEM
+        ),
+        config.connectorName,
+        config.taskId
+    );
+  }
+
+  SplunkSinkMetrics(Metrics metrics, String connectorName, String taskId) {
+    this.metrics = metrics;
+    this.tags = ImmutableMap.of(
+        "connector", Strings.isNullOrEmpty(connectorName) ? "unknown" : connectorName,
+        "task", taskId
+    );
+
+    this.compressionRatio = this.metrics.sensor("compression-ratio");
+    this.compressionRatio.add(
+        this.metrics.metricName("compression-ratio-avg", GROUP, "The average ratio of compressed to uncompressed body size.", this.tags),
+        new Avg()
+    );
+
+    this.compressionTime = this.metrics.sensor("compression-time");
+    this.compressionTime.add(
+        this.metrics.metricName("compression-time-avg", GROUP, "The average time in milliseconds spent compressing a body.", this.tags),
+        new Avg()
+    );
+    this.compressionTime.add(
+        this.metrics.metricName("compression-time-max", GROUP, "The maximum time in milliseconds spent compressing a body.", this.tags),
+        new Max()
+    );
+
+    this.compressionBytesSaved = this.metrics.sensor("compression-bytes-saved");
+    this.compressionBytesSaved.add(
+        this.metrics.metricName("compression-bytes-saved-rate", GROUP, "The number of bytes per second that compression kept off the wire.", this.tags),
+        new Rate()
+    );
+  }
+
+  /**
+   * Method is used to expose the current target of the adaptive batch size.
+   *
+   * @param batchSize batch size to report.
+   */
+  void batchSize(final AdaptiveBatchSize batchSize) {
+    this.metrics.addMetric(
+        this.metrics.metricName("batch-size-target-bytes", GROUP, "The current target size of a batch in bytes.", this.tags),
+        (Measurable) (config, now) -> batchSize.targetBytes()
+    );
+    this.metrics.addMetric(
+        this.metrics.metricName("batch-size-target-records", GROUP, "The current target size of a batch in records.", this.tags),
+        (Measurable) (config, now) -> batchSize.targetRecords()
+    );
+  }
+
+  /**
+   * Method is used to expose how much data is waiting in the spill log.
+   *
+   * @param spillLog spill log to report.
+   */
+  void spill(final SpillLog spillLog) {
+    this.metrics.addMetric(
+        this.metrics.metricName("spill-bytes", GROUP, "The number of bytes of batches waiting in the spill log.", this.tags),
+        (Measurable) (config, now) -> spillLog.bytes()
+    );
+    this.metrics.addMetric(
+        this.metrics.metricName("spill-batches", GROUP, "The number of batches waiting in the spill log.", this.tags),
+        (Measurable) (config, now) -> spillLog.entries()
+    );
+  }
+
+  void recordCompression(int uncompressedBytes, int compressedBytes, long nanos) {
+    this.compressionRatio.record((double) compressedBytes / uncompressedBytes);
+    this.compressionTime.record(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    this.compressionBytesSaved.record(uncompressedBytes - compressedBytes);
+  }
+
+  @Override
+  public void close() {
+    this.metrics.close();
+  }
+}
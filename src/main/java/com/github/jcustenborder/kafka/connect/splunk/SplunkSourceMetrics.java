@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.MetricsReporter;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.Total;
+import org.apache.kafka.common.utils.Time;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics for a source task. They are registered with JMX under the `kafka.connect.splunk` domain and are tagged with
+ * the connector name and a task number that is unique within the JVM.
+ */
+class SplunkSourceMetrics implements Closeable {
+  static final String GROUP = "splunk-source-metrics";
+  private static final AtomicInteger TASK_NUMBER = new AtomicInteger();
+
+  final Metrics metrics;
+  final Map<String, String> tags;
+  final Sensor requestsRejected;
+
+  SplunkSourceMetrics(String connectorName) {
+    this(
+        new Metrics(
+            new MetricConfig(),
+            Collections.<MetricsReporter>singletonList(new JmxReporter(SplunkSinkMetrics.JMX_PREFIX)),
+            Time.SYSTEM
+        ),
+        connectorName
+    );
+  }
+
+  SplunkSourceMetrics(Metrics metrics, String connectorName) {
+    this.metrics = metrics;
+    this.tags = ImmutableMap.of(
+        "connector", null == connectorName ? "unknown" : connectorName,
+        "task", Integer.toString(TASK_NUMBER.getAndIncrement())
+    );
+
+    this.requestsRejected = this.metrics.sensor("requests-rejected");
+    this.requestsRejected.add(
+        this.metrics.metricName("requests-rejected-rate", GROUP, "The number of requests per second rejected because the queue was full.", this.tags),
+        new Rate()
+    );
+    this.requestsRejected.add(
+        this.metrics.metricName("requests-rejected-total", GROUP, "The total number of requests rejected because the queue was full.", this.tags),
+        new Total()
+    );
+  }
+
+  /**
+   * Method is used to expose how full the queue of received records is.
+   *
+   * @param queue queue to report.
+   */
+  void queue(final SourceRecordQueue queue) {
+    this.metrics.addMetric(
+        this.metrics.metricName("queue-records", GROUP, "The number of received records waiting to be written to Kafka.", this.tags),
+        (Measurable) (config, now) -> queue.size()
+    );
+    this.metrics.addMetric(
+        this.metrics.metricName("queue-bytes", GROUP, "The estimated size of the received records waiting to be written to Kafka.", this.tags),
+        (Measurable) (config, now) -> queue.bytes()
+    );
+    this.metrics.addMetric(
+        this.metrics.metricName("queue-fill-ratio", GROUP, "How full the queue is, from 0 to 1, by records or bytes whichever is higher.", this.tags),
+        (Measurable) (config, now) -> queue.fillRatio()
+    );
+  }
+
+  void recordRejected() {
+    this.requestsRejected.record();
+  }
+
+  @Override
+  public void close() {
+    this.metrics.close();
+  }
+}
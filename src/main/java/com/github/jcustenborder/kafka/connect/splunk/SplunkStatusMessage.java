@@ -17,8 +17,21 @@ package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.google.api.client.util.Key;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
 
 public class SplunkStatusMessage {
+  /**
+   * Codes returned when Splunk understood the request but the data in it can never be indexed. Sending the same data
+   * again will always fail.
+   */
+  static final Set<Integer> INVALID_DATA_CODES = ImmutableSet.of(5, 6, 7, 12, 13, 15);
+  /**
+   * Codes returned when the token or its settings prevent any data from being indexed.
+   */
+  static final Set<Integer> CONFIGURATION_CODES = ImmutableSet.of(1, 2, 3, 4, 14);
+
   @Key("text")
   String text;
 
@@ -28,6 +41,9 @@ public class SplunkStatusMessage {
   @Key("invalid-event-number")
   Integer invalidEventNumber;
 
+  @Key("ackId")
+  Long ackId;
+
   public String text() {
     return this.text;
   }
@@ -48,6 +64,24 @@ public class SplunkStatusMessage {
     return 0 == this.code;
   }
 
+  /**
+   * Method is used to determine if Splunk rejected the data in the request.
+   *
+   * @return true if the data can never be indexed.
+   */
+  public boolean isInvalidData() {
+    return null != this.code && INVALID_DATA_CODES.contains(this.code);
+  }
+
+  /**
+   * Method is used to determine if a failed request could succeed if it is sent again.
+   *
+   * @return true if the request should be retried.
+   */
+  public boolean isRetriable() {
+    return !isSuccessful() && !isInvalidData() && !CONFIGURATION_CODES.contains(this.code);
+  }
+
   public Integer invalidEventNumber() {
     return invalidEventNumber;
   }
@@ -56,12 +90,21 @@ public class SplunkStatusMessage {
     this.invalidEventNumber = invalidEventNumber;
   }
 
+  public Long ackId() {
+    return this.ackId;
+  }
+
+  public void ackId(Long ackId) {
+    this.ackId = ackId;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
         .add("code", this.code)
         .add("text", this.text)
         .add("invalidEventNumber", this.invalidEventNumber)
+        .add("ackId", this.ackId)
         .toString();
   }
 }
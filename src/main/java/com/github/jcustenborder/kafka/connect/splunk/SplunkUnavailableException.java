@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.errors.RetriableException;
+
+/**
+ * Thrown when Splunk is not accepting data, either because it responded with a server error or because it could not
+ * be reached. Carries the wait Splunk asked for with the Retry-After header if there was one.
+ */
+class SplunkUnavailableException extends RetriableException {
+  final Long retryAfterMs;
+
+  SplunkUnavailableException(String message, Long retryAfterMs) {
+    super(message);
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  SplunkUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+    this.retryAfterMs = null;
+  }
+}
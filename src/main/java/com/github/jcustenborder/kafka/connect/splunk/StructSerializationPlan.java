@@ -0,0 +1,141 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class is used to precompute how the fields of a {@link Schema} are written. The fields holding reserved
+ * metadata are located once and the names of the remaining fields are encoded once so that writing a
+ * {@link Struct} only walks an array.
+ */
+class StructSerializationPlan {
+  static final int MAX_PLANS = 1024;
+
+  /**
+   * Plans are cached by the identity of their schema. Converters hand out the same schema instance for every record
+   * of a given version, so a lookup never hashes or compares the fields of a schema. The cache is a fixed array
+   * indexed by the identity hash of the schema and a schema that lands on a slot in use replaces the plan in it.
+   * Plans only have final fields so they are shared between threads without locking.
+   */
+  private static final StructSerializationPlan[] PLANS = new StructSerializationPlan[MAX_PLANS];
+
+  final Schema schema;
+  final Field host;
+  final Field time;
+  final Field sourcetype;
+  final Field index;
+  final Field source;
+  final Field[] fields;
+  final SerializedString[] names;
+
+  StructSerializationPlan(Schema schema) {
+    this.schema = schema;
+    Field host = null, time = null, sourcetype = null, index = null, source = null;
+    List<Field> fields = new ArrayList<>(schema.fields().size());
+
+    for (Field field : schema.fields()) {
+      switch (field.name()) {
+        case "host":
+          host = field;
+          break;
+        case "time":
+          time = field;
+          break;
+        case "sourcetype":
+          sourcetype = field;
+          break;
+        case "index":
+          index = field;
+          break;
+        case "source":
+          source = field;
+          break;
+        default:
+          fields.add(field);
+          break;
+      }
+    }
+
+    this.host = host;
+    this.time = time;
+    this.sourcetype = sourcetype;
+    this.index = index;
+    this.source = source;
+    this.fields = fields.toArray(new Field[fields.size()]);
+    this.names = new SerializedString[this.fields.length];
+    for (int i = 0; i < this.fields.length; i++) {
+      this.names[i] = new SerializedString(this.fields[i].name());
+    }
+  }
+
+  /**
+   * Method is used to find the plan for a schema, compiling it the first time the schema is seen.
+   *
+   * @param schema schema of the struct being written.
+   * @return plan for the schema.
+   */
+  static StructSerializationPlan of(final Schema schema) {
+    final int slot = System.identityHashCode(schema) & (MAX_PLANS - 1);
+    StructSerializationPlan plan = PLANS[slot];
+    if (null == plan || plan.schema != schema) {
+      plan = new StructSerializationPlan(schema);
+      PLANS[slot] = plan;
+    }
+    return plan;
+  }
+
+  static Object get(Struct struct, Field field) {
+    return null == field ? null : struct.get(field);
+  }
+
+  /**
+   * Method is used to determine if any of the fields that are not reserved metadata have a value.
+   */
+  boolean hasEvent(Struct struct) {
+    for (Field field : this.fields) {
+      if (null != struct.get(field)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Method is used to write the fields that are not reserved metadata as an object, omitting null values.
+   */
+  void writeEvent(Struct struct, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+    jsonGenerator.writeStartObject();
+    for (int i = 0; i < this.fields.length; i++) {
+      final Object value = struct.get(this.fields[i]);
+      if (null == value) {
+        continue;
+      }
+      jsonGenerator.writeFieldName(this.names[i]);
+      ObjectMapperFactory.writeValue(jsonGenerator, serializerProvider, value);
+    }
+    jsonGenerator.writeEndObject();
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.common.utils.Time;
+
+/**
+ * Token bucket that refills at a fixed rate per second and holds at most one second worth of tokens. Tokens are
+ * taken after the fact so the bucket can go into debt. The debt is how long the caller should hold off before
+ * taking more. This class is not thread safe.
+ */
+class TokenBucket {
+  final String name;
+  final double ratePerSecond;
+  final double capacity;
+  final Time time;
+  double tokens;
+  long lastRefillMs;
+
+  TokenBucket(String name, double ratePerSecond, Time time) {
+    this.name = name;
+    this.ratePerSecond = ratePerSecond;
+    this.capacity = ratePerSecond;
+    this.time = time;
+    this.tokens = this.capacity;
+    this.lastRefillMs = time.milliseconds();
+  }
+
+  private void refill() {
+    final long now = this.time.milliseconds();
+    final long elapsed = now - this.lastRefillMs;
+    if (elapsed > 0) {
+      this.tokens = Math.min(this.capacity, this.tokens + elapsed * this.ratePerSecond / 1000D);
+      this.lastRefillMs = now;
+    }
+  }
+
+  /**
+   * Method is used to take tokens from the bucket.
+   *
+   * @param count number of tokens to take.
+   */
+  void take(long count) {
+    refill();
+    this.tokens -= count;
+  }
+
+  /**
+   * Method returns how long to wait until the bucket is out of debt.
+   *
+   * @return milliseconds to wait. 0 if tokens are available.
+   */
+  long delayMs() {
+    refill();
+    if (this.tokens >= 0) {
+      return 0;
+    }
+    return (long) Math.ceil(-this.tokens * 1000D / this.ratePerSecond);
+  }
+
+  @Override
+  public String toString() {
+    return this.name;
+  }
+}
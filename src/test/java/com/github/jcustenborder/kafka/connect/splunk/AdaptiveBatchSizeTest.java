@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdaptiveBatchSizeTest {
+
+  static AdaptiveBatchSize batchSize(String... settings) {
+    return new AdaptiveBatchSize(SplunkHttpSinkConnectorConfigTest.config(settings));
+  }
+
+  static AdaptiveBatchSize enabled() {
+    return batchSize(
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_MIN_BYTES_CONF, "10240",
+        SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF, "1034240",
+        SplunkHttpSinkConnectorConfig.BATCH_MAX_RECORDS_CONF, "1000",
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_LATENCY_CONF, "100"
+    );
+  }
+
+  @Test
+  public void disabled() {
+    AdaptiveBatchSize batchSize = batchSize();
+    assertEquals(1000000, batchSize.targetBytes());
+    assertEquals(10000, batchSize.targetRecords());
+    batchSize.overloaded("test");
+    assertEquals(1000000, batchSize.targetBytes());
+  }
+
+  @Test
+  public void additiveIncrease() {
+    AdaptiveBatchSize batchSize = enabled();
+    assertEquals(10240, batchSize.targetBytes());
+    assertEquals(50, batchSize.targetRecords());
+
+    batchSize.success(10);
+    assertEquals(10240 + 51200, batchSize.targetBytes());
+    assertEquals(100, batchSize.targetRecords());
+
+    batchSize.success(1000);
+    assertEquals(10240 + 51200, batchSize.targetBytes(), "Slow requests should not grow the batch.");
+
+    for (int i = 0; i < 100; i++) {
+      batchSize.success(10);
+    }
+    assertEquals(1034240, batchSize.targetBytes());
+    assertEquals(1000, batchSize.targetRecords());
+  }
+
+  @Test
+  public void multiplicativeDecrease() {
+    AdaptiveBatchSize batchSize = enabled();
+    for (int i = 0; i < 100; i++) {
+      batchSize.success(10);
+    }
+    batchSize.overloaded("test");
+    assertEquals(1034240 / 2, batchSize.targetBytes());
+    assertEquals(500, batchSize.targetRecords());
+
+    for (int i = 0; i < 100; i++) {
+      batchSize.overloaded("test");
+    }
+    assertEquals(10240, batchSize.targetBytes());
+    assertEquals(1, batchSize.targetRecords());
+  }
+
+  @Test
+  public void tooLarge() {
+    AdaptiveBatchSize batchSize = enabled();
+    for (int i = 0; i < 100; i++) {
+      batchSize.success(10);
+    }
+    batchSize.tooLarge(400000);
+    assertEquals(200000, batchSize.targetBytes());
+    assertEquals(1000, batchSize.targetRecords(), "Only the size in bytes should be lowered.");
+
+    batchSize.tooLarge(400000);
+    assertEquals(200000, batchSize.targetBytes(), "The same request size should not lower the target again.");
+    batchSize.tooLarge(200000);
+    assertEquals(100000, batchSize.targetBytes());
+    batchSize.tooLarge(1000);
+    assertEquals(10240, batchSize.targetBytes());
+  }
+
+  @Test
+  public void batcherUsesTarget() throws IOException {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_MIN_BYTES_CONF, "1000000",
+        SplunkHttpSinkConnectorConfig.BATCH_MAX_RECORDS_CONF, "1000"
+    );
+    AdaptiveBatchSize batchSize = new AdaptiveBatchSize(config);
+    SinkRecordBatcher batcher = new SinkRecordBatcher(config, batchSize, new BufferPool(0));
+    List<SinkRecord> records = SinkRecordBatcherTest.records(100);
+    assertEquals(2, batcher.batch(records).size(), "Batches should be limited to the target number of records.");
+
+    for (int i = 0; i < 100; i++) {
+      batchSize.overloaded("test");
+    }
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(100, batches.size(), "Every record should be in its own batch.");
+    assertEquals(1, batches.get(0).records.size());
+  }
+}
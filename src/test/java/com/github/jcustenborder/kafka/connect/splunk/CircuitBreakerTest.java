@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.common.utils.Time;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CircuitBreakerTest {
+  AtomicLong now;
+  Time time;
+
+  @BeforeEach
+  public void setup() {
+    this.now = new AtomicLong(1000000L);
+    this.time = mock(Time.class);
+    when(this.time.milliseconds()).thenAnswer(invocation -> this.now.get());
+  }
+
+  CircuitBreaker circuitBreaker(String threshold) {
+    return new CircuitBreaker(
+        SplunkHttpSinkConnectorConfigTest.config(
+            SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, threshold,
+            SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_CONF, "1000",
+            SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_JITTER_CONF, "0"
+        ),
+        this.time
+    );
+  }
+
+  @Test
+  public void halfOpenProbe() {
+    CircuitBreaker circuitBreaker = circuitBreaker("3");
+    circuitBreaker.failure(null);
+    circuitBreaker.failure(null);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    assertEquals(0L, circuitBreaker.acquire());
+
+    circuitBreaker.failure(null);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertEquals(1000L, circuitBreaker.acquire());
+    assertEquals(1000L, circuitBreaker.openMs());
+
+    this.now.addAndGet(1000L);
+    assertEquals(0L, circuitBreaker.acquire(), "The probe should be let through.");
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+    assertTrue(circuitBreaker.acquire() > 0, "Only a single probe should be let through.");
+    assertEquals(0L, circuitBreaker.openMs(), "put() should not back off while probing.");
+
+    circuitBreaker.failure(null);
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+    assertEquals(2000L, circuitBreaker.openMs(), "Backoff should double after a failed probe.");
+
+    this.now.addAndGet(2000L);
+    assertEquals(0L, circuitBreaker.acquire());
+    circuitBreaker.success();
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    assertEquals(0L, circuitBreaker.acquire());
+  }
+
+  @Test
+  public void successResetsFailures() {
+    CircuitBreaker circuitBreaker = circuitBreaker("2");
+    circuitBreaker.failure(null);
+    circuitBreaker.success();
+    circuitBreaker.failure(null);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+  }
+
+  @Test
+  public void retryAfter() {
+    CircuitBreaker circuitBreaker = circuitBreaker("1");
+    circuitBreaker.failure(30000L);
+    assertEquals(30000L, circuitBreaker.openMs(), "Retry-After should be used when it is longer than the backoff.");
+    circuitBreaker.failure(60000L);
+    assertEquals(60000L, circuitBreaker.openMs(), "A longer Retry-After should extend the open breaker.");
+  }
+
+  @Test
+  public void disabled() {
+    CircuitBreaker circuitBreaker = circuitBreaker("0");
+    for (int i = 0; i < 100; i++) {
+      circuitBreaker.failure(1000L);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    assertEquals(0L, circuitBreaker.acquire());
+  }
+}
@@ -16,27 +16,111 @@
 package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.kafka.connect.data.Struct;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class EventIteratorTest {
   public static InputStream events() {
     return EventIteratorTest.class.getResourceAsStream("events.json");
   }
 
+  static List<Struct> read(String body) throws Exception {
+    List<Struct> events = new ArrayList<>();
+    try (EventIterator iterator = EventIterator.create(new JsonFactory(), new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+      while (iterator.hasNext()) {
+        events.add(iterator.next());
+      }
+    }
+    return events;
+  }
+
   @Test
-  public void iterate() throws IOException {
+  public void iterate() throws Exception {
     JsonFactory factory = new JsonFactory();
     InputStream inputStream = events();
-    EventIterator iterator = EventIterator.create(factory, inputStream);
+    List<Struct> events = new ArrayList<>();
+    try (EventIterator iterator = EventIterator.create(factory, inputStream)) {
+      while (iterator.hasNext()) {
+        Struct event = iterator.next();
+        event.validate();
+        events.add(event);
+      }
+    }
+
+    assertEquals(4, events.size());
+    Struct event = events.get(0);
+    assertEquals(new Date(1437522387000L), event.get("time"));
+    assertEquals("dataserver992.example.com", event.getString("host"));
+    assertEquals("testapp", event.getString("source"));
+    assertEquals("{\"message\":\"Something happened\",\"severity\":\"INFO\"}", event.getString("event"));
+    assertEquals("hello world", events.get(3).getString("event"));
+    assertNull(events.get(3).get("time"));
+  }
+
+  @Test
+  public void eventCopiedAsIs() throws Exception {
+    List<Struct> events = read("{\"event\": {\"a\": [1, 2.5, true, null, {\"b\": \"caf\\u00e9\"}], \"c\": {}}}");
+    assertEquals(1, events.size());
+    assertEquals("{\"a\":[1,2.5,true,null,{\"b\":\"caf\u00e9\"}],\"c\":{}}", events.get(0).getString("event"));
+  }
+
+  @Test
+  public void scalars() throws Exception {
+    List<Struct> events = read("{\"event\": 12, \"host\": true, \"source\": 1e3, \"index\": null}");
+    Struct event = events.get(0);
+    assertEquals("12", event.getString("event"));
+    assertEquals("true", event.getString("host"));
+    assertEquals("1000.0", event.getString("source"));
+    assertNull(event.get("index"));
+  }
 
-    while (iterator.hasNext()) {
-      JsonNode jsonNode = iterator.next();
-      System.out.println(jsonNode.toString());
+  @Test
+  public void time() throws Exception {
+    List<Struct> events = read("{\"time\": 1426279439.5}{\"time\": \"1426279439\"}{\"time\": {\"a\": 1}}");
+    assertEquals(3, events.size());
+    assertEquals(new Date(1426279439500L), events.get(0).get("time"));
+    assertNull(events.get(1).get("time"), "Only numbers are read as the time.");
+    assertNull(events.get(2).get("time"));
+  }
+
+  @Test
+  public void unknownFieldsSkipped() throws Exception {
+    List<Struct> events = read("{\"fields\": {\"event\": \"nested\", \"a\": [{\"host\": \"x\"}]}, \"event\": \"outer\"}{\"event\": \"next\"}");
+    assertEquals(2, events.size());
+    assertEquals("outer", events.get(0).getString("event"));
+    assertNull(events.get(0).get("host"));
+    assertEquals("next", events.get(1).getString("event"));
+  }
+
+  @Test
+  public void empty() throws Exception {
+    try (EventIterator iterator = EventIterator.create(new JsonFactory(), new ByteArrayInputStream(new byte[0]))) {
+      assertFalse(iterator.hasNext());
     }
   }
 
+  @Test
+  public void notAnObject() throws IOException {
+    EventIterator iterator = EventIterator.create(new JsonFactory(), new ByteArrayInputStream("[1]".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IllegalStateException.class, iterator::next);
+  }
+
+  @Test
+  public void arrayEvent() throws IOException {
+    EventIterator iterator = EventIterator.create(new JsonFactory(), new ByteArrayInputStream("{\"event\": [1]}".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IllegalArgumentException.class, iterator::next);
+  }
 }
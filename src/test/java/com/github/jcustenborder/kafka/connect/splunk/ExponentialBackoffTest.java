@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExponentialBackoffTest {
+
+  @Test
+  public void doubles() {
+    ExponentialBackoff backoff = new ExponentialBackoff(100, 1000, 0D);
+    assertEquals(0L, backoff.backoffMs(0));
+    assertEquals(100L, backoff.backoffMs(1));
+    assertEquals(200L, backoff.backoffMs(2));
+    assertEquals(400L, backoff.backoffMs(3));
+    assertEquals(800L, backoff.backoffMs(4));
+    assertEquals(1000L, backoff.backoffMs(5));
+    assertEquals(1000L, backoff.backoffMs(Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void jitter() {
+    ExponentialBackoff backoff = new ExponentialBackoff(1000, 60000, 0.5D);
+    for (int i = 0; i < 1000; i++) {
+      final long delay = backoff.backoffMs(2);
+      assertTrue(delay > 1000L && delay <= 2000L, String.format("%s is not between 1000 and 2000.", delay));
+    }
+  }
+
+  @Test
+  public void disabled() {
+    ExponentialBackoff backoff = new ExponentialBackoff(0, 60000, 0.5D);
+    assertEquals(0L, backoff.backoffMs(10));
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class FileDeadLetterQueueTest {
+  File directory;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("dead-letter").toFile();
+  }
+
+  @AfterEach
+  public void teardown() {
+    File[] files = this.directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    this.directory.delete();
+  }
+
+  @Test
+  public void write() throws IOException {
+    try (FileDeadLetterQueue deadLetterQueue = new FileDeadLetterQueue(this.directory, "splunk-dead-letter-test-0", 1024 * 1024, 10)) {
+      deadLetterQueue.write(new SinkRecord("topic", 1, null, "key", null, ImmutableMap.of("index", "missing"), 10L), "Incorrect index");
+      deadLetterQueue.write(new SinkRecord("topic", 1, null, null, null, "value", 11L), "No data");
+      deadLetterQueue.flush();
+    }
+
+    File[] files = this.directory.listFiles();
+    assertNotNull(files);
+    assertEquals(1, files.length);
+    List<String> lines = Files.readAllLines(files[0].toPath(), StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+
+    JsonNode first = ObjectMapperFactory.INSTANCE.readTree(lines.get(0));
+    assertEquals("topic", first.get("topic").asText());
+    assertEquals(1, first.get("partition").asInt());
+    assertEquals(10L, first.get("offset").asLong());
+    assertEquals("Incorrect index", first.get("error").asText());
+    assertEquals("key", first.get("key").asText());
+    assertEquals("missing", first.get("value").get("index").asText());
+
+    JsonNode second = ObjectMapperFactory.INSTANCE.readTree(lines.get(1));
+    assertEquals(11L, second.get("offset").asLong());
+    assertEquals("value", second.get("value").asText());
+  }
+
+  @Test
+  public void roll() {
+    try (FileDeadLetterQueue deadLetterQueue = new FileDeadLetterQueue(this.directory, "splunk-dead-letter-test-0", 1, 2)) {
+      for (long offset = 0; offset < 5; offset++) {
+        deadLetterQueue.write(new SinkRecord("topic", 1, null, null, null, "value", offset), "No data");
+      }
+    }
+
+    File[] files = this.directory.listFiles();
+    assertNotNull(files);
+    Arrays.sort(files);
+    assertEquals(2, files.length, "Only the newest files should be kept.");
+    assertEquals(
+        Arrays.asList(deadLetterQueueFile(files[0]), deadLetterQueueFile(files[1])),
+        Arrays.asList(3, 4)
+    );
+  }
+
+  @Test
+  public void restart() {
+    try (FileDeadLetterQueue deadLetterQueue = new FileDeadLetterQueue(this.directory, "splunk-dead-letter-test-0", 1, 2)) {
+      deadLetterQueue.write(new SinkRecord("topic", 1, null, null, null, "value", 0L), "No data");
+      deadLetterQueue.write(new SinkRecord("topic", 1, null, null, null, "value", 1L), "No data");
+    }
+    try (FileDeadLetterQueue deadLetterQueue = new FileDeadLetterQueue(this.directory, "splunk-dead-letter-test-1", 1, 2)) {
+      deadLetterQueue.write(new SinkRecord("topic", 2, null, null, null, "value", 0L), "No data");
+    }
+    try (FileDeadLetterQueue deadLetterQueue = new FileDeadLetterQueue(this.directory, "splunk-dead-letter-test-0", 1, 2)) {
+      assertEquals(2, deadLetterQueue.sequence, "A restarted task should continue after the existing files.");
+      deadLetterQueue.write(new SinkRecord("topic", 1, null, null, null, "value", 2L), "No data");
+    }
+
+    File[] files = this.directory.listFiles();
+    assertNotNull(files);
+    Arrays.sort(files);
+    assertEquals(
+        Arrays.asList("splunk-dead-letter-test-0.1.json", "splunk-dead-letter-test-0.2.json", "splunk-dead-letter-test-1.0.json"),
+        Arrays.stream(files).map(File::getName).collect(Collectors.toList()),
+        "Files from before the restart count towards the limit and other tasks are left alone."
+    );
+  }
+
+  @Test
+  public void prefix() {
+    assertEquals("splunk-dead-letter-my_splunk-sink-3", FileDeadLetterQueue.prefix("my/splunk-sink", "3"));
+    assertEquals("splunk-dead-letter-0", FileDeadLetterQueue.prefix("", "0"));
+  }
+
+  static int deadLetterQueueFile(File file) {
+    String name = file.getName();
+    String[] parts = name.split("\\.");
+    return Integer.parseInt(parts[parts.length - 2]);
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class KafkaDeadLetterQueueTest {
+
+  static String header(ProducerRecord<byte[], byte[]> record, String key) {
+    Header header = record.headers().lastHeader(key);
+    return new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void write() {
+    MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+    try (KafkaDeadLetterQueue deadLetterQueue = new KafkaDeadLetterQueue("dead-letter", producer)) {
+      deadLetterQueue.write(
+          new SinkRecord("topic", 3, null, "key", null, ImmutableMap.of("index", "missing"), 42L),
+          "Incorrect index"
+      );
+      deadLetterQueue.flush();
+    }
+
+    assertEquals(1, producer.history().size());
+    ProducerRecord<byte[], byte[]> record = producer.history().get(0);
+    assertEquals("dead-letter", record.topic());
+    assertArrayEquals("key".getBytes(StandardCharsets.UTF_8), record.key());
+    assertEquals("{\"index\":\"missing\"}", new String(record.value(), StandardCharsets.UTF_8));
+    assertEquals("Incorrect index", header(record, KafkaDeadLetterQueue.ERROR_HEADER));
+    assertEquals("topic", header(record, KafkaDeadLetterQueue.TOPIC_HEADER));
+    assertEquals("3", header(record, KafkaDeadLetterQueue.PARTITION_HEADER));
+    assertEquals("42", header(record, KafkaDeadLetterQueue.OFFSET_HEADER));
+  }
+
+  @Test
+  public void sendFailure() {
+    MockProducer<byte[], byte[]> producer = new MockProducer<>(false, new ByteArraySerializer(), new ByteArraySerializer());
+    try (KafkaDeadLetterQueue deadLetterQueue = new KafkaDeadLetterQueue("dead-letter", producer)) {
+      deadLetterQueue.write(new SinkRecord("topic", 3, null, null, null, "value", 42L), "Incorrect index");
+      producer.errorNext(new RuntimeException("Broker is down"));
+      assertThrows(ConnectException.class, deadLetterQueue::flush);
+    }
+  }
+}
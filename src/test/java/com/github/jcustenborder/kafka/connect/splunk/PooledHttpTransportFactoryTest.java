@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PooledHttpTransportFactoryTest {
+
+  static SplunkHttpSinkConnectorConfig config(String transportFactory) {
+    return SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.TRANSPORT_FACTORY_CONF, transportFactory,
+        SplunkHttpSinkConnectorConfig.HTTP_MAX_CONNECTIONS_CONF, "12",
+        SplunkHttpSinkConnectorConfig.HTTP_MAX_CONNECTIONS_PER_ROUTE_CONF, "3"
+    );
+  }
+
+  @Test
+  public void defaultFactory() throws IOException {
+    SplunkHttpSinkConnectorConfig config = config(NetHttpTransportFactory.class.getName());
+    try (SplunkHttpTransportFactory factory = config.transportFactory()) {
+      assertTrue(factory instanceof NetHttpTransportFactory);
+      HttpTransport transport = factory.create(config);
+      assertFalse(transport instanceof ApacheHttpTransport);
+    }
+  }
+
+  @Test
+  public void pooled() throws IOException {
+    SplunkHttpSinkConnectorConfig config = config(PooledHttpTransportFactory.class.getName());
+    try (SplunkHttpTransportFactory factory = config.transportFactory()) {
+      assertTrue(factory instanceof PooledHttpTransportFactory);
+      HttpTransport transport = factory.create(config);
+      assertTrue(transport instanceof ApacheHttpTransport);
+      PooledHttpTransportFactory pooled = (PooledHttpTransportFactory) factory;
+      assertSame(pooled.connectionManager, ((ApacheHttpTransport) transport).getHttpClient().getConnectionManager());
+      assertEquals(12, pooled.connectionManager.getMaxTotal());
+      assertEquals(3, pooled.connectionManager.getDefaultMaxPerRoute());
+    }
+  }
+}
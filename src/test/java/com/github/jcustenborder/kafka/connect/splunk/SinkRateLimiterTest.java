@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SinkRateLimiterTest {
+  static final TopicPartition FIRST = new TopicPartition("first", 0);
+  static final TopicPartition SECOND = new TopicPartition("second", 0);
+
+  AtomicLong now;
+  Time time;
+  SinkTaskContext context;
+
+  @BeforeEach
+  public void setup() {
+    this.now = new AtomicLong(1000000L);
+    this.time = mock(Time.class);
+    when(this.time.milliseconds()).thenAnswer(invocation -> this.now.get());
+    this.context = mock(SinkTaskContext.class);
+    when(this.context.assignment()).thenReturn(ImmutableSet.of(FIRST, SECOND));
+  }
+
+  static SinkRecordBatch batch(TopicPartition topicPartition, int count, String index) {
+    List<SinkRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      records.add(new SinkRecord(
+          topicPartition.topic(),
+          topicPartition.partition(),
+          null,
+          null,
+          null,
+          null == index ? ImmutableMap.of("message", "test") : ImmutableMap.of("message", "test", "index", index),
+          i
+      ));
+    }
+    return new SinkRecordBatch(topicPartition, records, new byte[0], count * 100);
+  }
+
+  @Test
+  public void disabled() {
+    SinkRateLimiter rateLimiter = new SinkRateLimiter(SplunkHttpSinkConnectorConfigTest.config(), this.time);
+    assertTrue(!rateLimiter.enabled());
+  }
+
+  @Test
+  public void events() {
+    SinkRateLimiter rateLimiter = new SinkRateLimiter(
+        SplunkHttpSinkConnectorConfigTest.config(SplunkHttpSinkConnectorConfig.RATE_LIMIT_EVENTS_CONF, "10"),
+        this.time
+    );
+    assertTrue(rateLimiter.enabled());
+
+    rateLimiter.take(this.context, ImmutableList.of(batch(FIRST, 5, null)));
+    verify(this.context, never()).pause(any());
+
+    rateLimiter.take(this.context, ImmutableList.of(batch(FIRST, 25, null)));
+    ArgumentCaptor<TopicPartition> paused = ArgumentCaptor.forClass(TopicPartition.class);
+    verify(this.context).pause(paused.capture());
+    assertEquals(ImmutableSet.of(FIRST, SECOND), ImmutableSet.copyOf(paused.getAllValues()));
+    assertEquals(ImmutableSet.of(FIRST, SECOND), rateLimiter.paused.keySet(), "Task limits should pause every partition.");
+
+    this.now.addAndGet(1000);
+    rateLimiter.resume(this.context);
+    verify(this.context, never()).resume(any());
+
+    this.now.addAndGet(1000);
+    rateLimiter.resume(this.context);
+    ArgumentCaptor<TopicPartition> resumed = ArgumentCaptor.forClass(TopicPartition.class);
+    verify(this.context).resume(resumed.capture());
+    assertEquals(ImmutableSet.of(FIRST, SECOND), ImmutableSet.copyOf(resumed.getAllValues()));
+    assertTrue(rateLimiter.paused.isEmpty());
+  }
+
+  @Test
+  public void bytes() {
+    SinkRateLimiter rateLimiter = new SinkRateLimiter(
+        SplunkHttpSinkConnectorConfigTest.config(SplunkHttpSinkConnectorConfig.RATE_LIMIT_BYTES_CONF, "1000"),
+        this.time
+    );
+    rateLimiter.take(this.context, ImmutableList.of(batch(FIRST, 20, null)));
+    assertEquals(ImmutableSet.of(FIRST, SECOND), rateLimiter.paused.keySet());
+  }
+
+  @Test
+  public void index() {
+    SinkRateLimiter rateLimiter = new SinkRateLimiter(
+        SplunkHttpSinkConnectorConfigTest.config(
+            SplunkHttpSinkConnectorConfig.RATE_LIMIT_INDEX_PREFIX + "main" + SplunkHttpSinkConnectorConfig.EVENTS_PER_SEC_SUFFIX, "5"
+        ),
+        this.time
+    );
+    rateLimiter.take(this.context, ImmutableList.of(batch(FIRST, 10, "main"), batch(SECOND, 10, "other")));
+    assertEquals(ImmutableSet.of(FIRST), rateLimiter.paused.keySet(), "Only the partition writing to main should be paused.");
+
+    rateLimiter.forget(ImmutableList.of(FIRST));
+    assertTrue(rateLimiter.paused.isEmpty());
+  }
+
+  @Test
+  public void passthroughIndex() throws UnsupportedEncodingException {
+    SinkRateLimiter rateLimiter = new SinkRateLimiter(
+        SplunkHttpSinkConnectorConfigTest.config(
+            SplunkHttpSinkConnectorConfig.PASSTHROUGH_TOPICS_CONF, FIRST.topic(),
+            SplunkHttpSinkConnectorConfig.RATE_LIMIT_INDEX_PREFIX + "main" + SplunkHttpSinkConnectorConfig.EVENTS_PER_SEC_SUFFIX, "5"
+        ),
+        this.time
+    );
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      final String event = "{\"event\":{\"index\":\"nested\"},\"index\":\"main\"}";
+      records.add(new SinkRecord(FIRST.topic(), FIRST.partition(), null, null, null, i % 2 == 0 ? event : event.getBytes("UTF-8"), i));
+    }
+    SinkRecordBatch batch = new SinkRecordBatch(FIRST, records, new byte[0], 1000);
+    assertEquals("main", rateLimiter.index(batch, records.get(0)));
+    assertEquals("main", rateLimiter.index(batch, records.get(1)));
+    rateLimiter.take(this.context, ImmutableList.of(batch));
+    assertEquals(ImmutableSet.of(FIRST), rateLimiter.paused.keySet(), "Pass through events should count against their index.");
+
+    assertNull(SinkRateLimiter.passthroughIndex("{\"event\":\"test\"}"));
+    assertNull(SinkRateLimiter.passthroughIndex("not json"));
+    SinkRecord string = new SinkRecord(SECOND.topic(), SECOND.partition(), null, null, null, "{\"index\":\"main\"}", 0);
+    assertNull(
+        rateLimiter.index(new SinkRecordBatch(SECOND, ImmutableList.of(string), new byte[0], 10), string),
+        "Strings on other topics are written as the event."
+    );
+  }
+}
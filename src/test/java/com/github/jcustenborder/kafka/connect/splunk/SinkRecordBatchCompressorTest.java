@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.io.ByteStreams;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SinkRecordBatchCompressorTest {
+  SplunkSinkMetrics metrics;
+
+  @BeforeEach
+  public void setup() {
+    this.metrics = new SplunkSinkMetrics(new Metrics(), "test", "0");
+  }
+
+  @AfterEach
+  public void teardown() {
+    this.metrics.close();
+  }
+
+  SinkRecordBatchCompressor compressor(String... settings) {
+    return new SinkRecordBatchCompressor(SplunkHttpSinkConnectorConfigTest.config(settings), this.metrics);
+  }
+
+  static SinkRecordBatch batch(List<SinkRecord> records) throws IOException {
+    return new SinkRecordBatcher(1000000).batch(records).get(0);
+  }
+
+  static String decompress(SinkRecordBatch batch) throws IOException {
+    try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(batch.buffer, 0, batch.length))) {
+      return new String(ByteStreams.toByteArray(inputStream), "UTF-8");
+    }
+  }
+
+  @Test
+  public void compress() throws IOException {
+    SinkRecordBatchCompressor compressor = compressor();
+    for (int count : new int[]{100, 10, 1000}) {
+      List<SinkRecord> records = SinkRecordBatcherTest.records(count);
+      SinkRecordBatch batch = batch(records);
+      final int length = batch.length;
+      compressor.compress(batch);
+      assertEquals(SinkRecordBatchCompressor.GZIP, batch.contentEncoding);
+      assertTrue(batch.length < length, "Body should be smaller after compression.");
+      assertEquals(SinkRecordBatcherTest.expected(records), decompress(batch));
+
+      final byte[] compressed = batch.buffer;
+      compressor.compress(batch);
+      assertSame(compressed, batch.buffer, "Body should only be compressed once.");
+    }
+  }
+
+  @Test
+  public void level() throws IOException {
+    List<SinkRecord> records = SinkRecordBatcherTest.records(100);
+    SinkRecordBatch batch = batch(records);
+    compressor(SplunkHttpSinkConnectorConfig.COMPRESSION_LEVEL_CONF, "1").compress(batch);
+    assertEquals(SinkRecordBatcherTest.expected(records), decompress(batch));
+  }
+
+  @Test
+  public void belowMinBytes() throws IOException {
+    SinkRecordBatch batch = batch(SinkRecordBatcherTest.records(1));
+    final byte[] buffer = batch.buffer;
+    compressor(SplunkHttpSinkConnectorConfig.COMPRESSION_MIN_BYTES_CONF, "1000000").compress(batch);
+    assertNull(batch.contentEncoding);
+    assertSame(buffer, batch.buffer);
+  }
+
+  @Test
+  public void close() throws Exception {
+    SinkRecordBatchCompressor compressor = compressor();
+    compressor.compress(batch(SinkRecordBatcherTest.records(100)));
+    Thread thread = new Thread(() -> {
+      try {
+        compressor.compress(batch(SinkRecordBatcherTest.records(100)));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+    assertEquals(2, compressor.allocated.size(), "Each thread should allocate its own deflater.");
+    compressor.close();
+    assertTrue(compressor.allocated.isEmpty());
+  }
+
+  @Test
+  public void disabled() throws IOException {
+    SinkRecordBatch batch = batch(SinkRecordBatcherTest.records(100));
+    compressor(SplunkHttpSinkConnectorConfig.COMPRESSION_ENABLED_CONF, "false").compress(batch);
+    assertNull(batch.contentEncoding);
+  }
+}
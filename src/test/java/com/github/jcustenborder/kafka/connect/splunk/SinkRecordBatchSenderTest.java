@@ -0,0 +1,403 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SinkRecordBatchSenderTest {
+  static final TopicPartition TOPIC_PARTITION = new TopicPartition("topic", 1);
+
+  static SinkRecordBatch batch(long... offsets) {
+    List<SinkRecord> records = new ArrayList<>(offsets.length);
+    for (long offset : offsets) {
+      records.add(new SinkRecord(TOPIC_PARTITION.topic(), TOPIC_PARTITION.partition(), null, null, null, "value", offset));
+    }
+    return new SinkRecordBatch(TOPIC_PARTITION, records, new byte[0], 0);
+  }
+
+  /**
+   * Builds a handler that delivers batches with the supplied function.
+   */
+  static SinkRecordBatchSender.Handler handler(final Function<SinkRecordBatch, Long> send) {
+    return new SinkRecordBatchSender.Handler() {
+      @Override
+      public Long send(SinkRecordBatch batch) {
+        return send.apply(batch);
+      }
+
+      @Override
+      public SinkRecordBatch rebatch(SinkRecordBatch batch, List<SinkRecord> records) {
+        return new SinkRecordBatch(batch.topicPartition, new ArrayList<>(records), new byte[0], 0);
+      }
+
+      @Override
+      public Map<Long, Boolean> acks(Collection<Long> ackIds) {
+        return Collections.emptyMap();
+      }
+    };
+  }
+
+  static SplunkHttpSinkConnectorConfig config(String... settings) {
+    Map<String, String> map = SplunkHttpSinkConnectorConfigTest.settings(
+        SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_CONF, "1",
+        SplunkHttpSinkConnectorConfig.MAX_RETRIES_CONF, Integer.toString(Integer.MAX_VALUE),
+        SplunkHttpSinkConnectorConfig.MAX_IN_FLIGHT_REQUESTS_CONF, "2"
+    );
+    for (int i = 0; i < settings.length; i += 2) {
+      map.put(settings[i], settings[i + 1]);
+    }
+    return new SplunkHttpSinkConnectorConfig(map);
+  }
+
+  @Test
+  public void retry() {
+    final AtomicInteger attempts = new AtomicInteger();
+    final List<SinkRecordBatch> delivered = new ArrayList<>();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config(), handler(batch -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new RetriableException("Not yet");
+      }
+      delivered.add(batch);
+      return null;
+    }))) {
+      sender.send(ImmutableList.of(batch(1, 2, 3), batch(4, 5)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Batches should have been delivered.");
+      assertEquals(2, delivered.size());
+      Map<TopicPartition, OffsetAndMetadata> offsets = sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION));
+      assertEquals(ImmutableMap.of(TOPIC_PARTITION, new OffsetAndMetadata(6L)), offsets);
+    }
+  }
+
+  @Test
+  public void fatal() {
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config(), handler(batch -> {
+      throw new ConnectException("Invalid token");
+    }))) {
+      sender.send(ImmutableList.of(batch(1, 2, 3)), 1000);
+      assertThrows(ConnectException.class, () -> sender.awaitDelivery(5000));
+      assertThrows(ConnectException.class, () -> sender.send(ImmutableList.of(batch(4)), 1000));
+    }
+  }
+
+  @Test
+  public void rewind() {
+    SplunkHttpSinkConnectorConfig config = config(SplunkHttpSinkConnectorConfig.MAX_RETRIES_CONF, "2");
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      throw new RetriableException("Splunk is down");
+    }))) {
+      sender.send(ImmutableList.of(batch(10, 11), batch(12, 13)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Batches should have been dropped.");
+      assertEquals(ImmutableMap.of(TOPIC_PARTITION, 10L), sender.rewinds());
+      assertTrue(sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION)).isEmpty(), "Nothing should have been delivered.");
+      assertTrue(sender.rewinds().isEmpty(), "Rewinds should only be returned once.");
+    }
+  }
+
+  @Test
+  public void circuitBreaker() {
+    SplunkHttpSinkConnectorConfig config = config(
+        SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, "1"
+    );
+    final List<Long> attempts = Collections.synchronizedList(new ArrayList<>());
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      attempts.add(System.currentTimeMillis());
+      if (1 == attempts.size()) {
+        throw new SplunkUnavailableException("Server is busy", 250L);
+      }
+      return null;
+    }))) {
+      sender.send(ImmutableList.of(batch(1, 2), batch(3, 4)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Batches should have been delivered.");
+      assertEquals(3, attempts.size(), "The failed batch should be sent again along with the next batch.");
+      assertTrue(attempts.get(1) - attempts.get(0) >= 250L, "Retry-After should have been honoured.");
+      assertEquals(CircuitBreaker.State.CLOSED, sender.circuitBreaker.state());
+    }
+  }
+
+  @Test
+  public void failedProbe() {
+    SplunkHttpSinkConnectorConfig config = config(
+        SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, "1"
+    );
+    final AtomicInteger attempts = new AtomicInteger();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      switch (attempts.incrementAndGet()) {
+        case 1:
+          throw new SplunkUnavailableException("Server is busy", 10L);
+        case 2:
+          throw new RetriableException("Media type of application/json was not returned.");
+        default:
+          return null;
+      }
+    }))) {
+      sender.send(ImmutableList.of(batch(1, 2)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Delivery should resume after a probe fails.");
+      assertEquals(3, attempts.get());
+      assertEquals(CircuitBreaker.State.CLOSED, sender.circuitBreaker.state());
+    }
+  }
+
+  @Test
+  public void spill() throws IOException, InterruptedException {
+    File directory = Files.createTempDirectory("spill").toFile();
+    SplunkHttpSinkConnectorConfig config = config(
+        SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, "1",
+        SplunkHttpSinkConnectorConfig.SENDER_MAX_QUEUED_BATCHES_CONF, "1",
+        SplunkHttpSinkConnectorConfig.SPILL_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.SPILL_PATH_CONF, directory.getAbsolutePath()
+    );
+    final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+    final AtomicInteger attempts = new AtomicInteger();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      if (1 == attempts.incrementAndGet()) {
+        throw new SplunkUnavailableException("Server is busy", 500L);
+      }
+      delivered.add(new String(batch.buffer, 0, batch.length, StandardCharsets.UTF_8));
+      return null;
+    }))) {
+      sender.send(ImmutableList.of(body("1", 1)), 1000);
+      for (int i = 0; i < 100 && CircuitBreaker.State.OPEN != sender.circuitBreaker.state(); i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(CircuitBreaker.State.OPEN, sender.circuitBreaker.state());
+
+      for (long offset = 2; offset <= 4; offset++) {
+        sender.send(ImmutableList.of(body(Long.toString(offset), offset)), 10);
+      }
+      assertTrue(sender.spillLog.entries() >= 3, "Batches should have been spilled instead of blocking.");
+
+      assertTrue(sender.awaitDelivery(5000), "Batches should have been delivered.");
+      assertEquals(ImmutableList.of("1", "2", "3", "4"), delivered, "Spilled batches should be delivered in order.");
+      assertEquals(0, sender.spillLog.entries());
+      assertEquals(
+          ImmutableMap.of(TOPIC_PARTITION, new OffsetAndMetadata(5L)),
+          sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION))
+      );
+    }
+    assertTrue(directory.delete(), "Spill files should be removed when the sender is closed.");
+  }
+
+  @Test
+  public void spilledBatchRejected() throws IOException, InterruptedException {
+    File directory = Files.createTempDirectory("spill").toFile();
+    SplunkHttpSinkConnectorConfig config = config(
+        SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, "1",
+        SplunkHttpSinkConnectorConfig.SENDER_MAX_QUEUED_BATCHES_CONF, "1",
+        SplunkHttpSinkConnectorConfig.SPILL_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.SPILL_PATH_CONF, directory.getAbsolutePath()
+    );
+    final AtomicInteger attempts = new AtomicInteger();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      if (1 == attempts.incrementAndGet()) {
+        throw new SplunkUnavailableException("Server is busy", 500L);
+      }
+      if (null == batch.records) {
+        throw new InvalidEventException("Incorrect index", null);
+      }
+      return null;
+    }))) {
+      sender.send(ImmutableList.of(body("1", 1)), 1000);
+      for (int i = 0; i < 100 && CircuitBreaker.State.OPEN != sender.circuitBreaker.state(); i++) {
+        Thread.sleep(10);
+      }
+      sender.send(ImmutableList.of(body("2", 2)), 10);
+
+      assertTrue(sender.awaitDelivery(5000), "The partition should have been rewound.");
+      assertTrue(
+          sender.rewinds().containsKey(TOPIC_PARTITION),
+          "A rejected spilled batch should be read from Kafka again."
+      );
+      assertEquals(0, sender.spillLog.entries());
+    }
+    assertTrue(directory.delete(), "Spill files should be removed when the sender is closed.");
+  }
+
+  static SinkRecordBatch body(String content, long offset) {
+    byte[] buffer = content.getBytes(StandardCharsets.UTF_8);
+    return new SinkRecordBatch(
+        TOPIC_PARTITION,
+        ImmutableList.of(new SinkRecord(TOPIC_PARTITION.topic(), TOPIC_PARTITION.partition(), null, null, null, content, offset)),
+        buffer,
+        buffer.length
+    );
+  }
+
+  @Test
+  public void queueFull() {
+    SplunkHttpSinkConnectorConfig config = config(SplunkHttpSinkConnectorConfig.SENDER_MAX_QUEUED_BATCHES_CONF, "1");
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, handler(batch -> {
+      throw new RetriableException("Splunk is down");
+    }))) {
+      sender.send(ImmutableList.of(batch(1)), 1000);
+      assertThrows(RetriableException.class, () -> sender.send(ImmutableList.of(batch(2)), 10));
+    }
+  }
+
+  @Test
+  public void acknowledgement() {
+    SplunkHttpSinkConnectorConfig config = config(
+        SplunkHttpSinkConnectorConfig.ACK_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.ACK_POLL_INTERVAL_CONF, "10"
+    );
+    final AtomicLong nextAckId = new AtomicLong();
+    final Set<Long> indexed = ConcurrentHashMap.newKeySet();
+    final AtomicInteger polls = new AtomicInteger();
+
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config, new SinkRecordBatchSender.Handler() {
+      @Override
+      public Long send(SinkRecordBatch batch) {
+        return nextAckId.getAndIncrement();
+      }
+
+      @Override
+      public SinkRecordBatch rebatch(SinkRecordBatch batch, List<SinkRecord> records) {
+        return new SinkRecordBatch(batch.topicPartition, new ArrayList<>(records), new byte[0], 0);
+      }
+
+      @Override
+      public Map<Long, Boolean> acks(Collection<Long> ackIds) {
+        polls.incrementAndGet();
+        Map<Long, Boolean> result = new HashMap<>();
+        for (Long ackId : ackIds) {
+          result.put(ackId, indexed.contains(ackId));
+        }
+        return result;
+      }
+    })) {
+      sender.send(ImmutableList.of(batch(1, 2), batch(3, 4)), 1000);
+      assertFalse(sender.awaitDelivery(200), "Batches should not be complete until they are acknowledged.");
+      assertTrue(polls.get() > 0, "Acknowledgements should have been polled.");
+      assertTrue(sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION)).isEmpty(), "Nothing should be committed.");
+
+      indexed.add(1L);
+      assertFalse(sender.awaitDelivery(200), "The first batch has not been acknowledged.");
+      assertTrue(sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION)).isEmpty(), "Offsets must not skip the first batch.");
+
+      indexed.add(0L);
+      assertTrue(sender.awaitDelivery(5000), "Both batches should have been acknowledged.");
+      assertEquals(
+          ImmutableMap.of(TOPIC_PARTITION, new OffsetAndMetadata(5L)),
+          sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION))
+      );
+    }
+  }
+
+  static SinkRecordBatchSender.Handler rejecting(final long poison, final boolean reportIndex, final List<List<Long>> sent, final List<Long> rejected) {
+    return new SinkRecordBatchSender.Handler() {
+      @Override
+      public Long send(SinkRecordBatch batch) {
+        List<Long> offsets = new ArrayList<>();
+        for (SinkRecord record : batch.records) {
+          offsets.add(record.kafkaOffset());
+        }
+        synchronized (sent) {
+          sent.add(offsets);
+        }
+        int index = offsets.indexOf(poison);
+        if (index >= 0) {
+          throw new InvalidEventException("Incorrect index", reportIndex ? index : null);
+        }
+        return null;
+      }
+
+      @Override
+      public SinkRecordBatch rebatch(SinkRecordBatch batch, List<SinkRecord> records) {
+        return new SinkRecordBatch(batch.topicPartition, new ArrayList<>(records), new byte[0], 0);
+      }
+
+      @Override
+      public void rejected(SinkRecord record, InvalidEventException ex) {
+        rejected.add(record.kafkaOffset());
+      }
+
+      @Override
+      public Map<Long, Boolean> acks(Collection<Long> ackIds) {
+        return Collections.emptyMap();
+      }
+    };
+  }
+
+  @Test
+  public void invalidEventNumber() {
+    final List<List<Long>> sent = new ArrayList<>();
+    final List<Long> rejected = new ArrayList<>();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config(), rejecting(13L, true, sent, rejected))) {
+      sender.send(ImmutableList.of(batch(10, 11, 12, 13, 14, 15)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Batch should have been delivered.");
+      assertEquals(
+          ImmutableList.of(
+              ImmutableList.of(10L, 11L, 12L, 13L, 14L, 15L),
+              ImmutableList.of(14L, 15L)
+          ),
+          sent,
+          "Only the records after the invalid record should be sent again."
+      );
+      assertEquals(ImmutableList.of(13L), rejected);
+      assertEquals(
+          ImmutableMap.of(TOPIC_PARTITION, new OffsetAndMetadata(16L)),
+          sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION))
+      );
+    }
+  }
+
+  @Test
+  public void bisect() {
+    final List<List<Long>> sent = new ArrayList<>();
+    final List<Long> rejected = new ArrayList<>();
+    try (SinkRecordBatchSender sender = new SinkRecordBatchSender(config(), rejecting(12L, false, sent, rejected))) {
+      sender.send(ImmutableList.of(batch(10, 11, 12, 13, 14, 15, 16, 17)), 1000);
+      assertTrue(sender.awaitDelivery(5000), "Batch should have been delivered.");
+      assertEquals(ImmutableList.of(12L), rejected);
+      int records = 0;
+      for (List<Long> offsets : sent) {
+        records += offsets.size();
+      }
+      assertTrue(records <= 8 * 4, "Bisecting should send each record at most log2(n) + 1 times.");
+      assertEquals(
+          ImmutableMap.of(TOPIC_PARTITION, new OffsetAndMetadata(18L)),
+          sender.deliveredOffsets(ImmutableList.of(TOPIC_PARTITION))
+      );
+    }
+  }
+}
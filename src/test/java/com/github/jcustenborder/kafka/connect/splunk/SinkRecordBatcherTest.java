@@ -0,0 +1,215 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.sink.SinkRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SinkRecordBatcherTest {
+
+  static List<SinkRecord> records(int count) {
+    List<SinkRecord> records = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      SinkRecordContentTest.addRecord(records, ImmutableMap.of("host", "hostname.example.com", "time", new Date(1472256858924L), "source", "testapp", "sourcetype", "txt", "index", "main"));
+    }
+    return records;
+  }
+
+  static String expected(List<SinkRecord> records) throws IOException {
+    return new String(SinkRecordContentTest.write(records), "UTF-8");
+  }
+
+  @Test
+  public void singleBatch() throws IOException {
+    final List<SinkRecord> records = records(10);
+    SinkRecordBatcher batcher = new SinkRecordBatcher(1000000);
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(1, batches.size(), "All of the records should fit in a single batch.");
+    SinkRecordBatch batch = batches.get(0);
+    assertEquals(10, batch.records.size());
+    assertEquals(expected(records), new String(batch.buffer, 0, batch.length, "UTF-8"));
+  }
+
+  @Test
+  public void split() throws IOException {
+    final List<SinkRecord> records = records(100);
+    final int maxBytes = 1024;
+    SinkRecordBatcher batcher = new SinkRecordBatcher(maxBytes);
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertTrue(batches.size() > 1, "Records should have been split into multiple batches.");
+
+    int count = 0;
+    for (SinkRecordBatch batch : batches) {
+      assertTrue(batch.length <= maxBytes, "Batch should not be larger than maxBytes.");
+      assertEquals(expected(batch.records), new String(batch.buffer, 0, batch.length, "UTF-8"));
+      count += batch.records.size();
+    }
+    assertEquals(records.size(), count, "Every record should be in a batch.");
+  }
+
+  @Test
+  public void oversizedRecord() throws IOException {
+    final List<SinkRecord> records = records(3);
+    SinkRecordBatcher batcher = new SinkRecordBatcher(10);
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(3, batches.size(), "Records larger than maxBytes should be sent by themselves.");
+  }
+
+  @Test
+  public void partitions() throws IOException {
+    List<SinkRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(new SinkRecord("topic", i % 2, null, null, null, "value " + i, i));
+    }
+    SinkRecordBatcher batcher = new SinkRecordBatcher(1000000);
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(2, batches.size(), "There should be a batch per partition.");
+    for (SinkRecordBatch batch : batches) {
+      for (SinkRecord record : batch.records) {
+        assertEquals(batch.topicPartition.partition(), (int) record.kafkaPartition());
+      }
+    }
+  }
+
+  @Test
+  public void pooled() throws IOException {
+    BufferPool pool = new BufferPool(10 * 1024 * 1024);
+    SinkRecordBatcher batcher = new SinkRecordBatcher(SplunkHttpSinkConnectorConfigTest.config(), null, pool);
+    SinkRecordBatch batch = batcher.batch(records(10)).get(0);
+    final byte[] buffer = batch.buffer;
+    batch.release();
+    assertNull(batch.buffer);
+    SinkRecordBatch next = batcher.batch(records(10)).get(0);
+    assertSame(buffer, next.buffer, "Released array should be reused.");
+  }
+
+  @Test
+  public void raw() throws IOException {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.RAW_TOPICS_CONF, "logs",
+        SplunkHttpSinkConnectorConfig.RAW_TOPIC_PREFIX + "logs.index", "main",
+        SplunkHttpSinkConnectorConfig.RAW_TOPIC_PREFIX + "logs.sourcetype", "syslog"
+    );
+    SinkRecordBatcher batcher = new SinkRecordBatcher(config, null, new BufferPool(0));
+    List<SinkRecord> records = new ArrayList<>();
+    records.add(new SinkRecord("logs", 0, null, null, null, "first \"line\"", 1));
+    records.add(new SinkRecord("logs", 0, null, null, null, "second line", 2));
+    records.add(new SinkRecord("events", 0, null, null, null, "event", 3));
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(2, batches.size());
+
+    SinkRecordBatch raw = batches.get(0);
+    assertTrue(raw.raw());
+    assertEquals(ImmutableMap.of("index", "main", "sourcetype", "syslog"), raw.rawParameters);
+    assertEquals("first \"line\"\nsecond line", new String(raw.buffer, 0, raw.length, "UTF-8"));
+
+    SinkRecordBatch event = batches.get(1);
+    assertFalse(event.raw());
+    assertEquals(expected(event.records), new String(event.buffer, 0, event.length, "UTF-8"));
+
+    SplunkEndpoint endpoint = SplunkEndpoint.endpoints(config, "channel").get(0);
+    assertEquals(
+        "https://127.0.0.1:8088/services/collector/raw?channel=channel&index=main&sourcetype=syslog",
+        endpoint.url(raw).build()
+    );
+  }
+
+  @Test
+  public void rawInvalidParameter() {
+    assertThrows(ConfigException.class, () -> SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.RAW_TOPICS_CONF, "logs",
+        SplunkHttpSinkConnectorConfig.RAW_TOPIC_PREFIX + "logs.time", "now"
+    ));
+  }
+
+  @Test
+  public void passthrough() throws IOException {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.PASSTHROUGH_TOPICS_CONF, "events"
+    );
+    SinkRecordBatcher batcher = new SinkRecordBatcher(config, null, new BufferPool(0));
+    List<SinkRecord> records = new ArrayList<>();
+    records.add(new SinkRecord("events", 0, null, null, null, "{\"event\":\"first\",\"index\":\"main\"}".getBytes("UTF-8"), 1));
+    records.add(new SinkRecord("events", 0, null, null, null, "{\"event\":\"second\"}", 2));
+    records.add(new SinkRecord("events", 0, null, null, null, 3, 3));
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(1, batches.size());
+    SinkRecordBatch batch = batches.get(0);
+    assertFalse(batch.raw());
+    assertEquals(
+        "{\"event\":\"first\",\"index\":\"main\"}\n{\"event\":\"second\"}\n{\"event\":3}",
+        new String(batch.buffer, 0, batch.length, "UTF-8")
+    );
+    assertTrue(batcher.invalid.isEmpty());
+  }
+
+  @Test
+  public void passthroughValidate() throws IOException {
+    SinkRecordBatcher batcher = new SinkRecordBatcher(
+        SplunkHttpSinkConnectorConfigTest.config(
+            SplunkHttpSinkConnectorConfig.PASSTHROUGH_TOPICS_CONF, "events",
+            SplunkHttpSinkConnectorConfig.PASSTHROUGH_VALIDATE_CONF, "true"
+        ),
+        null,
+        new BufferPool(0)
+    );
+    List<SinkRecord> records = new ArrayList<>();
+    records.add(new SinkRecord("events", 0, null, null, null, " {\"event\":\"first\"}\n".getBytes("UTF-8"), 1));
+    records.add(new SinkRecord("events", 0, null, null, null, "not json", 2));
+    records.add(new SinkRecord("events", 0, null, null, null, "{\"event\":\"third\"}", 3));
+    List<SinkRecordBatch> batches = batcher.batch(records);
+    assertEquals(1, batches.size());
+    assertEquals(2, batches.get(0).records.size());
+    assertEquals(1, batcher.invalid.size());
+    assertEquals(2L, batcher.invalid.get(0).kafkaOffset());
+
+    batcher.batch(records.subList(0, 1));
+    assertTrue(batcher.invalid.isEmpty());
+  }
+
+  @Test
+  public void isJsonObject() {
+    assertTrue(SinkRecordBatcher.isJsonObject("{}"));
+    assertTrue(SinkRecordBatcher.isJsonObject(" {\"event\":1}\r\n"));
+    assertFalse(SinkRecordBatcher.isJsonObject("{"));
+    assertFalse(SinkRecordBatcher.isJsonObject(""));
+    assertFalse(SinkRecordBatcher.isJsonObject("[]"));
+    assertTrue(SinkRecordBatcher.isJsonObject(new byte[]{'{', '}'}));
+    assertFalse(SinkRecordBatcher.isJsonObject(new byte[]{' '}));
+  }
+
+  @Test
+  public void passthroughAndRaw() {
+    assertThrows(ConfigException.class, () -> SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.RAW_TOPICS_CONF, "logs",
+        SplunkHttpSinkConnectorConfig.PASSTHROUGH_TOPICS_CONF, "logs"
+    ));
+  }
+}
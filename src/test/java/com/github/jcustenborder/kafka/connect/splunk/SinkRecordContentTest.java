@@ -17,6 +17,7 @@ package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.junit.jupiter.api.Test;
@@ -25,8 +26,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -72,13 +77,25 @@ public class SinkRecordContentTest {
     return record;
   }
 
-  void test(final SinkRecord input, final String expected) throws IOException {
-    SinkRecordContent content = new SinkRecordContent(input);
-    final String actual;
+  /**
+   * Method is used to write records the way they are sent to the Http Event Collector, one json object per line.
+   */
+  public static byte[] write(Collection<SinkRecord> records) throws IOException {
     try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-      content.writeTo(outputStream);
-      actual = new String(outputStream.toByteArray(), "UTF-8");
+      int index = 0;
+      for (SinkRecord record : records) {
+        if (index > 0) {
+          outputStream.write('\n');
+        }
+        ObjectMapperFactory.INSTANCE.writeValue(outputStream, record);
+        index++;
+      }
+      return outputStream.toByteArray();
     }
+  }
+
+  void test(final SinkRecord input, final String expected) throws IOException {
+    final String actual = new String(write(Collections.singletonList(input)), "UTF-8");
     log.trace("actual = {}", actual);
     assertEquals(expected, actual);
   }
@@ -149,4 +166,59 @@ public class SinkRecordContentTest {
     final String expected = "{\"event\":12341233}";
     test(record, expected);
   }
+
+  @Test
+  public void nestedMap() throws IOException {
+    final Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("time", new Date(-1500L));
+    nested.put("missing", null);
+    nested.put("list", Arrays.asList(1, null, "a"));
+    final Map<String, Object> value = new LinkedHashMap<>();
+    value.put("host", "h");
+    value.put("time", new BigDecimal("1472256858.924"));
+    value.put("message", "m");
+    value.put("empty", null);
+    value.put("nested", nested);
+    final SinkRecord record = record(value);
+
+    final String expected = "{\"host\":\"h\",\"time\":1472256858.924,\"event\":{\"message\":\"m\",\"nested\":{\"time\":-1.500,\"list\":[1,null,\"a\"]}}}";
+    test(record, expected);
+  }
+
+  @Test
+  public void mapNullValues() throws IOException {
+    test(record(Collections.singletonMap("host", null)), "{\"event\":{}}");
+    test(record(Collections.singletonMap("time", 1234L)), "{}");
+    test(record(Collections.emptyMap()), "{}");
+  }
+
+  @Test
+  public void nullValue() throws IOException {
+    test(record(null), "{}");
+  }
+
+  @Test
+  public void date() throws IOException {
+    test(record(new Date(-1L)), "{\"event\":-0.001}");
+    test(record(new Date(0L)), "{\"event\":0.000}");
+    test(record(new Date(Long.MAX_VALUE)), "{\"event\":9223372036854775.807}");
+  }
+
+  @Test
+  public void structSharedSchema() throws IOException {
+    final Schema schema = SchemaBuilder.struct()
+        .field("host", Schema.OPTIONAL_STRING_SCHEMA)
+        .field("message", Schema.OPTIONAL_STRING_SCHEMA)
+        .field("nested", SchemaBuilder.struct().field("index", Schema.OPTIONAL_STRING_SCHEMA).field("count", Schema.OPTIONAL_INT32_SCHEMA).optional().build())
+        .build();
+    final Struct nested = new Struct(schema.field("nested").schema()).put("index", "main").put("count", 3);
+    test(
+        record(schema, new Struct(schema).put("host", "one").put("message", "first").put("nested", nested)),
+        "{\"host\":\"one\",\"event\":{\"message\":\"first\",\"nested\":{\"count\":3}}}"
+    );
+    test(
+        record(schema, new Struct(schema).put("host", "two")),
+        "{\"host\":\"two\"}"
+    );
+  }
 }
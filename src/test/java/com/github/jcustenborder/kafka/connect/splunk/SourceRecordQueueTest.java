@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SourceRecordQueueTest {
+
+  static SourceRecord record(String event) {
+    Struct value = new Struct(EventConverter.VALUE_SCHEMA)
+        .put("host", "host")
+        .put("event", event);
+    return new SourceRecord(null, null, "topic", null, null, EventConverter.VALUE_SCHEMA, value);
+  }
+
+  @Test
+  public void size() {
+    assertEquals(SourceRecordQueue.RECORD_OVERHEAD + 2 * (4 + 5), SourceRecordQueue.size(record("event")));
+  }
+
+  @Test
+  public void maxRecords() throws InterruptedException {
+    SourceRecordQueue queue = new SourceRecordQueue(3, 0, 2, 1);
+    assertTrue(queue.offer(Arrays.asList(record("a"), record("b"))));
+    assertFalse(queue.isFull());
+    assertFalse(queue.offer(Arrays.asList(record("c"), record("d"))), "Records are added all or nothing.");
+    assertEquals(2, queue.size());
+    assertTrue(queue.offer(Collections.singletonList(record("c"))));
+    assertTrue(queue.isFull());
+    assertEquals(1D, queue.fillRatio(), 0.0001D);
+
+    List<SourceRecord> records = new ArrayList<>();
+    assertTrue(queue.drain(records));
+    assertEquals(2, records.size(), "Drain should be limited to the batch size.");
+    assertEquals(1, queue.size());
+    assertEquals(SourceRecordQueue.size(record("c")), queue.bytes());
+    assertTrue(queue.drain(records));
+    assertEquals(3, records.size());
+    assertEquals(0L, queue.bytes());
+    assertFalse(queue.drain(records));
+  }
+
+  @Test
+  public void maxBytes() {
+    final long size = SourceRecordQueue.size(record("a"));
+    SourceRecordQueue queue = new SourceRecordQueue(100, size * 2, 100, 1);
+    assertTrue(queue.offer(Collections.singletonList(record("a"))));
+    assertFalse(queue.offer(Arrays.asList(record("b"), record("c"))));
+    assertEquals(size, queue.bytes(), "A rejected request should not change the byte count.");
+    assertTrue(queue.offer(Collections.emptyList()));
+    assertTrue(queue.offer(Collections.singletonList(record("b"))));
+    assertTrue(queue.isFull());
+    assertEquals(1D, queue.fillRatio(), 0.0001D);
+  }
+
+  @Test
+  public void oversizedWhenEmpty() {
+    final long size = SourceRecordQueue.size(record("a"));
+    SourceRecordQueue queue = new SourceRecordQueue(2, size, 100, 1);
+    assertTrue(queue.offer(Arrays.asList(record("a"), record("b"))), "An empty queue accepts a request larger than max bytes.");
+    assertTrue(queue.isFull());
+  }
+
+  @Test
+  public void moreThanMaxRecords() {
+    SourceRecordQueue queue = new SourceRecordQueue(1, 0, 100, 1);
+    assertFalse(queue.offer(Arrays.asList(record("a"), record("b"))), "A request larger than the ring is never accepted.");
+    assertEquals(0, queue.size());
+    assertEquals(0L, queue.bytes());
+  }
+
+  @Test
+  public void wrap() throws InterruptedException {
+    SourceRecordQueue queue = new SourceRecordQueue(4, 0, 3, 1);
+    List<SourceRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(queue.offer(Arrays.asList(record("a" + i), record("b" + i), record("c" + i))));
+      records.clear();
+      assertTrue(queue.drain(records));
+      assertEquals(3, records.size());
+      assertEquals("a" + i, ((Struct) records.get(0).value()).get("event"));
+      assertEquals("c" + i, ((Struct) records.get(2).value()).get("event"));
+    }
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  public void linger() throws InterruptedException {
+    SourceRecordQueue queue = new SourceRecordQueue(100, 0, 100, 10, 50, 5000);
+    assertTrue(queue.offer(Collections.singletonList(record("a"))));
+    List<SourceRecord> records = new ArrayList<>();
+    final long start = System.nanoTime();
+    assertTrue(queue.drain(records));
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertEquals(1, records.size());
+    assertTrue(elapsed >= 50, "Drain should linger for more records.");
+    assertTrue(elapsed < 5000, "Drain should not wait for the backoff once a record is queued.");
+  }
+
+  @Test
+  public void minBatchSize() throws InterruptedException {
+    SourceRecordQueue queue = new SourceRecordQueue(100, 0, 100, 2, 60000, 60000);
+    assertTrue(queue.offer(Arrays.asList(record("a"), record("b"))));
+    List<SourceRecord> records = new ArrayList<>();
+    assertTrue(queue.drain(records), "Drain should return as soon as the minimum batch is available.");
+    assertEquals(2, records.size());
+  }
+
+  @Test
+  public void wakeup() throws InterruptedException {
+    final SourceRecordQueue queue = new SourceRecordQueue(100, 0, 100, 60000);
+    Thread producer = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.offer(Collections.singletonList(record("a")));
+    });
+    producer.start();
+    List<SourceRecord> records = new ArrayList<>();
+    assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertTrue(queue.drain(records)));
+    assertEquals(1, records.size());
+    producer.join();
+  }
+
+  @Test
+  public void producers() throws InterruptedException {
+    final int producers = 4;
+    final int requests = 1000;
+    final SourceRecordQueue queue = new SourceRecordQueue(64, 0, 50, 10);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < producers; i++) {
+      final String name = Integer.toString(i);
+      Thread thread = new Thread(() -> {
+        int sent = 0;
+        while (sent < requests) {
+          if (queue.offer(Arrays.asList(record(name), record(name)))) {
+            sent++;
+          } else {
+            Thread.yield();
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    List<SourceRecord> records = new ArrayList<>();
+    assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+      while (records.size() < producers * requests * 2) {
+        queue.drain(records);
+      }
+    });
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(producers * requests * 2, records.size());
+    assertEquals(0, queue.size());
+    assertEquals(0L, queue.bytes());
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpillLogTest {
+  File directory;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("spill").toFile();
+  }
+
+  @AfterEach
+  public void teardown() {
+    this.directory.delete();
+  }
+
+  static byte[] body(int length, char c) {
+    byte[] result = new byte[length];
+    Arrays.fill(result, (byte) c);
+    return result;
+  }
+
+  @Test
+  public void appendAndRead() {
+    try (SpillLog spillLog = new SpillLog(this.directory, 1024, 4096)) {
+      byte[] body = "{\"event\":\"test\"}".getBytes(StandardCharsets.UTF_8);
+      SpillLog.Entry entry = spillLog.append(body, body.length);
+      assertNotNull(entry);
+      assertEquals(1, spillLog.entries());
+      assertEquals(body.length, spillLog.bytes());
+
+      byte[] buffer = new byte[body.length];
+      spillLog.read(entry, buffer);
+      assertArrayEquals(body, buffer);
+      assertEquals(0, spillLog.entries());
+      assertEquals(0L, spillLog.bytes());
+    }
+  }
+
+  @Test
+  public void full() {
+    try (SpillLog spillLog = new SpillLog(this.directory, 1024, 2048)) {
+      SpillLog.Entry first = spillLog.append(body(600, 'a'), 600);
+      SpillLog.Entry second = spillLog.append(body(600, 'b'), 600);
+      assertNotNull(first);
+      assertNotNull(second);
+      assertEquals(2, spillLog.segments.size());
+      assertFalse(spillLog.hasRoom(600));
+      assertNull(spillLog.append(body(600, 'c'), 600), "The log should be full.");
+
+      spillLog.release(first);
+      assertEquals(1, spillLog.segments.size(), "A segment should be deleted once everything in it is released.");
+      assertTrue(spillLog.hasRoom(600));
+      SpillLog.Entry third = spillLog.append(body(600, 'c'), 600);
+      assertNotNull(third);
+
+      byte[] buffer = new byte[600];
+      spillLog.read(second, buffer);
+      assertArrayEquals(body(600, 'b'), buffer);
+      spillLog.read(third, buffer);
+      assertArrayEquals(body(600, 'c'), buffer);
+    }
+  }
+
+  @Test
+  public void tooLarge() {
+    try (SpillLog spillLog = new SpillLog(this.directory, 1024, 4096)) {
+      assertNull(spillLog.append(body(1025, 'a'), 1025));
+    }
+  }
+
+  @Test
+  public void spilledBatch() {
+    try (SpillLog spillLog = new SpillLog(this.directory, 1024, 4096)) {
+      SinkRecordBatch batch = SinkRecordBatchSenderTest.body("spilled", 42L);
+      assertTrue(batch.spill(spillLog));
+      assertNull(batch.records, "A spilled batch should not keep its records.");
+      assertNull(batch.buffer);
+      assertEquals(42L, batch.firstOffset());
+      assertEquals(42L, batch.lastOffset());
+      assertEquals(1, batch.size());
+
+      batch.unspill();
+      assertEquals("spilled", new String(batch.buffer, 0, batch.length, StandardCharsets.UTF_8));
+      assertEquals(0, spillLog.entries());
+    }
+  }
+
+  @Test
+  public void close() {
+    SpillLog spillLog = new SpillLog(this.directory, 1024, 4096);
+    spillLog.append(body(600, 'a'), 600);
+    spillLog.append(body(600, 'b'), 600);
+    spillLog.close();
+    assertFalse(spillLog.directory.exists(), "Spill directory should be deleted.");
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.connect.errors.RetriableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SplunkEndpointSelectorTest {
+
+  @Test
+  public void endpoints() {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "splunk01,splunk02:8089,[::1]:9000"
+    );
+    List<SplunkEndpoint> endpoints = SplunkEndpoint.endpoints(config, "channel");
+    assertEquals(3, endpoints.size());
+    assertEquals("splunk01", endpoints.get(0).host);
+    assertEquals(8088, endpoints.get(0).port);
+    assertEquals("splunk02", endpoints.get(1).host);
+    assertEquals(8089, endpoints.get(1).port);
+    assertEquals("::1", endpoints.get(2).host);
+    assertEquals(9000, endpoints.get(2).port);
+    assertEquals("https://splunk02:8089/services/collector/event", endpoints.get(1).eventCollectorUrl.build());
+    assertEquals("https://splunk02:8089/services/collector/ack?channel=channel", endpoints.get(1).ackUrl.build());
+  }
+
+  @Test
+  public void weightsMustMatchHosts() {
+    assertThrows(ConfigException.class, () -> SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "splunk01,splunk02",
+        SplunkHttpSinkConnectorConfig.REMOTE_WEIGHTS_CONF, "1"
+    ));
+  }
+
+  @Test
+  public void weightedRoundRobin() {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "splunk01,splunk02",
+        SplunkHttpSinkConnectorConfig.REMOTE_WEIGHTS_CONF, "3,1",
+        SplunkHttpSinkConnectorConfig.LOAD_BALANCING_STRATEGY_CONF, "ROUND_ROBIN"
+    );
+    List<SplunkEndpoint> endpoints = SplunkEndpoint.endpoints(config, "channel");
+    try (SplunkEndpointSelector selector = new SplunkEndpointSelector(config, endpoints, e -> true)) {
+      Map<SplunkEndpoint, Integer> counts = new HashMap<>();
+      for (int i = 0; i < 40; i++) {
+        SplunkEndpoint endpoint = selector.select();
+        counts.merge(endpoint, 1, Integer::sum);
+        selector.success(endpoint);
+      }
+      assertEquals(30, (int) counts.get(endpoints.get(0)));
+      assertEquals(10, (int) counts.get(endpoints.get(1)));
+    }
+  }
+
+  @Test
+  public void leastOutstanding() {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "splunk01,splunk02"
+    );
+    List<SplunkEndpoint> endpoints = SplunkEndpoint.endpoints(config, "channel");
+    try (SplunkEndpointSelector selector = new SplunkEndpointSelector(config, endpoints, e -> true)) {
+      SplunkEndpoint first = selector.select();
+      SplunkEndpoint second = selector.select();
+      assertEquals(1, first.outstanding.get());
+      assertEquals(1, second.outstanding.get());
+      selector.success(second);
+      assertSame(second, selector.select());
+    }
+  }
+
+  @Test
+  public void ejectAndReadmit() {
+    SplunkHttpSinkConnectorConfig config = SplunkHttpSinkConnectorConfigTest.config(
+        SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "splunk01,splunk02",
+        SplunkHttpSinkConnectorConfig.ENDPOINT_EJECTION_THRESHOLD_CONF, "2",
+        SplunkHttpSinkConnectorConfig.ENDPOINT_EJECTION_CONF, "0",
+        SplunkHttpSinkConnectorConfig.ENDPOINT_HEALTH_CHECK_INTERVAL_CONF, "3600000"
+    );
+    List<SplunkEndpoint> endpoints = SplunkEndpoint.endpoints(config, "channel");
+    final AtomicBoolean healthy = new AtomicBoolean(false);
+    try (SplunkEndpointSelector selector = new SplunkEndpointSelector(config, endpoints, e -> healthy.get())) {
+      SplunkEndpoint failing = endpoints.get(0);
+      SplunkEndpoint working = endpoints.get(1);
+      selector.failure(failing);
+      selector.failure(failing);
+
+      for (int i = 0; i < 10; i++) {
+        SplunkEndpoint endpoint = selector.select();
+        assertSame(working, endpoint, "Ejected endpoint should not be selected.");
+        selector.success(endpoint);
+      }
+
+      selector.failure(working);
+      selector.failure(working);
+      assertThrows(RetriableException.class, selector::select);
+
+      selector.probe();
+      assertThrows(RetriableException.class, selector::select);
+
+      healthy.set(true);
+      selector.probe();
+      SplunkEndpoint endpoint = selector.select();
+      selector.success(endpoint);
+    }
+  }
+}
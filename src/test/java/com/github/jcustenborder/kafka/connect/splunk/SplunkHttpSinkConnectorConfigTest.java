@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SplunkHttpSinkConnectorConfigTest {
+
+  /**
+   * Method is used to build the settings of a sink task that talks to a local Splunk.
+   *
+   * @param settings pairs of keys and values that are added to or replace the defaults.
+   * @return the settings.
+   */
+  static Map<String, String> settings(String... settings) {
+    Map<String, String> map = new LinkedHashMap<>();
+    map.put(SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1");
+    map.put(SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0");
+    for (int i = 0; i < settings.length; i += 2) {
+      map.put(settings[i], settings[i + 1]);
+    }
+    return map;
+  }
+
+  static SplunkHttpSinkConnectorConfig config(String... settings) {
+    return new SplunkHttpSinkConnectorConfig(settings(settings));
+  }
+}
@@ -36,5 +36,8 @@ public class SplunkHttpSinkConnectorTest {
     List<Map<String, String>> taskConfigs = splunkHttpSinkConnector.taskConfigs(10);
     assertNotNull(taskConfigs);
     assertEquals(10, taskConfigs.size());
+    for (int i = 0; i < taskConfigs.size(); i++) {
+      assertEquals(Integer.toString(i), new SplunkHttpSinkConnectorConfig(taskConfigs.get(i)).taskId, "Each task should get its own id.");
+    }
   }
 }
\ No newline at end of file
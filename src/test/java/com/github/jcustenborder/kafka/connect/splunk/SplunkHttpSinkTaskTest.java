@@ -21,23 +21,45 @@ import com.google.api.client.json.Json;
 import com.google.api.client.testing.http.MockHttpTransport;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.errors.RetriableException;
 import org.apache.kafka.connect.sink.SinkRecord;
+import org.apache.kafka.connect.sink.SinkTaskContext;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.ConnectException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SplunkHttpSinkTaskTest {
@@ -51,9 +73,17 @@ public class SplunkHttpSinkTaskTest {
     settings.put(SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1");
     settings.put(SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0");
     settings.put(SplunkHttpSinkConnectorConfig.CURL_LOGGING_ENABLED_CONF, Boolean.TRUE.toString());
+    settings.put(SplunkHttpSinkConnectorConfig.SENDER_TIMEOUT_CONF, "1000");
+    settings.put(SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_CONF, "10");
+    settings.put(SplunkHttpSinkConnectorConfig.MAX_RETRIES_CONF, "1000");
     this.task.start(settings);
   }
 
+  @AfterEach
+  public void teardown() {
+    this.task.stop();
+  }
+
   LowLevelHttpResponse getResponse(int statusCode) throws IOException {
     String resourceFile = String.format("response.%s.json", statusCode);
     InputStream resourceStream = SplunkHttpSinkTaskTest.class.getResourceAsStream(resourceFile);
@@ -67,6 +97,20 @@ public class SplunkHttpSinkTaskTest {
     return httpResponse;
   }
 
+  static String content(LowLevelHttpRequest httpRequest) throws IOException {
+    final byte[] buffer;
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      httpRequest.getStreamingContent().writeTo(outputStream);
+      buffer = outputStream.toByteArray();
+    }
+
+    InputStream inputStream = new ByteArrayInputStream(buffer);
+    if (buffer.length > 2 && buffer[0] == (byte) 0x1f && buffer[1] == (byte) 0x8b) {
+      inputStream = new GZIPInputStream(inputStream);
+    }
+    return new String(ByteStreams.toByteArray(inputStream), "UTF-8");
+  }
+
   @Test
   public void normal() throws IOException {
     Collection<SinkRecord> sinkRecords = new ArrayList<>();
@@ -87,6 +131,56 @@ public class SplunkHttpSinkTaskTest {
 
     this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
     this.task.put(sinkRecords);
+    this.task.flush(ImmutableMap.of());
+
+    final TopicPartition topicPartition = new TopicPartition("topic", 1);
+    Map<TopicPartition, OffsetAndMetadata> offsets = this.task.preCommit(
+        ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L))
+    );
+    assertEquals(ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L)), offsets, "Delivered offsets do not match.");
+  }
+
+  @Test
+  public void splitBatches() throws IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1");
+    settings.put(SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0");
+    settings.put(SplunkHttpSinkConnectorConfig.BATCH_MAX_BYTES_CONF, "1024");
+    this.task.stop();
+    this.task = new SplunkHttpSinkTask();
+    this.task.start(settings);
+
+    Collection<SinkRecord> sinkRecords = SinkRecordBatcherTest.records(100);
+
+    final AtomicInteger requests = new AtomicInteger();
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        requests.incrementAndGet();
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        LowLevelHttpResponse httpResponse = getResponse(200);
+        when(httpRequest.execute()).thenReturn(httpResponse);
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    this.task.put(sinkRecords);
+    this.task.flush(ImmutableMap.of());
+    assertTrue(requests.get() > 1, "Records should have been posted in multiple requests.");
+  }
+
+  @Test
+  public void metricTags() {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1");
+    settings.put(SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0");
+    settings.put(SplunkHttpSinkConnectorConfig.NAME_CONF, "splunk");
+    settings.put(SplunkHttpSinkConnectorConfig.TASK_ID_CONF, "3");
+    this.task.stop();
+    this.task = new SplunkHttpSinkTask();
+    this.task.start(settings);
+    assertEquals(ImmutableMap.of("connector", "splunk", "task", "3"), this.task.metrics.tags);
   }
 
   @Test
@@ -97,7 +191,7 @@ public class SplunkHttpSinkTaskTest {
     SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com", "time", new Date(1472256858924L), "source", "testapp", "sourcetype", "txt", "index", "main"));
 
     final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
-    when(httpRequest.execute()).thenThrow(ConnectException.class);
+    when(httpRequest.execute()).thenThrow(java.net.ConnectException.class);
     this.task.transport = new MockHttpTransport() {
       @Override
       public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
@@ -106,7 +200,97 @@ public class SplunkHttpSinkTaskTest {
     };
 
     this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
-    assertThrows(RetriableException.class, () -> this.task.put(sinkRecords));
+    this.task.put(sinkRecords);
+    assertThrows(RetriableException.class, () -> this.task.flush(ImmutableMap.of()));
+  }
+
+  @Test
+  public void rewind() throws IOException, InterruptedException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSinkConnectorConfig.REMOTE_HOST_CONF, "127.0.0.1");
+    settings.put(SplunkHttpSinkConnectorConfig.AUTHORIZATION_TOKEN_CONF, "B5A79AAD-D822-46CC-80D1-819F80D7BFB0");
+    settings.put(SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_CONF, "1");
+    settings.put(SplunkHttpSinkConnectorConfig.MAX_RETRIES_CONF, "0");
+    this.task.stop();
+    this.task = new SplunkHttpSinkTask();
+    SinkTaskContext context = mock(SinkTaskContext.class);
+    this.task.initialize(context);
+    this.task.start(settings);
+
+    final TopicPartition failing = new TopicPartition("failing", 0);
+    final TopicPartition working = new TopicPartition("working", 0);
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> {
+          if (content(httpRequest).contains(failing.topic())) {
+            throw new java.net.ConnectException();
+          }
+          return getResponse(200);
+        });
+        return httpRequest;
+      }
+    };
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+
+    this.task.put(Arrays.asList(
+        new SinkRecord(failing.topic(), failing.partition(), null, null, null, failing.topic(), 10L),
+        new SinkRecord(working.topic(), working.partition(), null, null, null, working.topic(), 20L)
+    ));
+    this.task.flush(ImmutableMap.of());
+
+    this.task.put(Arrays.asList(
+        new SinkRecord(failing.topic(), failing.partition(), null, null, null, failing.topic(), 11L),
+        new SinkRecord(working.topic(), working.partition(), null, null, null, working.topic(), 21L)
+    ));
+    verify(context).offset(ImmutableMap.of(failing, 10L));
+    this.task.flush(ImmutableMap.of());
+
+    Map<TopicPartition, OffsetAndMetadata> offsets = this.task.preCommit(
+        ImmutableMap.of(failing, new OffsetAndMetadata(12L), working, new OffsetAndMetadata(22L))
+    );
+    assertEquals(ImmutableMap.of(working, new OffsetAndMetadata(22L)), offsets, "Only the working partition should be committed.");
+  }
+
+  @Test
+  public void passthroughInvalid() throws IOException {
+    restart(
+        SplunkHttpSinkConnectorConfig.PASSTHROUGH_TOPICS_CONF, "events",
+        SplunkHttpSinkConnectorConfig.PASSTHROUGH_VALIDATE_CONF, "true"
+    );
+    final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    this.task.deadLetterQueue = deadLetterQueue;
+    final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+    LowLevelHttpResponse httpResponse = getResponse(200);
+    when(httpRequest.execute()).thenReturn(httpResponse);
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        return httpRequest;
+      }
+    };
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+
+    final TopicPartition first = new TopicPartition("events", 0);
+    final TopicPartition second = new TopicPartition("events", 1);
+    this.task.put(Arrays.asList(
+        new SinkRecord(first.topic(), first.partition(), null, null, null, "{\"event\":\"first\"}", 1L),
+        new SinkRecord(first.topic(), first.partition(), null, null, null, "not json", 2L),
+        new SinkRecord(first.topic(), first.partition(), null, null, null, "not json", 3L),
+        new SinkRecord(second.topic(), second.partition(), null, null, null, "not json", 7L)
+    ));
+    this.task.flush(ImmutableMap.of());
+    verify(deadLetterQueue, times(3)).write(any(), eq("Value is not a json object."));
+
+    Map<TopicPartition, OffsetAndMetadata> offsets = this.task.preCommit(
+        ImmutableMap.of(first, new OffsetAndMetadata(4L), second, new OffsetAndMetadata(8L))
+    );
+    assertEquals(
+        ImmutableMap.of(first, new OffsetAndMetadata(4L), second, new OffsetAndMetadata(8L)),
+        offsets,
+        "Offsets should move past the records written to the dead letter queue."
+    );
   }
 
   @Test
@@ -129,7 +313,153 @@ public class SplunkHttpSinkTaskTest {
     };
 
     this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
-    assertThrows(org.apache.kafka.connect.errors.ConnectException.class, () -> this.task.put(sinkRecords));
+    this.task.put(sinkRecords);
+    assertThrows(ConnectException.class, () -> this.task.flush(ImmutableMap.of()));
+  }
+
+  void restart(String... settings) {
+    Map<String, String> map = SplunkHttpSinkConnectorConfigTest.settings(
+        SplunkHttpSinkConnectorConfig.RETRY_BACKOFF_CONF, "1",
+        SplunkHttpSinkConnectorConfig.COMPRESSION_ENABLED_CONF, "false",
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.ADAPTIVE_BATCH_MIN_BYTES_CONF, "1024"
+    );
+    for (int i = 0; i < settings.length; i += 2) {
+      map.put(settings[i], settings[i + 1]);
+    }
+    this.task.stop();
+    this.task = new SplunkHttpSinkTask();
+    this.task.start(map);
+    this.task.batchSize.targetBytes = this.task.batchSize.maxBytes;
+    this.task.batchSize.targetRecords = this.task.batchSize.maxRecords;
+  }
+
+  LowLevelHttpResponse tooLargeResponse() throws IOException {
+    LowLevelHttpResponse httpResponse = getResponse(417);
+    when(httpResponse.getStatusCode()).thenReturn(413);
+    when(httpResponse.getContentType()).thenReturn("text/html");
+    return httpResponse;
+  }
+
+  @Test
+  public void adaptiveContentLengthTooLarge() throws IOException {
+    restart();
+    final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    this.task.deadLetterQueue = deadLetterQueue;
+    final List<Integer> requestSizes = new ArrayList<>();
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> {
+          final int lines = content(httpRequest).split("\n").length;
+          synchronized (requestSizes) {
+            requestSizes.add(lines);
+          }
+          return lines > 2 ? tooLargeResponse() : getResponse(200);
+        });
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    final int maxBytes = this.task.batchSize.targetBytes();
+    this.task.put(SinkRecordBatcherTest.records(8));
+    this.task.flush(ImmutableMap.of());
+    assertEquals(Arrays.asList(8, 4, 2, 2, 4, 2, 2), requestSizes, "The batch should be split until Splunk accepts it.");
+    assertTrue(this.task.batchSize.targetBytes() < maxBytes, "The target size should be lowered.");
+    verify(deadLetterQueue, never()).write(any(), any());
+
+    final TopicPartition topicPartition = new TopicPartition("topic", 1);
+    Map<TopicPartition, OffsetAndMetadata> offsets = this.task.preCommit(
+        ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L))
+    );
+    assertEquals(ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L)), offsets, "Every record should be delivered.");
+  }
+
+  @Test
+  public void adaptiveCompressedTooLarge() throws IOException {
+    restart(
+        SplunkHttpSinkConnectorConfig.COMPRESSION_ENABLED_CONF, "true",
+        SplunkHttpSinkConnectorConfig.COMPRESSION_MIN_BYTES_CONF, "0"
+    );
+    final List<Integer> requestSizes = new ArrayList<>();
+    final List<Integer> targetBytes = new ArrayList<>();
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> {
+          final int length = content(httpRequest).getBytes("UTF-8").length;
+          synchronized (requestSizes) {
+            requestSizes.add(length);
+            targetBytes.add(task.batchSize.targetBytes());
+            return 1 == requestSizes.size() ? tooLargeResponse() : getResponse(200);
+          }
+        });
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    this.task.put(SinkRecordBatcherTest.records(64));
+    this.task.flush(ImmutableMap.of());
+    assertEquals(
+        (int) (requestSizes.get(0) * AdaptiveBatchSize.DECREASE_FACTOR),
+        (int) targetBytes.get(1),
+        "The target size should be based on the uncompressed body."
+    );
+  }
+
+  @Test
+  public void adaptiveRecordTooLarge() throws IOException {
+    restart();
+    final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    this.task.deadLetterQueue = deadLetterQueue;
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> tooLargeResponse());
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    this.task.put(SinkRecordBatcherTest.records(2));
+    assertThrows(ConnectException.class, () -> this.task.flush(ImmutableMap.of()));
+    verify(deadLetterQueue, never()).write(any(), any());
+  }
+
+  @Test
+  public void adaptiveBusy() throws IOException {
+    restart(SplunkHttpSinkConnectorConfig.CIRCUIT_BREAKER_FAILURE_THRESHOLD_CONF, "0");
+    final AtomicInteger requests = new AtomicInteger();
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> {
+          if (1 == requests.incrementAndGet()) {
+            LowLevelHttpResponse httpResponse = getResponse(417);
+            when(httpResponse.getStatusCode()).thenReturn(503);
+            when(httpResponse.getContentType()).thenReturn("text/html");
+            return httpResponse;
+          }
+          return getResponse(200);
+        });
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    final int maxBytes = this.task.batchSize.targetBytes();
+    final int maxRecords = this.task.batchSize.targetRecords();
+    this.task.put(SinkRecordBatcherTest.records(4));
+    this.task.flush(ImmutableMap.of());
+    assertEquals(2, requests.get(), "The batch should be retried after Splunk was busy.");
+    assertTrue(this.task.batchSize.targetBytes() < maxBytes, "The target size should be lowered.");
+    assertTrue(this.task.batchSize.targetRecords() < maxRecords, "The target number of records should be lowered.");
   }
 
   @Test
@@ -151,29 +481,112 @@ public class SplunkHttpSinkTaskTest {
     };
 
     this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
-    assertThrows(org.apache.kafka.connect.errors.ConnectException.class, () -> this.task.put(sinkRecords));
+    this.task.put(sinkRecords);
+    assertThrows(ConnectException.class, () -> this.task.flush(ImmutableMap.of()));
+  }
+
+  LowLevelHttpResponse invalidEventResponse(int invalidEventNumber) throws IOException {
+    String content = String.format("{\"text\":\"Incorrect index\",\"code\":7,\"invalid-event-number\":%s}", invalidEventNumber);
+    LowLevelHttpResponse httpResponse = mock(LowLevelHttpResponse.class, CALLS_REAL_METHODS);
+    when(httpResponse.getStatusCode()).thenReturn(400);
+    when(httpResponse.getContentType()).thenReturn(Json.MEDIA_TYPE);
+    when(httpResponse.getContent()).thenReturn(new ByteArrayInputStream(content.getBytes("UTF-8")));
+    when(httpResponse.getContentEncoding()).thenReturn("UTF-8");
+    return httpResponse;
   }
 
   @Test
   public void invalidIndex() throws IOException {
     Collection<SinkRecord> sinkRecords = new ArrayList<>();
     SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com"));
-    SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com", "time", new Date(1472256858924L), "source", "testapp"));
     SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com", "time", new Date(1472256858924L), "source", "testapp", "sourcetype", "txt", "index", "main"));
+    SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com", "time", new Date(1472256858924L), "source", "testapp"));
 
-    final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
-    LowLevelHttpResponse httpResponse = getResponse(400);
-    when(httpRequest.execute()).thenReturn(httpResponse);
-
+    final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    this.task.deadLetterQueue = deadLetterQueue;
+    final List<Integer> requestSizes = new ArrayList<>();
     this.task.transport = new MockHttpTransport() {
       @Override
       public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        when(httpRequest.execute()).thenAnswer(invocation -> {
+          String[] lines = content(httpRequest).split("\n");
+          synchronized (requestSizes) {
+            requestSizes.add(lines.length);
+          }
+          for (int i = 0; i < lines.length; i++) {
+            if (lines[i].contains("\"index\":\"main\"")) {
+              return invalidEventResponse(i);
+            }
+          }
+          return getResponse(200);
+        });
         return httpRequest;
       }
     };
 
     this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
-    assertThrows(org.apache.kafka.connect.errors.ConnectException.class, () -> this.task.put(sinkRecords));
+    this.task.put(sinkRecords);
+    this.task.flush(ImmutableMap.of());
+    assertEquals(Arrays.asList(3, 1), requestSizes, "Only the records after the invalid record should be resent.");
+    verify(deadLetterQueue).write(argThat(record -> 1L == record.kafkaOffset()), contains("Incorrect index"));
+
+    final TopicPartition topicPartition = new TopicPartition("topic", 1);
+    Map<TopicPartition, OffsetAndMetadata> offsets = this.task.preCommit(
+        ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L))
+    );
+    assertEquals(ImmutableMap.of(topicPartition, new OffsetAndMetadata(2L)), offsets, "The invalid record should not stall the partition.");
+  }
+
+  @Test
+  public void retryAfter() {
+    final long now = 1472254458000L;
+    assertEquals((Long) 120000L, SplunkHttpSinkTask.retryAfterMs("120", now));
+    assertEquals((Long) 30000L, SplunkHttpSinkTask.retryAfterMs("Fri, 26 Aug 2016 23:34:48 GMT", now));
+    assertEquals((Long) 0L, SplunkHttpSinkTask.retryAfterMs("Fri, 26 Aug 2016 00:00:00 GMT", now));
+    assertNull(SplunkHttpSinkTask.retryAfterMs("soon", now));
+    assertNull(SplunkHttpSinkTask.retryAfterMs(null, now));
+  }
+
+  @Test
+  public void circuitBreakerOpen() {
+    SinkTaskContext context = mock(SinkTaskContext.class);
+    this.task.initialize(context);
+    this.task.sender.circuitBreaker.failure(60000L);
+    for (int i = 1; i < this.task.config.circuitBreakerFailureThreshold; i++) {
+      this.task.sender.circuitBreaker.failure(60000L);
+    }
+
+    Collection<SinkRecord> sinkRecords = new ArrayList<>();
+    SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com"));
+    assertThrows(RetriableException.class, () -> this.task.put(sinkRecords));
+    verify(context).timeout(longThat(timeout -> timeout > 0 && timeout <= 60000L));
+
+    this.task.put(new ArrayList<>());
   }
 
+  @Test
+  public void acknowledgementDisabled() throws IOException {
+    Collection<SinkRecord> sinkRecords = new ArrayList<>();
+    SinkRecordContentTest.addRecord(sinkRecords, ImmutableMap.of("host", "hostname.example.com"));
+
+    final String content = "{\"text\":\"ACK is disabled\",\"code\":14}";
+    this.task.transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        final LowLevelHttpRequest httpRequest = mock(LowLevelHttpRequest.class, CALLS_REAL_METHODS);
+        LowLevelHttpResponse httpResponse = mock(LowLevelHttpResponse.class, CALLS_REAL_METHODS);
+        when(httpResponse.getStatusCode()).thenReturn(400);
+        when(httpResponse.getContentType()).thenReturn(Json.MEDIA_TYPE);
+        when(httpResponse.getContent()).thenReturn(new ByteArrayInputStream(content.getBytes("UTF-8")));
+        when(httpResponse.getContentEncoding()).thenReturn("UTF-8");
+        when(httpRequest.execute()).thenReturn(httpResponse);
+        return httpRequest;
+      }
+    };
+
+    this.task.httpRequestFactory = this.task.transport.createRequestFactory(this.task.httpRequestInitializer);
+    this.task.put(sinkRecords);
+    assertThrows(ConnectException.class, () -> this.task.flush(ImmutableMap.of()));
+  }
 }
@@ -17,13 +17,22 @@ package com.github.jcustenborder.kafka.connect.splunk;
 
 import com.github.jcustenborder.kafka.connect.utils.config.MarkdownFormatter;
 import com.google.common.collect.ImmutableMap;
+import org.apache.kafka.common.config.ConfigException;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class SplunkHttpSourceConnectorConfigTest {
@@ -48,4 +57,75 @@ public class SplunkHttpSourceConnectorConfigTest {
     assertEquals(EXPECTED_KEYSTORE_PATH, sslContextFactory.getKeyStorePath(), "KeyStorePath does not match.");
     assertEquals(EXPECTED_SSL_RENEGOTIATION_ALLOWED, sslContextFactory.isRenegotiationAllowed(), "RenegotiationAllowed does not match.");
   }
-}
\ No newline at end of file
+
+  static Map<String, String> settings() {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "file:///tmp/testing.keystore");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, "test");
+    return settings;
+  }
+
+  @Test
+  public void threadPool() {
+    Map<String, String> settings = settings();
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MAX_CONF, "64");
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MIN_CONF, "4");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    ThreadPool threadPool = config.threadPool();
+    assertTrue(threadPool instanceof QueuedThreadPool, "threadPool should be a QueuedThreadPool.");
+    assertEquals(64, ((QueuedThreadPool) threadPool).getMaxThreads(), "MaxThreads does not match.");
+    assertEquals(4, ((QueuedThreadPool) threadPool).getMinThreads(), "MinThreads does not match.");
+  }
+
+  @Test
+  public void virtualThreads() throws Exception {
+    Map<String, String> settings = settings();
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_VIRTUAL_THREADS_ENABLED_CONF, "true");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    final boolean supported = Arrays.stream(Executors.class.getMethods())
+        .anyMatch(method -> "newVirtualThreadPerTaskExecutor".equals(method.getName()));
+    ThreadPool threadPool = config.threadPool();
+    if (supported) {
+      assertTrue(threadPool instanceof ExecutorThreadPool, "threadPool should be an ExecutorThreadPool.");
+      // The executor is only shut down when a started pool is stopped.
+      ExecutorThreadPool executorThreadPool = (ExecutorThreadPool) threadPool;
+      executorThreadPool.start();
+      executorThreadPool.stop();
+    } else {
+      assertTrue(threadPool instanceof QueuedThreadPool, "threadPool should fall back to a QueuedThreadPool.");
+    }
+  }
+
+  @Test
+  public void threadsMinGreaterThanMax() {
+    Map<String, String> settings = settings();
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MAX_CONF, "4");
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MIN_CONF, "8");
+    assertThrows(ConfigException.class, () -> new SplunkHttpSourceConnectorConfig(settings));
+  }
+
+  @Test
+  public void threadsMaxBelowAcceptorsAndSelectors() {
+    Map<String, String> settings = settings();
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MAX_CONF, "4");
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MIN_CONF, "1");
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_ACCEPTORS_CONF, "2");
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_SELECTORS_CONF, "2");
+    assertThrows(ConfigException.class, () -> new SplunkHttpSourceConnectorConfig(settings));
+
+    settings.put(SplunkHttpSourceConnectorConfig.SERVER_THREADS_MAX_CONF, "5");
+    new SplunkHttpSourceConnectorConfig(settings);
+  }
+
+  @Test
+  public void defaultAcceptorsAndSelectors() {
+    assertEquals(1, SplunkHttpSourceConnectorConfig.acceptors(-1, 2));
+    assertEquals(4, SplunkHttpSourceConnectorConfig.acceptors(-1, 64));
+    assertEquals(0, SplunkHttpSourceConnectorConfig.acceptors(0, 64));
+    assertEquals(1, SplunkHttpSourceConnectorConfig.selectors(-1, 1));
+    assertEquals(4, SplunkHttpSourceConnectorConfig.selectors(-1, 64));
+    assertEquals(3, SplunkHttpSourceConnectorConfig.selectors(3, 64));
+  }
+}
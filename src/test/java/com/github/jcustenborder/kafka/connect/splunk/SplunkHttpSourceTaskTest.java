@@ -15,31 +15,42 @@
  */
 package com.github.jcustenborder.kafka.connect.splunk;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.google.api.client.json.Json;
 import com.google.common.collect.ImmutableMap;
 import org.apache.kafka.connect.sink.SinkRecord;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,22 +59,12 @@ public class SplunkHttpSourceTaskTest {
   SplunkHttpSourceTask task;
   String TOPIC_PREFIX_CONF = "splunk";
 
-  static BufferedReader records(Map<String, ?>... records) throws IOException {
+  static byte[] records(Map<String, ?>... records) throws IOException {
     List<SinkRecord> sinkRecords = new ArrayList<>();
     for (Map<String, ?> record : records) {
       SinkRecordContentTest.addRecord(sinkRecords, record);
     }
-    byte[] buffer;
-
-    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-      SinkRecordContent content = new SinkRecordContent(sinkRecords);
-      content.writeTo(outputStream);
-      buffer = outputStream.toByteArray();
-    }
-
-    InputStream inputStream = new ByteArrayInputStream(buffer);
-
-    return new BufferedReader(new InputStreamReader(inputStream));
+    return SinkRecordContentTest.write(sinkRecords);
   }
 
   @BeforeEach
@@ -98,7 +99,7 @@ public class SplunkHttpSourceTaskTest {
   public void simple() throws ServletException, IOException {
     HttpServletRequest request = mock(HttpServletRequest.class);
     HttpServletResponse response = mock(HttpServletResponse.class);
-    BufferedReader reader = records(
+    byte[] body = records(
         ImmutableMap.of(
             "time", new Date(TIME),
             "host", "localhost",
@@ -108,15 +109,15 @@ public class SplunkHttpSourceTaskTest {
         )
     );
 
-    when(request.getReader()).thenReturn(reader);
+    when(request.getInputStream()).thenReturn(inputStream(body, new AtomicReference<>()));
     this.task.eventServlet.doPost(request, response);
     verifyResponse(response, 200, Json.MEDIA_TYPE);
-    assertEquals(1, this.task.sourceRecordConcurrentLinkedDeque.size(), "Size does not match.");
+    assertEquals(1, this.task.recordQueue.size(), "Size does not match.");
   }
 
-  private HttpServletRequest mockRequest(BufferedReader reader) throws IOException {
+  private HttpServletRequest mockRequest(byte[] body) throws IOException {
     HttpServletRequest request = mock(HttpServletRequest.class);
-    when(request.getReader()).thenReturn(reader);
+    when(request.getInputStream()).thenReturn(inputStream(body, new AtomicReference<>()));
     when(request.getHeader("X-Forwarded-For")).thenReturn("10.20.30.40");
     when(request.getRemoteAddr()).thenReturn("10.20.51.71");
     return request;
@@ -140,12 +141,270 @@ public class SplunkHttpSourceTaskTest {
   public void emptyContent() throws ServletException, IOException {
 
     HttpServletResponse response = mock(HttpServletResponse.class);
-    BufferedReader reader = records(
-
-    );
-    HttpServletRequest request = mockRequest(reader);
-    when(request.getReader()).thenReturn(reader);
+    HttpServletRequest request = mockRequest(records());
     this.task.eventServlet.doPost(request, response);
     verifyResponse(response, 200, Json.MEDIA_TYPE);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void async() throws ServletException, IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, TOPIC_PREFIX_CONF);
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/foo");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.ASYNC_ENABLED_CONF, "true");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    SourceRecordQueue recordQueue = new SourceRecordQueue(config);
+    EventServlet servlet = new EventServlet();
+    servlet.configure(config, new JsonFactory(), recordQueue, null);
+
+    final byte[] body = "{\"event\":\"first\"}{\"event\":\"second\"}".getBytes("UTF-8");
+    final ByteArrayInputStream bytes = new ByteArrayInputStream(body);
+    final AtomicReference<ReadListener> readListener = new AtomicReference<>();
+    ServletInputStream inputStream = new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return bytes.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener listener) {
+        readListener.set(listener);
+      }
+
+      @Override
+      public int read() {
+        return bytes.read();
+      }
+    };
+
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    AsyncContext asyncContext = mock(AsyncContext.class);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync()).thenReturn(asyncContext);
+    when(request.getInputStream()).thenReturn(inputStream);
+    when(request.getRemoteAddr()).thenReturn("10.20.51.71");
+    when(asyncContext.getRequest()).thenReturn(request);
+    when(asyncContext.getResponse()).thenReturn(response);
+    when(request.getContentLengthLong()).thenReturn((long) body.length);
+
+    servlet.doPost(request, response);
+    verify(asyncContext).setTimeout(30000L);
+    verify(asyncContext).addListener(any(AsyncListener.class));
+    assertNotNull(readListener.get());
+    verify(asyncContext, never()).complete();
+
+    readListener.get().onDataAvailable();
+    readListener.get().onAllDataRead();
+    verifyResponse(response, 200, Json.MEDIA_TYPE);
+    verify(asyncContext).complete();
+    assertEquals(2, recordQueue.size(), "Size does not match.");
+  }
+
+  @Test
+  public void busy() throws ServletException, IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, TOPIC_PREFIX_CONF);
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/foo");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.QUEUE_MAX_RECORDS_CONF, "2");
+    settings.put(SplunkHttpSourceConnectorConfig.QUEUE_RETRY_AFTER_CONF, "7");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    SourceRecordQueue recordQueue = new SourceRecordQueue(config);
+    SplunkSourceMetrics metrics = mock(SplunkSourceMetrics.class);
+    EventServlet servlet = new EventServlet();
+    servlet.configure(config, new JsonFactory(), recordQueue, metrics);
+
+    Map<String, ?> event = ImmutableMap.of("time", new Date(TIME), "host", "localhost", "event", "Hello world!");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    servlet.doPost(mockRequest(records(event)), response);
+    verifyResponse(response, 200, Json.MEDIA_TYPE);
+    assertEquals(1, recordQueue.size());
+
+    // Two more records do not fit so none of them are added.
+    StringWriter body = new StringWriter();
+    response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(body));
+    servlet.doPost(mockRequest(records(event, event)), response);
+    verifyResponse(response, 503, Json.MEDIA_TYPE);
+    verify(response).setHeader("Retry-After", "7");
+    assertEquals(EventServlet.SERVER_BUSY, body.toString());
+    assertEquals(1, recordQueue.size());
+
+    servlet.doPost(mockRequest(records(event)), mock(HttpServletResponse.class));
+    assertEquals(2, recordQueue.size());
+    assertTrue(recordQueue.isFull());
+
+    // The body is not read once the queue is full.
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    servlet.doPost(request, response);
+    verify(response).setStatus(503);
+    verify(request, never()).getInputStream();
+    verify(metrics, times(2)).recordRejected();
+  }
+
+  @Test
+  public void tooManyEvents() throws ServletException, IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, TOPIC_PREFIX_CONF);
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/foo");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.QUEUE_MAX_RECORDS_CONF, "2");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    SourceRecordQueue recordQueue = new SourceRecordQueue(config);
+    SplunkSourceMetrics metrics = mock(SplunkSourceMetrics.class);
+    EventServlet servlet = new EventServlet();
+    servlet.configure(config, new JsonFactory(), recordQueue, metrics);
+
+    Map<String, ?> event = ImmutableMap.of("time", new Date(TIME), "host", "localhost", "event", "Hello world!");
+    StringWriter body = new StringWriter();
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(body));
+    servlet.doPost(mockRequest(records(event, event, event)), response);
+    verifyResponse(response, 413, Json.MEDIA_TYPE);
+    assertEquals(EventServlet.TOO_MANY_EVENTS, body.toString());
+    assertEquals(0, recordQueue.size());
+    verify(metrics, never()).recordRejected();
+
+    // Reading stops once there are too many events so the rest of the body is never parsed.
+    body = new StringWriter();
+    response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(body));
+    byte[] request = "{\"event\":\"first\"}{\"event\":\"second\"}{\"event\":\"third\"}{\"event\":".getBytes("UTF-8");
+    servlet.doPost(mockRequest(request), response);
+    verifyResponse(response, 413, Json.MEDIA_TYPE);
+    assertEquals(EventServlet.TOO_MANY_EVENTS, body.toString());
+    assertEquals(0, recordQueue.size());
+  }
+
+  @Test
+  public void bodyTooLarge() throws ServletException, IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, TOPIC_PREFIX_CONF);
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/foo");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.MAX_BODY_BYTES_CONF, "1024");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    SourceRecordQueue recordQueue = new SourceRecordQueue(config);
+    EventServlet servlet = new EventServlet();
+    servlet.configure(config, new JsonFactory(), recordQueue, null);
+
+    // A chunked body does not have a Content-Length so it is rejected once it passes the limit.
+    Map<String, ?> event = ImmutableMap.of("time", new Date(TIME), "host", "localhost", "event", "Hello world!");
+    Map<String, ?>[] events = new Map[50];
+    Arrays.fill(events, event);
+    StringWriter body = new StringWriter();
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(body));
+    HttpServletRequest request = mockRequest(records(events));
+    when(request.getContentLengthLong()).thenReturn(-1L);
+    servlet.doPost(request, response);
+    verifyResponse(response, 413, Json.MEDIA_TYPE);
+    assertEquals(EventServlet.BODY_TOO_LARGE, body.toString());
+    assertEquals(0, recordQueue.size());
+  }
+
+  static ServletInputStream inputStream(byte[] body, AtomicReference<ReadListener> readListener) {
+    final ByteArrayInputStream bytes = new ByteArrayInputStream(body);
+    return new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return bytes.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener listener) {
+        readListener.set(listener);
+      }
+
+      @Override
+      public int read() {
+        return bytes.read();
+      }
+    };
+  }
+
+  @Test
+  public void asyncLimits() throws ServletException, IOException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put(SplunkHttpSourceConnectorConfig.TOPIC_PREFIX_CONF, TOPIC_PREFIX_CONF);
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PASSWORD_CONF, "password");
+    settings.put(SplunkHttpSourceConnectorConfig.KEYSTORE_PATH_CONF, "/tmp/foo");
+    settings.put(SplunkHttpSourceConnectorConfig.EVENT_COLLECTOR_INDEX_DEFAULT_CONF, "default");
+    settings.put(SplunkHttpSourceConnectorConfig.ASYNC_ENABLED_CONF, "true");
+    settings.put(SplunkHttpSourceConnectorConfig.MAX_BODY_BYTES_CONF, "1024");
+    SplunkHttpSourceConnectorConfig config = new SplunkHttpSourceConnectorConfig(settings);
+    SourceRecordQueue recordQueue = new SourceRecordQueue(config);
+    EventServlet servlet = new EventServlet();
+    servlet.configure(config, new JsonFactory(), recordQueue, null);
+
+    // A Content-Length over the limit is rejected before anything is read.
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    StringWriter responseBody = new StringWriter();
+    when(response.getWriter()).thenReturn(new PrintWriter(responseBody));
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.getContentLengthLong()).thenReturn(2048L);
+    servlet.doPost(request, response);
+    verifyResponse(response, 413, Json.MEDIA_TYPE);
+    assertEquals(EventServlet.BODY_TOO_LARGE, responseBody.toString());
+    verify(request, never()).startAsync();
+
+    // A body without a Content-Length is rejected once it passes the limit.
+    final byte[] body = new byte[2000];
+    Arrays.fill(body, (byte) ' ');
+    final AtomicReference<ReadListener> readListener = new AtomicReference<>();
+    request = mock(HttpServletRequest.class);
+    response = mock(HttpServletResponse.class);
+    responseBody = new StringWriter();
+    when(response.getWriter()).thenReturn(new PrintWriter(responseBody));
+    AsyncContext asyncContext = mock(AsyncContext.class);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync()).thenReturn(asyncContext);
+    when(request.getInputStream()).thenReturn(inputStream(body, readListener));
+    when(request.getContentLengthLong()).thenReturn(-1L);
+    when(asyncContext.getRequest()).thenReturn(request);
+    when(asyncContext.getResponse()).thenReturn(response);
+    servlet.doPost(request, response);
+    readListener.get().onDataAvailable();
+    readListener.get().onAllDataRead();
+    verify(response).setStatus(413);
+    assertEquals(EventServlet.BODY_TOO_LARGE, responseBody.toString());
+    verify(asyncContext, times(1)).complete();
+    assertEquals(0, recordQueue.size());
+
+    // A request that times out is answered and completed.
+    request = mock(HttpServletRequest.class);
+    response = mock(HttpServletResponse.class);
+    asyncContext = mock(AsyncContext.class);
+    when(request.isAsyncSupported()).thenReturn(true);
+    when(request.startAsync()).thenReturn(asyncContext);
+    when(request.getInputStream()).thenReturn(inputStream(new byte[0], readListener));
+    when(asyncContext.getRequest()).thenReturn(request);
+    when(asyncContext.getResponse()).thenReturn(response);
+    servlet.doPost(request, response);
+    ArgumentCaptor<AsyncListener> asyncListener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(asyncListener.capture());
+    asyncListener.getValue().onTimeout(new AsyncEvent(asyncContext));
+    readListener.get().onAllDataRead();
+    verify(response).setStatus(408);
+    verify(asyncContext, times(1)).complete();
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SplunkStatusMessageTest {
+
+  static SplunkStatusMessage statusMessage(int code) {
+    SplunkStatusMessage statusMessage = new SplunkStatusMessage();
+    statusMessage.code(code);
+    return statusMessage;
+  }
+
+  @Test
+  public void success() {
+    SplunkStatusMessage statusMessage = statusMessage(0);
+    assertTrue(statusMessage.isSuccessful());
+    assertFalse(statusMessage.isInvalidData());
+    assertFalse(statusMessage.isRetriable());
+  }
+
+  @Test
+  public void invalidData() {
+    for (int code : new int[]{5, 6, 7, 12, 13, 15}) {
+      SplunkStatusMessage statusMessage = statusMessage(code);
+      assertTrue(statusMessage.isInvalidData(), "Code " + code + " should be invalid data.");
+      assertFalse(statusMessage.isRetriable(), "Code " + code + " should not be retried.");
+    }
+  }
+
+  @Test
+  public void configuration() {
+    for (int code : new int[]{1, 2, 3, 4, 14}) {
+      SplunkStatusMessage statusMessage = statusMessage(code);
+      assertFalse(statusMessage.isInvalidData(), "Code " + code + " should not be invalid data.");
+      assertFalse(statusMessage.isRetriable(), "Code " + code + " should not be retried.");
+    }
+  }
+
+  @Test
+  public void retriable() {
+    for (int code : new int[]{8, 9, 10, 11}) {
+      assertTrue(statusMessage(code).isRetriable(), "Code " + code + " should be retried.");
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2016 Jeremy Custenborder (jcustenborder@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.jcustenborder.kafka.connect.splunk;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StructSerializationPlanTest {
+
+  static Schema schema() {
+    return SchemaBuilder.struct()
+        .field("message", Schema.OPTIONAL_STRING_SCHEMA)
+        .field("host", Schema.OPTIONAL_STRING_SCHEMA)
+        .field("time", Timestamp.builder().optional().build())
+        .field("count", Schema.OPTIONAL_INT32_SCHEMA)
+        .field("index", Schema.OPTIONAL_STRING_SCHEMA)
+        .build();
+  }
+
+  @Test
+  public void compile() {
+    final Schema schema = schema();
+    final StructSerializationPlan plan = new StructSerializationPlan(schema);
+    assertEquals("host", plan.host.name());
+    assertEquals("time", plan.time.name());
+    assertEquals("index", plan.index.name());
+    assertNull(plan.source);
+    assertNull(plan.sourcetype);
+    assertEquals(2, plan.fields.length);
+    assertEquals("message", plan.fields[0].name());
+    assertEquals("count", plan.fields[1].name());
+    assertEquals("message", plan.names[0].getValue());
+    assertEquals("count", plan.names[1].getValue());
+  }
+
+  @Test
+  public void cachedByIdentity() {
+    final Schema schema = schema();
+    final StructSerializationPlan plan = StructSerializationPlan.of(schema);
+    assertSame(plan, StructSerializationPlan.of(schema));
+    final Schema other = schema();
+    assertEquals(schema, other);
+    assertSame(other, StructSerializationPlan.of(other).schema, "Equal schemas should not be compared.");
+    assertSame(schema, StructSerializationPlan.of(schema).schema);
+  }
+
+  @Test
+  public void hasEvent() {
+    final Schema schema = schema();
+    final StructSerializationPlan plan = StructSerializationPlan.of(schema);
+    final Struct struct = new Struct(schema)
+        .put("host", "hostname.example.com")
+        .put("time", new Date(1472256858924L));
+    assertFalse(plan.hasEvent(struct));
+    struct.put("count", 1);
+    assertTrue(plan.hasEvent(struct));
+  }
+}